@@ -1,27 +1,134 @@
+import manager.CoEnrollmentMatrix;
+import manager.GradeHistory;
+import manager.GradeImporter;
+import manager.OffHeapStudentStore;
+import manager.RegistrySnapshot;
+import manager.StringDictionary;
 import manager.UniversityManager;
+import replication.ReplicationFollower;
+import replication.ReplicationPrimary;
+import service.AdmissionController;
+import service.CheckpointService;
+import service.CommandServer;
+import service.DataFileWatcher;
+import service.UniversityService;
 import model.Course;
+import model.GradeStatistics;
 import model.GraduateStudent;
+import model.Instructor;
+import model.ScheduleConflict;
 import model.Student;
+import model.Term;
+import model.TimeSlot;
 import model.UndergraduateStudent;
-
+import report.RegistryReports;
+import report.ReportFormat;
+import report.TableRenderer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
 
 import exceptions.CourseFullException;
+import exceptions.PrerequisiteNotMetException;
+import exceptions.ScheduleConflictException;
 import exceptions.StudentAlreadyEnrolledException;
 import manager.FileManager; 
 
 public class Main {
-    private static UniversityManager manager = new UniversityManager();
+    private static UniversityService service =
+            new UniversityService(new UniversityManager());
     private static FileManager fileManager = new FileManager();
+    private static CommandServer commandServer;
+    private static ReplicationPrimary replicationPrimary;
+    private static CheckpointService checkpointService;
+    private static DataFileWatcher dataFileWatcher;
+    private static int pageSize;
+
+    /** Rows fetched per read-lock hold when a listing walks the registry. */
+    private static final int LISTING_PAGE_SIZE = 512;
 
     private static Scanner scanner = new Scanner(System.in);
 
+    /**
+     * Usage: java Main [--serve PORT] [--replicate-on PORT]
+     *                  [--checkpoint-every SECONDS] [--checkpoint-after CHANGES]
+     *                  [--page-size ROWS] [--term 2026-FALL]
+     *                  [--enroll-rate PER_SECOND] [--enroll-queue REQUESTS]
+     *                  [--enroll-deadline-ms MILLIS] [--watch-data SETTLE_MS]
+     *                  [--stackless-errors true]
+     *        java Main --follow HOST:PORT [--serve PORT]
+     *        java Main --offheap-report DEPARTMENT|all
+     * With --serve the command API is started next to the menu, so the
+     * console becomes one client among many. --replicate-on streams every
+     * change to followers; --follow runs a headless read-only replica.
+     * The --checkpoint options save the data files in the background;
+     * --page-size pauses long listings every ROWS rows. --term sets the
+     * term new grades are posted in (default: the term today falls in).
+     * The --enroll options set the command API's admission limits: the
+     * rate per client, waiting requests per course, and how long a
+     * request may wait (also the p99 latency target). --watch-data applies
+     * edits other systems make to students.csv and courses.csv once the
+     * file has been quiet for SETTLE_MS. --offheap-report loads students
+     * and grades into the off-heap store only, prints the dean's list and
+     * the department's average GPA, and exits; it is meant for registries
+     * too large to load as objects. --stackless-errors true skips the
+     * stack traces of enrollment exceptions, whose messages are all the
+     * menu shows.
+     */
     public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        if (options.containsKey("--follow")) {
+            runFollower(options.get("--follow"), options.get("--serve"));
+            return;
+        }
+        if (options.containsKey("--offheap-report")) {
+            runOffHeapReport(options.get("--offheap-report"));
+            return;
+        }
+
+        pageSize = Integer.parseInt(options.getOrDefault("--page-size", "0"));
         printWelcomeBanner();
-        fileManager.loadAllData(manager);
+        fileManager.loadAllData(service.getManager());
+        if (options.containsKey("--term")) {
+            try {
+                Term term = Term.parse(options.get("--term"));
+                service.execute(manager -> manager.setCurrentTerm(term));
+            } catch (IllegalArgumentException e) {
+                System.out.println("ERROR: " + e.getMessage());
+            }
+        }
+        System.out.println("Grading term: " + service.query(UniversityManager::getCurrentTerm));
+        if (Boolean.parseBoolean(options.get("--stackless-errors"))) {
+            service.execute(manager -> manager.setStacklessErrors(true));
+        }
+        if (options.containsKey("--serve")) {
+            startCommandServer(Integer.parseInt(options.get("--serve")));
+            if (commandServer != null) {
+                configureAdmission(options);
+            }
+        }
+        if (options.containsKey("--replicate-on")) {
+            startReplicationPrimary(Integer.parseInt(options.get("--replicate-on")));
+        }
+        if (options.containsKey("--checkpoint-every") || options.containsKey("--checkpoint-after")) {
+            startCheckpoints(Long.parseLong(options.getOrDefault("--checkpoint-every", "0")),
+                             Long.parseLong(options.getOrDefault("--checkpoint-after", "0")));
+        }
+        if (options.containsKey("--watch-data")) {
+            startDataWatcher(Long.parseLong(options.get("--watch-data")));
+        }
         boolean running = true;
         while (running) {
             printMainMenu();
@@ -40,9 +147,19 @@ public class Main {
                 case 10: viewAllStudents();           break;
                 case 11: viewAllCourses();            break;
                 case 12: viewTuitionInfo();           break;
+                case 13: registerInstructorMenu();    break;
+                case 14: assignInstructorMenu();      break;
+                case 15: viewAllInstructors();        break;
+                case 16: viewScheduleConflicts();     break;
+                case 17: addPrerequisiteMenu();       break;
+                case 18: importGradesMenu();          break;
+                case 19: exportReportMenu();          break;
+                case 20: viewCourseAffinities();      break;
+                case 21: viewOpenSeats();             break;
+                case 22: viewGradeInflation();        break;
                 case 0:  running = saveAndExit();     break;
                 default:
-                    System.out.println("Invalid choice. Please enter 0-12.");
+                    System.out.println("Invalid choice. Please enter 0-22.");
             }
         }
     }
@@ -71,6 +188,22 @@ public class Main {
         System.out.println("  10. View All Students");
         System.out.println("  11. View All Courses");
         System.out.println("  12. View Tuition Information");
+        System.out.println("  21. Courses With Open Seats");
+        System.out.println();
+        System.out.println("  INSTRUCTORS");
+        System.out.println("  13. Register Instructor");
+        System.out.println("  14. Assign Instructor to Course");
+        System.out.println("  15. View All Instructors");
+        System.out.println();
+        System.out.println("  SCHEDULING");
+        System.out.println("  16. Find Schedule Conflicts");
+        System.out.println("  17. Add Course Prerequisite");
+        System.out.println("  20. Courses Taken Together");
+        System.out.println();
+        System.out.println("  GRADES");
+        System.out.println("  18. Import Grades from CSV");
+        System.out.println("  19. Export Report");
+        System.out.println("  22. Grade Inflation by Department");
         System.out.println();
         System.out.println("  0.  Save and Exit");
         System.out.println("═════════════════════════════════════════");
@@ -93,7 +226,7 @@ public class Main {
                 int yearLevel = getIntInput("Year Level (1=Freshman, 2=Sophomore, 3=Junior, 4=Senior): ");
                 String major = getStringInput("Major: ");
 
-                UndergraduateStudent student = manager.registerUndergraduateStudent(
+                UndergraduateStudent student = service.registerUndergraduateStudent(
                         name, email, age, department, yearLevel, major);
 
                 System.out.println("\nStudent registered successfully!");
@@ -106,7 +239,7 @@ public class Main {
                 String thesis = getStringInput("Thesis Track? (yes/no): ");
                 boolean isThesis = thesis.toLowerCase().startsWith("y");
 
-                GraduateStudent student = manager.registerGraduateStudent(
+                GraduateStudent student = service.registerGraduateStudent(
                         name, email, age, department, research, advisor, isThesis);
 
                 System.out.println("\nStudent registered successfully!");
@@ -129,10 +262,14 @@ public class Main {
         int credits = getIntInput("Credit Hours: ");
         int maxCapacity = getIntInput("Maximum Student Capacity: ");
         String instructor = getStringInput("Instructor Name: ");
+        String schedule = getStringInput("Meeting Time (e.g. MWF 09:00-10:15, or TBA): ");
 
         try {
-            Course course = manager.createCourse(
-                    courseId, courseName, department, credits, maxCapacity, instructor);
+            TimeSlot meetingTime = schedule.equalsIgnoreCase("TBA")
+                    ? null : TimeSlot.parse(schedule);
+            Course course = service.createCourse(
+                    courseId, courseName, department, credits, maxCapacity,
+                    instructor, meetingTime);
             System.out.println("\nCourse created successfully!");
             System.out.println(course);
 
@@ -147,7 +284,7 @@ public class Main {
         String courseId = getStringInput("Course ID: ").toUpperCase();
 
         try {
-            manager.enrollStudentInCourse(studentId, courseId);
+            service.enrollStudentInCourse(studentId, courseId);
             System.out.println("Enrollment successful!");
 
         } catch (CourseFullException e) {
@@ -159,6 +296,14 @@ public class Main {
             System.out.println("\n ENROLLMENT FAILED - ALREADY ENROLLED");
             System.out.println(e.getMessage());
 
+        } catch (ScheduleConflictException e) {
+            System.out.println("\n ENROLLMENT FAILED - SCHEDULE CONFLICT");
+            System.out.println(e.getMessage());
+
+        } catch (PrerequisiteNotMetException e) {
+            System.out.println("\n ENROLLMENT FAILED - PREREQUISITES NOT MET");
+            System.out.println(e.getMessage());
+
         } catch (IllegalArgumentException e) {
             System.out.println("\n✗ ERROR: " + e.getMessage());
         }
@@ -171,7 +316,7 @@ public class Main {
         double grade = getDoubleInput("Grade (0.0 - 4.0): ");
 
         try {
-            manager.updateStudentGrade(studentId, courseId, grade);
+            service.updateStudentGrade(studentId, courseId, grade);
         } catch (IllegalArgumentException e) {
             System.out.println("ERROR: " + e.getMessage());
         }
@@ -182,55 +327,73 @@ public class Main {
         System.out.println("\n--- VIEW STUDENT RECORD ---");
         String studentId = getStringInput("Enter Student ID: ").toUpperCase();
 
-        Optional<Student> result = manager.findStudentById(studentId);
+        service.read(manager -> {
+            Optional<Student> result = manager.findStudentById(studentId);
 
-        if (result.isEmpty()) {
-            System.out.println("Student not found with ID: " + studentId);
-            return;
-        }
+            if (result.isEmpty()) {
+                System.out.println("Student not found with ID: " + studentId);
+                return;
+            }
 
-        Student student = result.get();
-        System.out.println("\n╔══════════════════ STUDENT RECORD ══════════════════╗");
-        System.out.println("  ID:         " + student.getStudentId());
-        System.out.println("  Name:       " + student.getName());
-        System.out.println("  Email:      " + student.getEmail());
-        System.out.println("  Age:        " + student.getAge());
-        System.out.println("  Department: " + student.getDepartment());
-        System.out.println("  Type:       " + student.getStudentType());
-        System.out.printf( "  GPA:        %.2f%n", student.getGpa());
+            Student student = result.get();
+            System.out.println("\n╔══════════════════ STUDENT RECORD ══════════════════╗");
+            System.out.println("  ID:         " + student.getStudentId());
+            System.out.println("  Name:       " + student.getName());
+            System.out.println("  Email:      " + student.getEmail());
+            System.out.println("  Age:        " + student.getAge());
+            System.out.println("  Department: " + student.getDepartment());
+            System.out.println("  Type:       " + student.getStudentType());
+            System.out.printf( "  GPA:        %.2f%n", student.getGpa());
+
+            if (student instanceof UndergraduateStudent) {
+                UndergraduateStudent ug = (UndergraduateStudent) student;
+                System.out.println("  Year:       " + ug.getYearLevelName());
+                System.out.println("  Major:      " + ug.getMajor());
+            } else if (student instanceof GraduateStudent) {
+                GraduateStudent grad = (GraduateStudent) student;
+                System.out.println("  Research:   " + grad.getResearchTopic());
+                System.out.println("  Advisor:    " + grad.getAdvisor());
+                System.out.println("  Thesis:     " + (grad.isThesisTrack() ? "Yes" : "No"));
 
-        if (student instanceof UndergraduateStudent) {
-            UndergraduateStudent ug = (UndergraduateStudent) student;
-            System.out.println("  Year:       " + ug.getYearLevelName());
-            System.out.println("  Major:      " + ug.getMajor());
-        } else if (student instanceof GraduateStudent) {
-            GraduateStudent grad = (GraduateStudent) student;
-            System.out.println("  Research:   " + grad.getResearchTopic());
-            System.out.println("  Advisor:    " + grad.getAdvisor());
-            System.out.println("  Thesis:     " + (grad.isThesisTrack() ? "Yes" : "No"));
+            }
 
-        }
+            System.out.printf("  Tuition:    $%.2f%n", student.calculateTuition());
 
-        System.out.printf("  Tuition:    $%.2f%n", student.calculateTuition());
+            System.out.println("\n  ENROLLED COURSES:");
+            System.out.println("  ─────────────────────────────────────────────────");
+            Map<Course, Double> grades = student.getCourseGrades();
 
-        System.out.println("\n  ENROLLED COURSES:");
-        System.out.println("  ─────────────────────────────────────────────────");
-        Map<Course, Double> grades = student.getCourseGrades();
+            if (grades.isEmpty()) {
+                System.out.println("  No courses enrolled.");
+            } else {
+                for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+                    Course c = entry.getKey();
+                    Double grade = entry.getValue();
+                    String gradeStr = (grade == 0.0) ? "Not Graded" : String.format("%.1f", grade);
+                    System.out.printf("  %-10s %-35s Credits: %d  Grade: %s%n",
+                            c.getCourseId(), c.getCourseName(),
+                            c.getCredits(), gradeStr);
+                }
+            }
 
-        if (grades.isEmpty()) {
-            System.out.println("  No courses enrolled.");
-        } else {
-            for (Map.Entry<Course, Double> entry : grades.entrySet()) {
-                Course c = entry.getKey();
-                Double grade = entry.getValue();
-                String gradeStr = (grade == 0.0) ? "Not Graded" : String.format("%.1f", grade);
-                System.out.printf("  %-10s %-35s Credits: %d  Grade: %s%n",
-                        c.getCourseId(), c.getCourseName(),
-                        c.getCredits(), gradeStr);
+            List<Term> terms = manager.getGradeHistory().getTerms(student);
+            if (!terms.isEmpty()) {
+                System.out.println("\n  TERM HISTORY:");
+                System.out.println("  ─────────────────────────────────────────────────");
+                List<GradeHistory.Entry> transcript = manager.getTranscript(student);
+                int next = 0;
+                for (Term term : terms) {
+                    System.out.printf("  %-12s Term GPA: %.2f  Cumulative: %.2f%n", term,
+                            manager.getTermGpa(student, term), manager.getGpaAsOf(student, term));
+                    while (next < transcript.size() && transcript.get(next).getTerm().equals(term)) {
+                        GradeHistory.Entry entry = transcript.get(next++);
+                        System.out.printf("    %-10s %.2f%n", entry.getCourseId(), entry.getGrade());
+                    }
+                }
             }
-        }
 
-        System.out.println("╚════════════════════════════════════════════════════╝");
+            System.out.println("╚════════════════════════════════════════════════════╝");
+        });
     }
 
     
@@ -238,39 +401,52 @@ public class Main {
         System.out.println("\n--- VIEW COURSE ROSTER ---");
         String courseId = getStringInput("Enter Course ID: ").toUpperCase();
 
-        Optional<Course> result = manager.findCourseById(courseId);
-
-        if (result.isEmpty()) {
-            System.out.println("Course not found: " + courseId);
-            return;
-        }
+        List<RegistrySnapshot.StudentView> roster = service.query(manager -> {
+            Optional<Course> result = manager.findCourseById(courseId);
 
-        Course course = result.get();
+            if (result.isEmpty()) {
+                System.out.println("Course not found: " + courseId);
+                return null;
+            }
 
-        System.out.println("\n╔══════════════════ COURSE ROSTER ══════════════════╗");
-        System.out.println("  Course ID:   " + course.getCourseId());
-        System.out.println("  Name:        " + course.getCourseName());
-        System.out.println("  Department:  " + course.getDepartment());
-        System.out.println("  Instructor:  " + course.getInstructorName());
-        System.out.println("  Credits:     " + course.getCredits());
-        System.out.printf( "  Enrollment:  %d / %d%n",
-                course.getCurrentEnrollment(), course.getMaxCapacity());
-        System.out.println("  ─────────────────────────────────────────────────");
-        System.out.println("  ENROLLED STUDENTS:");
+            Course course = result.get();
+
+            System.out.println("\n╔══════════════════ COURSE ROSTER ══════════════════╗");
+            System.out.println("  Course ID:   " + course.getCourseId());
+            System.out.println("  Name:        " + course.getCourseName());
+            System.out.println("  Department:  " + course.getDepartment());
+            System.out.println("  Instructor:  " + course.getInstructorName());
+            System.out.println("  Credits:     " + course.getCredits());
+            System.out.println("  Schedule:    "
+                    + (course.hasMeetingTime() ? course.getMeetingTime() : "TBA"));
+            List<String> prereqs = manager.getPrerequisites(course.getCourseId());
+            System.out.println("  Prereqs:     "
+                    + (prereqs.isEmpty() ? "None" : String.join(", ", prereqs)));
+            System.out.printf( "  Enrollment:  %d / %d%n",
+                    course.getCurrentEnrollment(), course.getMaxCapacity());
+            printGradeDistribution(course.getGradeStatistics());
+            System.out.println("  ─────────────────────────────────────────────────");
+            System.out.println("  ENROLLED STUDENTS:");
 
-        List<Student> roster = course.getEnrolledStudents();
-        if (roster.isEmpty()) {
-            System.out.println("  No students enrolled.");
-        } else {
-            for (int i = 0; i < roster.size(); i++) {
-                Student s = roster.get(i);
-                System.out.printf("  %d. [%s] %s | %s | GPA: %.2f%n",
-                        i + 1, s.getStudentId(), s.getName(),
-                        s.getDepartment(), s.getGpa());
+            List<Student> students = course.getEnrolledStudents();
+            if (students.isEmpty()) {
+                System.out.println("  No students enrolled.");
+                System.out.println("╚════════════════════════════════════════════════════╝");
+                return null;
             }
-        }
+            RegistrySnapshot snapshot = manager.snapshot();
+            List<RegistrySnapshot.StudentView> views = new ArrayList<>(students.size());
+            for (Student s : students) {
+                views.add(snapshot.getStudent(s.getOrdinal()));
+            }
+            return views;
+        });
 
-        System.out.println("╚════════════════════════════════════════════════════╝");
+        if (roster != null) {
+            render(() -> RegistryReports.writeRoster(
+                    pagedTable(RegistryReports.rosterTable(System.out, ReportFormat.PLAIN)), roster));
+            System.out.println("╚════════════════════════════════════════════════════╝");
+        }
     }
 
     private static void generateDeansList() {
@@ -278,22 +454,14 @@ public class Main {
         System.out.println("  Students with GPA above 3.5");
         System.out.println("  ─────────────────────────────────────────────────");
 
-        List<Student> deansList = manager.getDeansList();
+        List<RegistrySnapshot.StudentView> deansList = service.snapshot().getDeansList();
 
         if (deansList.isEmpty()) {
             System.out.println("  No students currently qualify for the Dean's List.");
             System.out.println("  (Students need GPA > 3.5 and at least one graded course)");
         } else {
-            System.out.printf("  %-5s %-12s %-25s %-20s %s%n",
-                    "#", "ID", "Name", "Department", "GPA");
-            System.out.println("  ─────────────────────────────────────────────────");
-
-            for (int i = 0; i < deansList.size(); i++) {
-                Student s = deansList.get(i);
-                System.out.printf("  %-5d %-12s %-25s %-20s %.2f%n",
-                        (i + 1), s.getStudentId(), s.getName(),
-                        s.getDepartment(), s.getGpa());
-            }
+            render(() -> RegistryReports.writeDeansList(
+                    pagedTable(RegistryReports.deansListTable(System.out, ReportFormat.PLAIN)), deansList));
             System.out.println("\n  Total qualifying students: " + deansList.size());
         }
 
@@ -306,134 +474,534 @@ public class Main {
         System.out.println("\n--- DEPARTMENT STATISTICS ---");
         String dept = getStringInput("Enter Department name: ");
 
-        List<Student> deptStudents = manager.getStudentsByDepartment(dept);
-        double avgGpa = manager.getAverageGpaByDepartment(dept);
+        service.read(manager -> {
+            List<Student> deptStudents = manager.getStudentsByDepartment(dept);
+            double avgGpa = manager.getAverageGpaByDepartment(dept);
+
+            System.out.println("\n╔══════════════════ DEPARTMENT STATS ════════════════╗");
+            System.out.println("  Department: " + dept);
+            System.out.println("  Total Students: " + deptStudents.size());
+            System.out.printf( "  Average GPA: %.2f%n", avgGpa);
+            System.out.println("╚════════════════════════════════════════════════════╝");
+
+            if (!deptStudents.isEmpty()) {
+                System.out.println("\nStudents in " + dept + ":");
+                deptStudents.forEach(s ->
+                    System.out.printf("  [%s] %s - GPA: %.2f (%s)%n",
+                            s.getStudentId(), s.getName(), s.getGpa(), s.getStudentType()));
+            }
+        });
+    }
 
-        System.out.println("\n╔══════════════════ DEPARTMENT STATS ════════════════╗");
-        System.out.println("  Department: " + dept);
-        System.out.println("  Total Students: " + deptStudents.size());
-        System.out.printf( "  Average GPA: %.2f%n", avgGpa);
-        System.out.println("╚════════════════════════════════════════════════════╝");
+    private static void printGradeDistribution(GradeStatistics stats) {
+        if (stats.getCount() == 0) {
+            System.out.println("  Grades:      none posted");
+            return;
+        }
+        System.out.printf( "  Grades:      %d posted, mean %.2f, std dev %.2f%n",
+                stats.getCount(), stats.getMean(), stats.getStandardDeviation());
+        long widest = 1;
+        for (int i = 0; i < GradeStatistics.BUCKETS; i++) {
+            widest = Math.max(widest, stats.getBucketCount(i));
+        }
+        for (int i = GradeStatistics.BUCKETS - 1; i >= 0; i--) {
+            long n = stats.getBucketCount(i);
+            System.out.printf("    %.1f-%.1f %6d %s%n", GradeStatistics.bucketLowerBound(i),
+                    GradeStatistics.bucketLowerBound(i + 1), n, "#".repeat((int) (30 * n / widest)));
+        }
+    }
 
-        if (!deptStudents.isEmpty()) {
-            System.out.println("\nStudents in " + dept + ":");
-            deptStudents.forEach(s ->
-                System.out.printf("  [%s] %s - GPA: %.2f (%s)%n",
-                        s.getStudentId(), s.getName(), s.getGpa(), s.getStudentType()));
+    private static void viewGradeInflation() {
+        System.out.println("\n--- GRADE INFLATION BY DEPARTMENT ---");
+        Map<String, GradeStatistics> departments = service.gradeStatisticsByDepartment();
+        GradeStatistics university = new GradeStatistics();
+        departments.values().forEach(university::merge);
+        if (university.getCount() == 0) {
+            System.out.println("No grades posted yet.");
+            return;
         }
+        int top = GradeStatistics.BUCKETS - 1;
+        System.out.printf("  %-20s %9s %6s %6s %8s %8s%n",
+                "Department", "Grades", "Mean", "SD", "3.5+", "vs all");
+        departments.forEach((department, stats) -> {
+            if (stats.getCount() > 0) {
+                System.out.printf("  %-20s %9d %6.2f %6.2f %7.1f%% %+8.2f%n", department,
+                        stats.getCount(), stats.getMean(), stats.getStandardDeviation(),
+                        100 * stats.getShareFromBucket(top), stats.getMean() - university.getMean());
+            }
+        });
+        System.out.printf("  %-20s %9d %6.2f %6.2f %7.1f%%%n", "All departments",
+                university.getCount(), university.getMean(), university.getStandardDeviation(),
+                100 * university.getShareFromBucket(top));
+        System.out.println("\n3.5+ = share of grades from 3.5 to 4.0."
+                + " vs all = department mean minus the university mean.");
     }
 
     private static void viewTopStudent() {
         System.out.println("\n--- TOP PERFORMING STUDENT ---");
 
-        Optional<Student> top = manager.getTopPerformingStudent();
+        service.read(manager -> {
+            Optional<Student> top = manager.getTopPerformingStudent();
 
-        if (top.isEmpty()) {
-            System.out.println("No graded students found yet.");
-        } else {
-            Student student = top.get();
-            System.out.println("\n TOP PERFORMING STUDENT:");
-            System.out.println("  Name: " + student.getName());
-            System.out.println("  ID:   " + student.getStudentId());
-            System.out.printf( "  GPA:  %.2f%n", student.getGpa());
-            System.out.println("  Dept: " + student.getDepartment());
-        }
+            if (top.isEmpty()) {
+                System.out.println("No graded students found yet.");
+            } else {
+                Student student = top.get();
+                System.out.println("\n TOP PERFORMING STUDENT:");
+                System.out.println("  Name: " + student.getName());
+                System.out.println("  ID:   " + student.getStudentId());
+                System.out.printf( "  GPA:  %.2f%n", student.getGpa());
+                System.out.println("  Dept: " + student.getDepartment());
+            }
+        });
     }
 
     private static void viewAllStudents() {
         System.out.println("\n--- ALL REGISTERED STUDENTS ---");
-        List<Student> allStudents = manager.getAllStudents();
+        RegistrySnapshot snapshot = service.snapshot();
 
-        if (allStudents.isEmpty()) {
+        if (snapshot.getStudentCount() == 0) {
             System.out.println("No students registered yet.");
             return;
         }
 
-        System.out.printf("%-12s %-25s %-20s %-15s %s%n",
-                "ID", "Name", "Department", "Type", "GPA");
-        System.out.println("─".repeat(80));
-
-        for (Student s : allStudents) {
-            System.out.printf("%-12s %-25s %-20s %-15s %.2f%n",
-                    s.getStudentId(), s.getName(), s.getDepartment(),
-                    s.getStudentType(), s.getGpa());
-        }
+        render(() -> RegistryReports.writeStudents(
+                pagedTable(RegistryReports.studentTable(System.out, ReportFormat.PLAIN)), snapshot));
 
-        System.out.println("\nTotal: " + allStudents.size() + " students");
-        manager.printEnrollmentStatistics();
+        System.out.println("\nTotal: " + snapshot.getStudentCount() + " students");
+        service.read(UniversityManager::printEnrollmentStatistics);
     }
 
-    
     private static void viewAllCourses() {
         System.out.println("\n--- ALL COURSES ---");
-        List<Course> allCourses = manager.getAllCourses();
+        int courseCount = service.snapshot().getCourseCount();
 
-        if (allCourses.isEmpty()) {
+        if (courseCount == 0) {
             System.out.println("No courses created yet.");
             return;
         }
 
-        System.out.printf("%-10s %-30s %-20s %-8s %s%n",
-                "ID", "Name", "Department", "Credits", "Enrollment");
-        System.out.println("─".repeat(80));
-
-        for (Course c : allCourses) {
-            System.out.printf("%-10s %-30s %-20s %-8d %d/%d%n",
-                    c.getCourseId(), c.getCourseName(), c.getDepartment(),
-                    c.getCredits(), c.getCurrentEnrollment(), c.getMaxCapacity());
-        }
+        render(() -> RegistryReports.writeCourses(
+                pagedTable(RegistryReports.courseTable(System.out, ReportFormat.PLAIN)),
+                service.streamCourses(LISTING_PAGE_SIZE, false)::iterator));
 
-        System.out.println("\nTotal: " + allCourses.size() + " courses");
+        System.out.println("\nTotal: " + courseCount + " courses");
     }
 
     private static void viewTuitionInfo() {
         System.out.println("\n--- TUITION INFORMATION ---");
         String studentId = getStringInput("Enter Student ID: ").toUpperCase();
 
-        Optional<Student> result = manager.findStudentById(studentId);
+        service.read(manager -> {
+            Optional<Student> result = manager.findStudentById(studentId);
+
+            if (result.isEmpty()) {
+                System.out.println("Student not found.");
+                return;
+            }
+
+            Student student = result.get();
+
+            System.out.println("\n╔══════════════════ TUITION BREAKDOWN ═══════════════╗");
+            System.out.println("  Student: " + student.getName());
+            System.out.println("  Type: " + student.getStudentType());
+            System.out.println();
+
+            if (student instanceof UndergraduateStudent) {
+                System.out.println("  UNDERGRADUATE FLAT RATE:");
+                System.out.println("  Base Tuition:    $5,000.00");
+                System.out.println("  Activity Fee:    $  250.00");
+                System.out.println("  Technology Fee:  $  150.00");
+                System.out.println("  ─────────────────────────────");
+                System.out.printf( "  TOTAL DUE:       $%,.2f%n", student.calculateTuition());
+
+            } else if (student instanceof GraduateStudent) {
+                GraduateStudent grad = (GraduateStudent) student;
+                int credits = student.getEnrolledCourses().stream()
+                        .mapToInt(Course::getCredits).sum();
+                System.out.println("  GRADUATE PER-CREDIT RATE:");
+                System.out.printf( "  Credits Enrolled: %d%n", credits == 0 ? 9 : credits);
+                System.out.printf( "  Per-Credit Cost: $1,500.00%n");
+                System.out.printf( "  Research Fee:    $2,000.00%n");
+                System.out.printf( "  Lab Fee:         $  500.00%n");
+                if (grad.isThesisTrack()) {
+                    System.out.println("  Thesis Fee:      $1,500.00");
+                }
+                System.out.println("  ─────────────────────────────");
+                System.out.printf( "  TOTAL DUE:       $%,.2f%n", student.calculateTuition());
+            }
+
+            System.out.println("╚════════════════════════════════════════════════════╝");
+        });
+    }
+
+    private static void registerInstructorMenu() {
+        System.out.println("\n--- REGISTER INSTRUCTOR ---");
+        String name = getStringInput("Full Name: ");
+        String email = getStringInput("Email: ");
+        int age = getIntInput("Age: ");
+        String department = getStringInput("Department: ");
+        String title = getStringInput("Title (e.g. Dr., Prof.): ");
+
+        try {
+            Instructor instructor = service.registerInstructor(
+                    name, email, age, department, title);
+            System.out.println("\nInstructor registered successfully!");
+            System.out.println(instructor);
+
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void assignInstructorMenu() {
+        System.out.println("\n--- ASSIGN INSTRUCTOR TO COURSE ---");
+        String instructorId = getStringInput("Instructor ID: ").toUpperCase();
+        String courseId = getStringInput("Course ID: ").toUpperCase();
+
+        try {
+            service.assignInstructorToCourse(instructorId, courseId);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void viewAllInstructors() {
+        System.out.println("\n--- ALL INSTRUCTORS ---");
+        service.read(manager -> {
+            List<Instructor> allInstructors = manager.getAllInstructors();
+
+            if (allInstructors.isEmpty()) {
+                System.out.println("No instructors registered yet.");
+                return;
+            }
+
+            System.out.printf("%-10s %-25s %-20s %-8s %s%n",
+                    "ID", "Name", "Department", "Courses", "Students");
+            System.out.println("─".repeat(80));
 
-        if (result.isEmpty()) {
-            System.out.println("Student not found.");
+            for (Instructor i : allInstructors) {
+                System.out.printf("%-10s %-25s %-20s %-8d %d%n",
+                        i.getInstructorId(), i.getTitle() + " " + i.getName(),
+                        i.getDepartment(), i.getCourseLoad(),
+                        i.getTotalStudentsTaught());
+            }
+
+            System.out.println("\nTotal: " + allInstructors.size() + " instructors");
+        });
+    }
+
+    private static void viewScheduleConflicts() {
+        System.out.println("\n--- SCHEDULE CONFLICTS ---");
+        service.read(manager -> {
+            List<ScheduleConflict> conflicts = manager.findAllScheduleConflicts();
+
+            if (conflicts.isEmpty()) {
+                System.out.println("No overlapping timetables found.");
+                return;
+            }
+
+            conflicts.forEach(c -> System.out.println("  " + c));
+            System.out.println("\nTotal: " + conflicts.size() + " conflicts");
+        });
+    }
+
+    private static void viewCourseAffinities() {
+        System.out.println("\n--- COURSES TAKEN TOGETHER ---");
+        String courseId = getOptionalInput("Course ID (blank for the top pairs overall): ").toUpperCase();
+        int count = getIntInput("How many: ");
+
+        try {
+            List<CoEnrollmentMatrix.Affinity> affinities = courseId.isEmpty()
+                    ? service.topCoursePairs(count)
+                    : service.courseAffinities(courseId, count);
+            if (affinities.isEmpty()) {
+                System.out.println("No courses share students.");
+                return;
+            }
+            service.read(manager -> {
+                for (CoEnrollmentMatrix.Affinity affinity : affinities) {
+                    Optional<Course> course = manager.findCourseById(affinity.getCourseId());
+                    Optional<Course> other = manager.findCourseById(affinity.getOtherCourseId());
+                    boolean clash = course.isPresent() && other.isPresent()
+                            && course.get().hasMeetingTime() && other.get().hasMeetingTime()
+                            && course.get().getMeetingTime().overlaps(other.get().getMeetingTime());
+                    System.out.printf("  %-10s %-10s %7d students  overlap %.3f%s%n",
+                            affinity.getCourseId(), affinity.getOtherCourseId(),
+                            affinity.getTogether(), affinity.getJaccard(), clash ? "  CLASH" : "");
+                }
+            });
+            System.out.println("\nOverlap = students in both / students in either."
+                    + " CLASH = the two courses meet at the same time.");
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void viewOpenSeats() {
+        System.out.println("\n--- COURSES WITH OPEN SEATS ---");
+        String department = getOptionalInput("Department (blank for all): ");
+        int minSeats = getIntInput("At least how many open seats: ");
+
+        try {
+            List<RegistrySnapshot.CourseView> found = service.findCoursesWithOpenSeats(
+                    department.isEmpty() ? null : department, minSeats, 50);
+            if (found.isEmpty()) {
+                System.out.println("No courses have " + minSeats + " or more open seats.");
+                return;
+            }
+            for (RegistrySnapshot.CourseView course : found) {
+                System.out.printf("  %-10s %-30s %-15s %4d open  (%d/%d)%n",
+                        course.getCourseId(), course.getCourseName(), course.getDepartment(),
+                        course.getOpenSeats(), course.getCurrentEnrollment(), course.getMaxCapacity());
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void addPrerequisiteMenu() {
+        System.out.println("\n--- ADD COURSE PREREQUISITE ---");
+        String courseId = getStringInput("Course ID: ").toUpperCase();
+        String prerequisiteId = getStringInput("Prerequisite Course ID: ").toUpperCase();
+
+        try {
+            service.addPrerequisite(courseId, prerequisiteId);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+        }
+    }
+
+    private static void importGradesMenu() {
+        System.out.println("\n--- IMPORT GRADES ---");
+        System.out.println("File format: StudentID,CourseID,Grade (one row per line)");
+        Path input = Paths.get(getStringInput("Grades file: "));
+        Path rejects = Paths.get(input + ".rejects");
+
+        // Parsing and validation read a snapshot; only applying takes the
+        // write lock, a few hundred students at a time.
+        try {
+            GradeImporter.Result result = new GradeImporter(service.snapshot(), service::execute)
+                    .importGrades(input, rejects);
+            System.out.println("SUCCESS: " + result);
+            if (result.getRowsRejected() > 0) {
+                System.out.println("Rejected rows written to " + rejects);
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not import grades: " + e.getMessage());
+        }
+    }
+
+    private static void exportReportMenu() {
+        System.out.println("\n--- EXPORT REPORT ---");
+        System.out.println("  1. All Students   2. All Courses   3. Dean's List");
+        int report = getIntInput("Report: ");
+        if (report < 1 || report > 3) {
+            System.out.println("ERROR: Choose a report from 1 to 3.");
+            return;
+        }
+
+        ReportFormat format;
+        try {
+            format = ReportFormat.parse(getStringInput("Format (plain, csv, jsonl): "));
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
             return;
         }
+        String target = getStringInput("Output file (- for the console): ");
 
-        Student student = result.get();
+        if (target.equals("-")) {
+            writeReport(report, System.out, format);
+            return;
+        }
+        Path path = Paths.get(target);
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            int rows = writeReport(report, out, format);
+            if (rows >= 0) {
+                System.out.println("SUCCESS: Wrote " + rows + " rows to " + path);
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not write report: " + e.getMessage());
+        }
+    }
 
-        System.out.println("\n╔══════════════════ TUITION BREAKDOWN ═══════════════╗");
-        System.out.println("  Student: " + student.getName());
-        System.out.println("  Type: " + student.getStudentType());
-        System.out.println();
+    private static int writeReport(int report, Appendable out, ReportFormat format) {
+        switch (report) {
+            case 1:
+                RegistrySnapshot snapshot = service.snapshot();
+                return render(() -> RegistryReports.writeStudents(
+                        RegistryReports.studentTable(out, format), snapshot));
+            case 2:
+                return render(() -> RegistryReports.writeCourses(
+                        RegistryReports.courseTable(out, format),
+                        service.streamCourses(LISTING_PAGE_SIZE, false)::iterator));
+            default:
+                List<RegistrySnapshot.StudentView> deansList = service.snapshot().getDeansList();
+                return render(() -> RegistryReports.writeDeansList(
+                        RegistryReports.deansListTable(out, format), deansList));
+        }
+    }
+
+    /** Writes one report; returns the rows written, or -1 if the output failed. */
+    private interface ReportWriter {
+        int write() throws IOException;
+    }
+
+    private static int render(ReportWriter writer) {
+        try {
+            return writer.write();
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not write report: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /** Adds the --page-size prompt to a console table. */
+    private static TableRenderer pagedTable(TableRenderer table) {
+        if (pageSize <= 0) {
+            return table;
+        }
+        return table.paging(pageSize, rowsShown -> {
+            System.out.print("-- More (Enter to continue, q to stop) -- ");
+            return !scanner.nextLine().trim().equalsIgnoreCase("q");
+        });
+    }
+
+    private static void startCommandServer(int port) {
+        try {
+            commandServer = new CommandServer(service, port);
+            commandServer.start();
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not start command server: " + e.getMessage());
+        }
+    }
+
+    private static void configureAdmission(Map<String, String> options) {
+        if (!options.containsKey("--enroll-rate") && !options.containsKey("--enroll-queue")
+                && !options.containsKey("--enroll-deadline-ms")) {
+            return;
+        }
+        try {
+            commandServer.setAdmissionController(new AdmissionController(service,
+                    Double.parseDouble(options.getOrDefault("--enroll-rate",
+                            String.valueOf(AdmissionController.DEFAULT_RATE_PER_SECOND))),
+                    Integer.parseInt(options.getOrDefault("--enroll-queue",
+                            String.valueOf(AdmissionController.DEFAULT_QUEUE_CAPACITY))),
+                    Long.parseLong(options.getOrDefault("--enroll-deadline-ms",
+                            String.valueOf(AdmissionController.DEFAULT_DEADLINE_MILLIS)))));
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage() + "; keeping the default enrollment limits");
+        }
+    }
+
+    private static void startReplicationPrimary(int port) {
+        try {
+            replicationPrimary = new ReplicationPrimary(service, fileManager, port);
+            replicationPrimary.start();
+            if (commandServer != null) {
+                commandServer.setReplicationStatus(replicationPrimary::getStatus);
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: Could not start replication: " + e.getMessage());
+        }
+    }
+
+    private static void startCheckpoints(long intervalSeconds, long maxChanges) {
+        try {
+            checkpointService = new CheckpointService(service, fileManager,
+                    intervalSeconds * 1000, maxChanges);
+        } catch (IllegalArgumentException e) {
+            System.out.println("ERROR: " + e.getMessage());
+            return;
+        }
+        checkpointService.start();
+        if (commandServer != null) {
+            commandServer.setCheckpointStatus(checkpointService::getStatus);
+        }
+        System.out.println("Background checkpoints on (every " + intervalSeconds
+                + " s, or after " + maxChanges + " changes; 0 = off)");
+    }
 
-        if (student instanceof UndergraduateStudent) {
-            System.out.println("  UNDERGRADUATE FLAT RATE:");
-            System.out.println("  Base Tuition:    $5,000.00");
-            System.out.println("  Activity Fee:    $  250.00");
-            System.out.println("  Technology Fee:  $  150.00");
-            System.out.println("  ─────────────────────────────");
-            System.out.printf( "  TOTAL DUE:       $%,.2f%n", student.calculateTuition());
-
-        } else if (student instanceof GraduateStudent) {
-            GraduateStudent grad = (GraduateStudent) student;
-            int credits = student.getEnrolledCourses().stream()
-                    .mapToInt(Course::getCredits).sum();
-            System.out.println("  GRADUATE PER-CREDIT RATE:");
-            System.out.printf( "  Credits Enrolled: %d%n", credits == 0 ? 9 : credits);
-            System.out.printf( "  Per-Credit Cost: $1,500.00%n");
-            System.out.printf( "  Research Fee:    $2,000.00%n");
-            System.out.printf( "  Lab Fee:         $  500.00%n");
-            if (grad.isThesisTrack()) {
-                System.out.println("  Thesis Fee:      $1,500.00");
+    private static void startDataWatcher(long settleMillis) {
+        try {
+            dataFileWatcher = new DataFileWatcher(service, fileManager, settleMillis);
+            dataFileWatcher.start();
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("ERROR: Could not watch the data files: " + e.getMessage());
+            dataFileWatcher = null;
+            return;
+        }
+        if (commandServer != null) {
+            commandServer.setDataWatchStatus(dataFileWatcher::getStatus);
+        }
+        System.out.println("Watching " + fileManager.getDataDirectory()
+                + " for student and course file changes");
+    }
+
+    private static void runFollower(String primary, String servePort) {
+        int colon = primary.lastIndexOf(':');
+        String host = colon > 0 ? primary.substring(0, colon) : "localhost";
+        int port = Integer.parseInt(primary.substring(colon + 1));
+
+        ReplicationFollower follower = new ReplicationFollower(service, fileManager, host, port);
+        follower.start();
+        System.out.println("Following primary at " + host + ":" + port
+                + " (read-only). Stop with Ctrl+C.");
+
+        if (servePort != null) {
+            try {
+                commandServer = new CommandServer(service, Integer.parseInt(servePort), true);
+                commandServer.setReplicationStatus(follower::getStatus);
+                commandServer.start();
+            } catch (IOException e) {
+                System.out.println("ERROR: Could not start command server: " + e.getMessage());
             }
-            System.out.println("  ─────────────────────────────");
-            System.out.printf( "  TOTAL DUE:       $%,.2f%n", student.calculateTuition());
         }
 
+        try {
+            follower.awaitTermination();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read-only report straight from the data files, without building the
+     * object model; "all" skips the department average.
+     */
+    private static void runOffHeapReport(String department) {
+        OffHeapStudentStore store = new OffHeapStudentStore(new StringDictionary());
+        fileManager.loadStudentsOffHeap(store);
+
+        List<OffHeapStudentStore.View> deansList = store.getDeansList();
+        System.out.println("\n╔══════════════════ DEAN'S LIST ══════════════════╗");
+        render(() -> RegistryReports.writeDeansList(
+                RegistryReports.deansListTable(System.out, ReportFormat.PLAIN), deansList));
+        System.out.println("\n  Total qualifying students: " + deansList.size()
+                + " of " + store.size());
         System.out.println("╚════════════════════════════════════════════════════╝");
+
+        if (!department.equalsIgnoreCase("all")) {
+            System.out.printf("Average GPA in %s: %.2f%n",
+                    department, store.getAverageGpaByDepartment(department));
+        }
     }
 
     private static boolean saveAndExit() {
+        if (commandServer != null) {
+            commandServer.stop();
+        }
+        if (replicationPrimary != null) {
+            replicationPrimary.stop();
+        }
+        if (checkpointService != null) {
+            checkpointService.stop();
+        }
+        if (dataFileWatcher != null) {
+            dataFileWatcher.stop();
+        }
         System.out.println("\nSaving all data before exit...");
-        fileManager.saveAllData(manager);
+        service.read(fileManager::saveAllData);
         System.out.println("\nThank you for using University Management System!");
         scanner.close();
         return false; 
@@ -452,6 +1020,12 @@ public class Main {
         return input.trim();
     }
 
+    /** Like getStringInput, but a blank answer is returned as "". */
+    private static String getOptionalInput(String prompt) {
+        System.out.print(prompt);
+        return scanner.nextLine().trim();
+    }
+
     private static int getIntInput(String prompt) {
         while (true) {
             try {
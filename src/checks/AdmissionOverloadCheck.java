@@ -0,0 +1,150 @@
+package checks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import manager.UniversityManager;
+import service.AdmissionController;
+import service.LatencyHistogram;
+import service.UniversityService;
+
+/**
+ * Overload check for the enrollment admission controller. Runs without
+ * data files: it builds a registry in memory, then offers far more
+ * enrollments than the limits allow while a stalled writer holds the
+ * write lock for a second every few seconds.
+ *
+ * Passes when admitted requests keep their p99 within the deadline and
+ * the excess is refused quickly instead of queueing. Exits with status
+ * 1 on failure.
+ *
+ * Usage: java -cp CLASSES checks.AdmissionOverloadCheck [SECONDS]
+ */
+public class AdmissionOverloadCheck {
+
+    private static final int STUDENTS = 5000;
+    private static final int COURSES = 100;
+    private static final String HOT_COURSE = "C0";
+
+    // Five clients hammer one course; a hundred ordinary ones spread out.
+    private static final int BOTS = 5;
+    private static final double BOT_RATE = 400;
+    private static final int USERS = 100;
+    private static final double USER_RATE = 2;
+
+    private static final long STALL_MILLIS = 1000;
+    private static final long STALL_EVERY_MILLIS = 3000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        PrintStream report = System.out;
+        // The registry prints a line per change; keep only the report.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        UniversityService service = new UniversityService(new UniversityManager());
+        for (int i = 0; i < COURSES; i++) {
+            service.createCourse("C" + i, "Course " + i, "Dept" + (i % 10),
+                    3, 1_000_000, "Staff", null);
+        }
+        for (int i = 0; i < STUDENTS; i++) {
+            service.registerUndergraduateStudent("Student " + i, "s" + i + "@check.edu",
+                    19, "Dept" + (i % 10), 1, "Dept" + (i % 10));
+        }
+
+        AdmissionController admission = new AdmissionController(service);
+        long deadlineMillis = AdmissionController.DEFAULT_DEADLINE_MILLIS;
+        LatencyHistogram refusals = new LatencyHistogram();
+        LatencyHistogram timeouts = new LatencyHistogram();
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread staller = new Thread(() -> {
+            while (running.get()) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(STALL_EVERY_MILLIS));
+                service.execute(m -> LockSupport.parkNanos(
+                        TimeUnit.MILLISECONDS.toNanos(STALL_MILLIS)));
+            }
+        }, "check-lock-staller");
+        staller.setDaemon(true);
+        staller.start();
+
+        double offered = BOTS * BOT_RATE + USERS * USER_RATE;
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / offered);
+        Random random = new Random(1);
+        ExecutorService clients = Executors.newCachedThreadPool();
+        for (long n = 0; ; n++) {
+            long scheduled = start + n * interval;
+            if (scheduled > end) {
+                break;
+            }
+            LockSupport.parkNanos(scheduled - System.nanoTime());
+            boolean bot = random.nextDouble() < BOTS * BOT_RATE / offered;
+            String client = bot ? "bot-" + random.nextInt(BOTS) : "user-" + random.nextInt(USERS);
+            String course = bot ? HOT_COURSE : "C" + random.nextInt(COURSES);
+            String student = "STU" + (1000 + random.nextInt(STUDENTS));
+            clients.execute(() -> {
+                long called = System.nanoTime();
+                try {
+                    AdmissionController.Outcome outcome = admission.enroll(client, student, course);
+                    if (!outcome.isAdmitted()) {
+                        switch (outcome.getRejection()) {
+                            case RATE_LIMITED:
+                            case QUEUE_FULL:
+                                refusals.record(System.nanoTime() - called);
+                                break;
+                            case DEADLINE_EXCEEDED:
+                                timeouts.record(System.nanoTime() - called);
+                                break;
+                            default:
+                                throw new IllegalStateException(
+                                    "Unhandled rejection: " + outcome.getRejection());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(1, TimeUnit.MINUTES);
+        running.set(false);
+        admission.stop();
+
+        long p99 = admission.getLatency().percentileMicros(99);
+        long targetMicros = TimeUnit.MILLISECONDS.toMicros(deadlineMillis);
+        long refusalP99 = refusals.percentileMicros(99);
+        long fastMicros = targetMicros / 10;
+
+        report.printf("Offered %.0f enrollments/s for %d s, write lock stalled %d ms every %d ms%n",
+                offered, seconds, STALL_MILLIS, STALL_EVERY_MILLIS);
+        report.println(admission.getStatus().replace('\n', ' '));
+        report.printf("refusals=%d p99_us=%d max_us=%d; timeouts=%d p99_us=%d max_us=%d%n",
+                refusals.getCount(), refusalP99, refusals.percentileMicros(100),
+                timeouts.getCount(), timeouts.percentileMicros(99), timeouts.percentileMicros(100));
+
+        boolean passed = true;
+        passed &= check(report, admission.getAdmittedCount() > 0,
+                "admitted " + admission.getAdmittedCount() + " requests");
+        passed &= check(report, p99 <= targetMicros,
+                "admitted p99 " + p99 + " us within the " + targetMicros + " us deadline");
+        passed &= check(report, refusals.getCount() > 0,
+                "overload refused " + refusals.getCount() + " requests");
+        passed &= check(report, refusalP99 <= fastMicros,
+                "refusal p99 " + refusalP99 + " us within " + fastMicros + " us");
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    static boolean check(PrintStream report, boolean ok, String what) {
+        report.println((ok ? "SUCCESS: " : "ERROR: ") + what);
+        return ok;
+    }
+}
@@ -0,0 +1,340 @@
+package checks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Multi-process replication check. Starts a primary and two read-only
+ * replicas as separate JVMs, each in its own empty directory, and writes
+ * to the primary over HTTP. One replica is killed halfway and restarted.
+ *
+ * Passes when both replicas end up answering every student, course and
+ * summary query exactly as the primary does, and refuse writes. Exits
+ * with status 1 on failure and keeps the process logs for inspection.
+ *
+ * Usage: java -cp CLASSES checks.ReplicationCheck [STUDENTS]
+ */
+public class ReplicationCheck {
+
+    private static final int COURSES = 20;
+    private static final int ENROLLMENTS_PER_STUDENT = 3;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration CATCH_UP_TIMEOUT = Duration.ofSeconds(60);
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Mathematics", "Physics", "History", "Biology"
+    };
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Random random = new Random(7);
+    private final List<String> courseIds = new ArrayList<>();
+    private final List<String> studentIds = new ArrayList<>();
+    private final Map<String, List<String>> enrollments = new HashMap<>();
+    private final Path workDirectory;
+    private final PrintStream report;
+    private final int primaryPort;
+    private final int replicationPort;
+    private final int[] followerPorts;
+    private final Process[] followers = new Process[2];
+    private Process primary;
+
+    ReplicationCheck(Path workDirectory, PrintStream report) throws IOException {
+        this.workDirectory = workDirectory;
+        this.report = report;
+        this.primaryPort = freePort();
+        this.replicationPort = freePort();
+        this.followerPorts = new int[] { freePort(), freePort() };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        Path workDirectory = Files.createTempDirectory("replication-check");
+        ReplicationCheck check = new ReplicationCheck(workDirectory, System.out);
+        boolean passed = false;
+        try {
+            passed = check.run(students);
+        } finally {
+            check.stopAll();
+        }
+        if (passed) {
+            deleteRecursively(workDirectory);
+        } else {
+            System.out.println("Process logs kept in " + workDirectory);
+            System.exit(1);
+        }
+    }
+
+    boolean run(int students) throws IOException, InterruptedException {
+        primary = start("primary", "--serve", Integer.toString(primaryPort),
+                "--replicate-on", Integer.toString(replicationPort),
+                // Every request comes from this host, so lift the per-caller limit.
+                "--enroll-rate", "100000");
+        awaitReady(primaryPort, "stats", "students=");
+        for (int i = 0; i < followers.length; i++) {
+            followers[i] = startFollower(i);
+        }
+
+        for (int i = 0; i < COURSES; i++) {
+            createCourse(i);
+        }
+        writeStudents(students / 2);
+
+        // Drop one replica without warning; the primary keeps taking writes.
+        followers[1].destroyForcibly().waitFor();
+        writeStudents(students - students / 2);
+        regradeSome(students / 4);
+        followers[1] = startFollower(1);
+        writeStudents(10);
+
+        String expected = fingerprint(primaryPort);
+        report.printf("Primary holds %d students, %d courses, %d enrollments%n",
+                studentIds.size(), courseIds.size(), studentIds.size() * ENROLLMENTS_PER_STUDENT);
+
+        boolean passed = true;
+        for (int i = 0; i < followers.length; i++) {
+            long start = System.nanoTime();
+            String actual = awaitMatch(followerPorts[i], expected);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            passed &= check(expected.equals(actual), "replica " + i + " matches the primary"
+                    + (expected.equals(actual) ? " (matched after " + millis + " ms)"
+                                               : ": first difference " + firstDifference(expected, actual)));
+            String status = get(followerPorts[i], "what=replication").body();
+            report.println("replica " + i + " " + status.replace("OK\n", "").replace('\n', ' ').trim());
+
+            HttpResponse<String> write = post(followerPorts[i], "/enroll",
+                    "studentId=" + studentIds.get(0) + "&courseId=" + courseIds.get(1));
+            passed &= check(write.statusCode() == 409,
+                    "replica " + i + " refuses writes (HTTP " + write.statusCode() + ")");
+        }
+        return passed;
+    }
+
+    private Process startFollower(int index) throws IOException, InterruptedException {
+        Process follower = start("follower-" + index,
+                "--follow", "localhost:" + replicationPort,
+                "--serve", Integer.toString(followerPorts[index]));
+        awaitReady(followerPorts[index], "replication", "connected=true");
+        return follower;
+    }
+
+    private Process start(String name, String... args) throws IOException {
+        Path directory = Files.createDirectories(workDirectory.resolve(name));
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("Main");
+        command.addAll(List.of(args));
+        Path log = directory.resolve("process.log");
+        // A fresh log per start, so a restarted replica keeps its first log too.
+        int run = 1;
+        while (Files.exists(log)) {
+            log = directory.resolve("process-" + (++run) + ".log");
+        }
+        return new ProcessBuilder(command)
+                .directory(directory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private void awaitReady(int port, String what, String marker)
+            throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (get(port, "what=" + what).body().contains(marker)) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(200);
+        }
+        throw new IOException("Port " + port + " did not report " + marker
+                + " within " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    private void createCourse(int index) throws IOException, InterruptedException {
+        String courseId = "RC" + (100 + index);
+        String department = DEPARTMENTS[index % DEPARTMENTS.length];
+        expectOk(post(primaryPort, "/course", "courseId=" + courseId
+                + "&name=" + encode("Course " + index) + "&department=" + encode(department)
+                + "&credits=3&capacity=100000&instructor=" + encode("Instructor " + (index % 7))
+                + "&schedule=TBA"));
+        courseIds.add(courseId);
+    }
+
+    private void writeStudents(int count) throws IOException, InterruptedException {
+        for (int i = 0; i < count; i++) {
+            int n = studentIds.size();
+            String department = DEPARTMENTS[n % DEPARTMENTS.length];
+            String form = "name=" + encode("Replica Student " + n)
+                    + "&email=replica" + n + "@check.edu&age=" + (18 + n % 10)
+                    + "&department=" + encode(department);
+            if (n % 4 == 0) {
+                form = "type=GRAD&" + form + "&researchTopic=" + encode("Topic " + n)
+                        + "&advisor=" + encode("Advisor " + (n % 5)) + "&thesis=" + (n % 8 == 0);
+            } else {
+                form = "type=UNDERGRAD&" + form + "&yearLevel=" + (1 + n % 4)
+                        + "&major=" + encode(department);
+            }
+            String studentId = expectOk(post(primaryPort, "/register", form)).trim();
+            studentIds.add(studentId);
+
+            List<String> courses = new ArrayList<>(courseIds);
+            List<String> enrolled = new ArrayList<>();
+            enrollments.put(studentId, enrolled);
+            for (int c = 0; c < ENROLLMENTS_PER_STUDENT; c++) {
+                String courseId = courses.remove(random.nextInt(courses.size()));
+                expectOk(post(primaryPort, "/enroll",
+                        "studentId=" + studentId + "&courseId=" + courseId));
+                enrolled.add(courseId);
+                if (random.nextBoolean()) {
+                    grade(studentId, courseId);
+                }
+            }
+        }
+    }
+
+    /** Grades already-enrolled students again, so updates replicate too. */
+    private void regradeSome(int count) throws IOException, InterruptedException {
+        for (int i = 0; i < count; i++) {
+            String studentId = studentIds.get(random.nextInt(studentIds.size()));
+            List<String> courses = enrollments.get(studentId);
+            grade(studentId, courses.get(random.nextInt(courses.size())));
+        }
+    }
+
+    private void grade(String studentId, String courseId) throws IOException, InterruptedException {
+        expectOk(post(primaryPort, "/grade",
+                "studentId=" + studentId + "&courseId=" + courseId + "&grade=" + randomGrade()));
+    }
+
+    private String randomGrade() {
+        return String.format("%.1f", 1.0 + random.nextInt(31) / 10.0);
+    }
+
+    /** Everything a client can read, in a fixed order. */
+    private String fingerprint(int port) throws IOException, InterruptedException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(get(port, "what=stats").body());
+        sb.append(get(port, "what=departments").body());
+        for (String courseId : courseIds) {
+            sb.append(get(port, "what=course&id=" + courseId).body());
+        }
+        for (String studentId : studentIds) {
+            sb.append(get(port, "what=student&id=" + studentId).body());
+            sb.append(get(port, "what=transcript&id=" + studentId).body());
+        }
+        return sb.toString();
+    }
+
+    private String awaitMatch(int port, String expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + CATCH_UP_TIMEOUT.toNanos();
+        String actual = fingerprint(port);
+        while (!expected.equals(actual) && System.nanoTime() < deadline) {
+            Thread.sleep(250);
+            actual = fingerprint(port);
+        }
+        return actual;
+    }
+
+    private static String firstDifference(String expected, String actual) {
+        String[] want = expected.split("\n");
+        String[] got = actual.split("\n");
+        for (int i = 0; i < Math.min(want.length, got.length); i++) {
+            if (!want[i].equals(got[i])) {
+                return "expected [" + want[i] + "] got [" + got[i] + "]";
+            }
+        }
+        return "expected " + want.length + " lines, got " + got.length;
+    }
+
+    private HttpResponse<String> get(int port, String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + port + "/query?" + query)).GET().build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(int port, String path, String form)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    /** The response body after the "OK" line; anything else aborts the check. */
+    private static String expectOk(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() != 200) {
+            throw new IOException(response.uri() + " returned " + response.statusCode()
+                    + ": " + response.body().trim());
+        }
+        return response.body().substring(response.body().indexOf('\n') + 1);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private boolean check(boolean ok, String what) {
+        report.println((ok ? "SUCCESS: " : "ERROR: ") + what);
+        return ok;
+    }
+
+    private void stopAll() throws InterruptedException {
+        for (Process follower : followers) {
+            if (follower != null) {
+                follower.destroyForcibly().waitFor();
+            }
+        }
+        if (primary != null) {
+            // "0" is Save and Exit in the primary's menu.
+            try (OutputStream menu = primary.getOutputStream()) {
+                menu.write("0\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // Already gone.
+            }
+            if (!primary.waitFor(10, TimeUnit.SECONDS)) {
+                primary.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
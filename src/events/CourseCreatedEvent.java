@@ -0,0 +1,19 @@
+package events;
+
+import manager.RegistrySnapshot;
+
+public class CourseCreatedEvent extends DomainEvent {
+
+    private final RegistrySnapshot.CourseView course;
+
+    public CourseCreatedEvent(RegistrySnapshot.CourseView course) {
+        this.course = course;
+    }
+
+    public RegistrySnapshot.CourseView getCourse() { return course; }
+
+    @Override
+    public String getType() {
+        return "CourseCreated";
+    }
+}
@@ -0,0 +1,20 @@
+package events;
+
+import manager.RegistrySnapshot;
+
+/** An existing course's details changed, e.g. from an edited data file. */
+public class CourseUpdatedEvent extends DomainEvent {
+
+    private final RegistrySnapshot.CourseView course;
+
+    public CourseUpdatedEvent(RegistrySnapshot.CourseView course) {
+        this.course = course;
+    }
+
+    public RegistrySnapshot.CourseView getCourse() { return course; }
+
+    @Override
+    public String getType() {
+        return "CourseUpdated";
+    }
+}
@@ -0,0 +1,29 @@
+package events;
+
+/**
+ * Base class for everything published on the EventBus. The bus stamps
+ * each event with its position in the stream when it is published.
+ */
+public abstract class DomainEvent {
+
+    private final long timestamp;
+    private long sequence = -1;
+
+    protected DomainEvent() {
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getSequence() { return sequence; }
+    public long getTimestamp() { return timestamp; }
+
+    public abstract String getType();
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s", sequence, getType());
+    }
+}
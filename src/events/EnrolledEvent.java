@@ -0,0 +1,20 @@
+package events;
+
+public class EnrolledEvent extends DomainEvent {
+
+    private final String studentId;
+    private final String courseId;
+
+    public EnrolledEvent(String studentId, String courseId) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+
+    @Override
+    public String getType() {
+        return "Enrolled";
+    }
+}
@@ -0,0 +1,205 @@
+package events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded ring buffer of domain events with one consumer thread per
+ * subscriber, in the style of the LMAX Disruptor.
+ *
+ * Publishing claims a sequence number, writes the slot and advances the
+ * cursor; it never takes a lock or wakes anyone, so the mutator's cost is
+ * a few atomic operations. Each subscriber follows the cursor on its own
+ * thread and gets everything that has arrived as one batch. When the
+ * slowest subscriber falls a full ring behind, publishers wait for it
+ * (back-pressure) instead of dropping events.
+ *
+ * Events carry only immutable values captured when they were published
+ * (IDs, grades, RegistrySnapshot views), never live model objects, so a
+ * subscriber can read them on its own thread without any lock. It must
+ * not take the UniversityService lock either: writers publish while
+ * holding the write lock, so a subscriber waiting for that lock while
+ * the ring is full deadlocks with a writer parked on back-pressure.
+ */
+public class EventBus {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int DEFAULT_MAX_BATCH = 256;
+
+    private final DomainEvent[] ring;
+    private final int mask;
+
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private volatile long cachedGatingSequence = -1;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(
+                "Event bus capacity must be a power of two, got: " + capacity);
+        }
+        this.ring = new DomainEvent[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Appends an event to the stream. A no-op while nobody is subscribed.
+     * The event must not reference mutable state: subscribers read it
+     * later, on their own threads, without the publisher's lock.
+     */
+    public void publish(DomainEvent event) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - ring.length;
+        if (wrapPoint > cachedGatingSequence) {
+            long gating;
+            while (wrapPoint > (gating = slowestSubscriber(sequence - 1))) {
+                LockSupport.parkNanos(1_000);
+            }
+            cachedGatingSequence = gating;
+        }
+
+        event.setSequence(sequence);
+        ring[(int) (sequence & mask)] = event;
+
+        // Concurrent publishers make their slots visible in claim order.
+        while (cursor.get() != sequence - 1) {
+            Thread.onSpinWait();
+        }
+        cursor.set(sequence);
+    }
+
+    private long slowestSubscriber(long fallback) {
+        long minimum = fallback;
+        for (Subscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence.get());
+        }
+        return minimum;
+    }
+
+    /** Highest sequence number visible to subscribers, or -1 if none yet. */
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    public Subscription subscribe(String name, EventSubscriber subscriber) {
+        return subscribe(name, subscriber, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * Starts a consumer thread that sees every event published from now on.
+     */
+    public Subscription subscribe(String name, EventSubscriber subscriber, int maxBatch) {
+        Subscription subscription = new Subscription(name, subscriber, maxBatch);
+        synchronized (this) {
+            // Start at the current cursor so the new consumer gates publishers
+            // from its very first event.
+            subscription.sequence.set(cursor.get());
+            subscriptions.add(subscription);
+        }
+        subscription.thread.start();
+        return subscription;
+    }
+
+    public void shutdown() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    public class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final EventSubscriber subscriber;
+        private final int maxBatch;
+        private final AtomicLong sequence = new AtomicLong(-1);
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Subscription(String name, EventSubscriber subscriber, int maxBatch) {
+            this.name = name;
+            this.subscriber = subscriber;
+            this.maxBatch = Math.max(1, maxBatch);
+            this.thread = new Thread(this::consume, "event-subscriber-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        private void consume() {
+            List<DomainEvent> batch = new ArrayList<>(maxBatch);
+            List<DomainEvent> view = Collections.unmodifiableList(batch);
+            int idle = 0;
+
+            while (running || sequence.get() < cursor.get()) {
+                long next = sequence.get() + 1;
+                long available = cursor.get();
+                if (available < next) {
+                    idle = backOff(idle);
+                    continue;
+                }
+                idle = 0;
+
+                long end = Math.min(available, next + maxBatch - 1);
+                batch.clear();
+                for (long s = next; s <= end; s++) {
+                    batch.add(ring[(int) (s & mask)]);
+                }
+                try {
+                    subscriber.onEvents(view);
+                } catch (RuntimeException e) {
+                    System.err.println("WARNING: Event subscriber '" + name
+                            + "' failed: " + e.getMessage());
+                }
+                sequence.set(end);
+            }
+        }
+
+        private int backOff(int idle) {
+            if (idle < 100) {
+                Thread.onSpinWait();
+            } else if (idle < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(100_000);
+            }
+            return idle + 1;
+        }
+
+        public String getName() { return name; }
+
+        /** Events published but not yet handled by this subscriber. */
+        public long getLag() {
+            return cursor.get() - sequence.get();
+        }
+
+        /** Stops after draining what is already published, then detaches. */
+        @Override
+        public void close() {
+            running = false;
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package events;
+
+import java.util.List;
+
+/**
+ * Receives events on the subscriber's own thread, in publish order,
+ * in batches of everything that arrived since the previous call.
+ * Implementations must never take the UniversityService lock (see
+ * EventBus).
+ */
+public interface EventSubscriber {
+
+    void onEvents(List<DomainEvent> batch);
+}
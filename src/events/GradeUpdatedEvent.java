@@ -0,0 +1,23 @@
+package events;
+
+public class GradeUpdatedEvent extends DomainEvent {
+
+    private final String studentId;
+    private final String courseId;
+    private final double grade;
+
+    public GradeUpdatedEvent(String studentId, String courseId, double grade) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.grade = grade;
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public double getGrade() { return grade; }
+
+    @Override
+    public String getType() {
+        return "GradeUpdated";
+    }
+}
@@ -0,0 +1,24 @@
+package events;
+
+/**
+ * A course's instructor changed. The instructor ID is null when the
+ * course was left unassigned.
+ */
+public class InstructorAssignedEvent extends DomainEvent {
+
+    private final String courseId;
+    private final String instructorId;
+
+    public InstructorAssignedEvent(String courseId, String instructorId) {
+        this.courseId = courseId;
+        this.instructorId = instructorId;
+    }
+
+    public String getCourseId() { return courseId; }
+    public String getInstructorId() { return instructorId; }
+
+    @Override
+    public String getType() {
+        return "InstructorAssigned";
+    }
+}
@@ -0,0 +1,19 @@
+package events;
+
+import manager.RegistrySnapshot;
+
+public class InstructorRegisteredEvent extends DomainEvent {
+
+    private final RegistrySnapshot.InstructorView instructor;
+
+    public InstructorRegisteredEvent(RegistrySnapshot.InstructorView instructor) {
+        this.instructor = instructor;
+    }
+
+    public RegistrySnapshot.InstructorView getInstructor() { return instructor; }
+
+    @Override
+    public String getType() {
+        return "InstructorRegistered";
+    }
+}
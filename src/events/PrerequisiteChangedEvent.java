@@ -0,0 +1,23 @@
+package events;
+
+public class PrerequisiteChangedEvent extends DomainEvent {
+
+    private final String courseId;
+    private final String prerequisiteId;
+    private final boolean added;
+
+    public PrerequisiteChangedEvent(String courseId, String prerequisiteId, boolean added) {
+        this.courseId = courseId;
+        this.prerequisiteId = prerequisiteId;
+        this.added = added;
+    }
+
+    public String getCourseId() { return courseId; }
+    public String getPrerequisiteId() { return prerequisiteId; }
+    public boolean isAdded() { return added; }
+
+    @Override
+    public String getType() {
+        return added ? "PrerequisiteAdded" : "PrerequisiteRemoved";
+    }
+}
@@ -0,0 +1,19 @@
+package events;
+
+import manager.RegistrySnapshot;
+
+public class StudentRegisteredEvent extends DomainEvent {
+
+    private final RegistrySnapshot.StudentView student;
+
+    public StudentRegisteredEvent(RegistrySnapshot.StudentView student) {
+        this.student = student;
+    }
+
+    public RegistrySnapshot.StudentView getStudent() { return student; }
+
+    @Override
+    public String getType() {
+        return "StudentRegistered";
+    }
+}
@@ -0,0 +1,20 @@
+package events;
+
+import manager.RegistrySnapshot;
+
+/** An existing student's record was replaced, e.g. from an edited data file. */
+public class StudentUpdatedEvent extends DomainEvent {
+
+    private final RegistrySnapshot.StudentView student;
+
+    public StudentUpdatedEvent(RegistrySnapshot.StudentView student) {
+        this.student = student;
+    }
+
+    public RegistrySnapshot.StudentView getStudent() { return student; }
+
+    @Override
+    public String getType() {
+        return "StudentUpdated";
+    }
+}
@@ -7,11 +7,20 @@ public class CourseFullException extends Exception {
     private int maxCapacity;
 
     public CourseFullException(String courseId, String courseName, int maxCapacity) {
+        this(courseId, courseName, maxCapacity, true);
+    }
+
+    /**
+     * With writableStackTrace false no stack trace is captured, which
+     * makes a routine rejection much cheaper to throw.
+     */
+    public CourseFullException(String courseId, String courseName, int maxCapacity,
+                               boolean writableStackTrace) {
         super(String.format(
             "Course '%s' (%s) is FULL! Maximum capacity of %d students reached. " +
             "Please try another section or add yourself to the waitlist.",
             courseName, courseId, maxCapacity
-        ));
+        ), null, true, writableStackTrace);
         this.courseId = courseId;
         this.courseName = courseName;
         this.maxCapacity = maxCapacity;
@@ -0,0 +1,44 @@
+package exceptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PrerequisiteNotMetException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private String studentId;
+    private String courseId;
+    private List<String> missingCourseIds;
+
+    public PrerequisiteNotMetException(String studentId, String studentName,
+                                        String courseId, String courseName,
+                                        List<String> missingCourseIds) {
+        this(studentId, studentName, courseId, courseName, missingCourseIds, true);
+    }
+
+    /** With writableStackTrace false no stack trace is captured. */
+    public PrerequisiteNotMetException(String studentId, String studentName,
+                                        String courseId, String courseName,
+                                        List<String> missingCourseIds,
+                                        boolean writableStackTrace) {
+        super(String.format(
+            "Student '%s' (ID: %s) has NOT passed the prerequisites for '%s' (%s). " +
+            "Missing: %s",
+            studentName, studentId, courseName, courseId,
+            String.join(", ", missingCourseIds)
+        ), null, true, writableStackTrace);
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.missingCourseIds = new ArrayList<>(missingCourseIds);
+    }
+
+    public PrerequisiteNotMetException(String message) {
+        super(message);
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public List<String> getMissingCourseIds() { return missingCourseIds; }
+
+}
@@ -0,0 +1,44 @@
+package exceptions;
+
+public class ScheduleConflictException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private String studentId;
+    private String courseId;
+    private String conflictingCourseId;
+
+    public ScheduleConflictException(String studentId, String studentName,
+                                      String courseId, String courseName,
+                                      String conflictingCourseId,
+                                      String conflictingCourseName) {
+        this(studentId, studentName, courseId, courseName,
+             conflictingCourseId, conflictingCourseName, true);
+    }
+
+    /** With writableStackTrace false no stack trace is captured. */
+    public ScheduleConflictException(String studentId, String studentName,
+                                      String courseId, String courseName,
+                                      String conflictingCourseId,
+                                      String conflictingCourseName,
+                                      boolean writableStackTrace) {
+        super(String.format(
+            "Course '%s' (%s) CLASHES with '%s' (%s) on the timetable of " +
+            "'%s' (ID: %s). Drop one of the courses or choose another section.",
+            courseName, courseId, conflictingCourseName, conflictingCourseId,
+            studentName, studentId
+        ), null, true, writableStackTrace);
+        this.studentId = studentId;
+        this.courseId = courseId;
+        this.conflictingCourseId = conflictingCourseId;
+    }
+
+    public ScheduleConflictException(String message) {
+        super(message);
+    }
+
+    public String getStudentId() { return studentId; }
+    public String getCourseId() { return courseId; }
+    public String getConflictingCourseId() { return conflictingCourseId; }
+
+}
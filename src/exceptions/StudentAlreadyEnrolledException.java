@@ -9,11 +9,18 @@ public class StudentAlreadyEnrolledException extends Exception {
 
     public StudentAlreadyEnrolledException(String studentId, String studentName,
                                             String courseId, String courseName) {
+        this(studentId, studentName, courseId, courseName, true);
+    }
+
+    /** With writableStackTrace false no stack trace is captured. */
+    public StudentAlreadyEnrolledException(String studentId, String studentName,
+                                            String courseId, String courseName,
+                                            boolean writableStackTrace) {
         super(String.format(
             "Student '%s' (ID: %s) is ALREADY enrolled in '%s' (%s). " +
             "Duplicate enrollment is not permitted.",
             studentName, studentId, courseName, courseId
-        ));
+        ), null, true, writableStackTrace);
         this.studentId = studentId;
         this.studentName = studentName;
         this.courseId = courseId;
@@ -0,0 +1,91 @@
+package manager;
+
+/**
+ * Fixed-size Bloom filter over strings. mightContain never gives a false
+ * negative, so a "no" answer skips the exact index entirely; a "yes" must
+ * be confirmed there. The filter is sized for an expected number of
+ * keys; once that many have been added the owner should rebuild it
+ * larger, or the false-positive rate climbs.
+ *
+ * Not thread-safe; the manager uses it under its write lock.
+ */
+public class BloomFilter {
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private final int capacity;
+    private int insertions;
+
+    public BloomFilter(int capacity, double falsePositiveRate) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException(
+                "False-positive rate must be between 0 and 1, got: " + falsePositiveRate);
+        }
+        // m = -n ln p / (ln 2)^2 and k = m/n ln 2, the textbook optimum.
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new long[(int) ((bits + 63) / 64)];
+        this.bitCount = words.length * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+        this.capacity = capacity;
+    }
+
+    public void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        insertions++;
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 64-bit FNV-1a over the UTF-16 chars; split into two 32-bit hashes. */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        // FNV mixes the high bits poorly; finish with a murmur3 fmix64.
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** True once the filter holds as many keys as it was sized for. */
+    public boolean isFull() {
+        return insertions >= capacity;
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getInsertions() { return insertions; }
+    public int getHashCount() { return hashCount; }
+    public long getBitCount() { return bitCount; }
+
+    /** Theoretical false-positive rate at the current fill: (1 - e^(-kn/m))^k. */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+}
@@ -0,0 +1,463 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import model.Course;
+import model.Student;
+
+/**
+ * How many students take each pair of courses together, for spotting
+ * popular combinations that should not be timetabled against each other.
+ *
+ * build turns the student-course graph into CSR arrays (each student's
+ * course indexes, sorted, in one int array) and counts course pairs on a
+ * fork-join pool; every task counts its range of students into its own
+ * primitive hash map and the maps are merged as tasks join. The result is
+ * a symmetric sparse course x course matrix, again in CSR form, with each
+ * row sorted by course index.
+ *
+ * New enrollments are added to a small overlay map rather than the CSR
+ * arrays, and the overlay is folded in once it grows past a fraction of
+ * the matrix. Not thread-safe; the manager updates it under its write
+ * lock and reads it under the read lock.
+ */
+public class CoEnrollmentMatrix {
+
+    /** Two courses and how many students take both. */
+    public static final class Affinity {
+        private final String courseId;
+        private final String otherCourseId;
+        private final int together;
+        private final double jaccard;
+
+        Affinity(String courseId, String otherCourseId, int together, double jaccard) {
+            this.courseId = courseId;
+            this.otherCourseId = otherCourseId;
+            this.together = together;
+            this.jaccard = jaccard;
+        }
+
+        public String getCourseId() { return courseId; }
+        public String getOtherCourseId() { return otherCourseId; }
+        public int getTogether() { return together; }
+
+        /** Students in both courses over students in either. */
+        public double getJaccard() { return jaccard; }
+
+        @Override
+        public String toString() {
+            return String.format("%s + %s: %d students (%.3f)",
+                    courseId, otherCourseId, together, jaccard);
+        }
+    }
+
+    /**
+     * Fewest students counted by one fork-join leaf. Leaves are otherwise
+     * sized to give each worker about four, since merging a leaf's map
+     * costs about as much as filling it.
+     */
+    private static final int MIN_LEAF_STUDENTS = 2048;
+
+    private static final Comparator<Affinity> BY_TOGETHER =
+            Comparator.comparingInt(Affinity::getTogether)
+                      .thenComparing(Affinity::getOtherCourseId, Comparator.reverseOrder())
+                      .thenComparing(Affinity::getCourseId, Comparator.reverseOrder());
+
+    private final List<String> courseIds = new ArrayList<>();
+    private final Map<String, Integer> courseIndex = new HashMap<>();
+    private int[] enrollmentCounts;
+    private int studentCount;
+
+    // Symmetric course x course matrix in CSR form.
+    private int[] rowOffsets;
+    private int[] columns;
+    private int[] counts;
+
+    private PairCounts overlay = new PairCounts(64);
+
+    private CoEnrollmentMatrix() {
+    }
+
+    /**
+     * Builds the matrix. Only reads the students and courses, so the
+     * caller must hold a lock that keeps writers out.
+     */
+    public static CoEnrollmentMatrix build(List<Student> students, Collection<Course> courses,
+                                           ForkJoinPool pool) {
+        CoEnrollmentMatrix matrix = new CoEnrollmentMatrix();
+        for (Course course : courses) {
+            matrix.indexOf(course.getCourseId());
+        }
+
+        // Student x course graph: row s is studentCourses[studentOffsets[s] ..
+        // studentOffsets[s + 1]), sorted so each pair is counted as (low, high).
+        int[] studentOffsets = new int[students.size() + 1];
+        int[] studentCourses = new int[64];
+        int size = 0;
+        for (int s = 0; s < students.size(); s++) {
+            for (Course course : students.get(s).getEnrolledCourses()) {
+                if (size == studentCourses.length) {
+                    studentCourses = Arrays.copyOf(studentCourses, size * 2);
+                }
+                studentCourses[size++] = matrix.indexOf(course.getCourseId());
+            }
+            Arrays.sort(studentCourses, studentOffsets[s], size);
+            studentOffsets[s + 1] = size;
+        }
+        matrix.studentCount = students.size();
+        matrix.enrollmentCounts = new int[matrix.courseIds.size()];
+        for (int i = 0; i < size; i++) {
+            matrix.enrollmentCounts[studentCourses[i]]++;
+        }
+
+        int leafSize = Math.max(MIN_LEAF_STUDENTS, students.size() / (4 * pool.getParallelism()) + 1);
+        PairCounts pairs = pool.invoke(
+                new CountPairs(studentOffsets, studentCourses, 0, students.size(), leafSize));
+        matrix.setPairs(pairs);
+        return matrix;
+    }
+
+    /** Call after the student has been enrolled in the course. */
+    public void addEnrollment(Student student, Course course) {
+        int added = indexOf(course.getCourseId());
+        enrollmentCounts[added]++;
+        for (Course other : student.getEnrolledCourses()) {
+            int index = indexOf(other.getCourseId());
+            if (index != added) {
+                overlay.add(pairKey(index, added), 1);
+            }
+        }
+        if (overlay.size > Math.max(1024, columns.length / 8)) {
+            PairCounts merged = upperTriangle();
+            merged.addAll(overlay);
+            setPairs(merged);
+        }
+    }
+
+    /** Students taking both courses; 0 if either is unknown. */
+    public int getTogether(String courseId, String otherCourseId) {
+        Integer a = courseIndex.get(courseId.toUpperCase());
+        Integer b = courseIndex.get(otherCourseId.toUpperCase());
+        if (a == null || b == null || a.equals(b)) {
+            return 0;
+        }
+        return baseCount(a, b) + overlay.get(pairKey(a, b));
+    }
+
+    /**
+     * The k courses most often taken with this one, most shared students
+     * first.
+     *
+     * @throws IllegalArgumentException if the course has no enrollments
+     */
+    public List<Affinity> topAffinities(String courseId, int k) {
+        requirePositive(k);
+        Integer row = courseIndex.get(courseId.toUpperCase());
+        if (row == null) {
+            throw new IllegalArgumentException("No enrollments in course: " + courseId);
+        }
+        int[] together = new int[courseIds.size()];
+        if (row < rowOffsets.length - 1) {
+            for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i++) {
+                together[columns[i]] = counts[i];
+            }
+        }
+        for (int slot = 0; slot < overlay.keys.length; slot++) {
+            long key = overlay.keys[slot];
+            if (key != PairCounts.EMPTY_KEY) {
+                int low = (int) (key >>> 32);
+                int high = (int) key;
+                if (low == row) {
+                    together[high] += overlay.values[slot];
+                } else if (high == row) {
+                    together[low] += overlay.values[slot];
+                }
+            }
+        }
+        PriorityQueue<Affinity> top = new PriorityQueue<>(BY_TOGETHER);
+        for (int other = 0; other < together.length; other++) {
+            if (together[other] > 0) {
+                offer(top, affinity(row, other, together[other]), k);
+            }
+        }
+        return drain(top);
+    }
+
+    /** The k course pairs with the most shared students. */
+    public List<Affinity> topPairs(int k) {
+        requirePositive(k);
+        PriorityQueue<Affinity> top = new PriorityQueue<>(BY_TOGETHER);
+        for (int row = 0; row < rowOffsets.length - 1; row++) {
+            for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i++) {
+                if (columns[i] > row) {
+                    int together = counts[i] + overlay.get(pairKey(row, columns[i]));
+                    offer(top, affinity(row, columns[i], together), k);
+                }
+            }
+        }
+        for (int slot = 0; slot < overlay.keys.length; slot++) {
+            long key = overlay.keys[slot];
+            if (key != PairCounts.EMPTY_KEY) {
+                int low = (int) (key >>> 32);
+                int high = (int) key;
+                if (baseCount(low, high) == 0) {
+                    offer(top, affinity(low, high, overlay.values[slot]), k);
+                }
+            }
+        }
+        return drain(top);
+    }
+
+    public int getCourseCount() { return courseIds.size(); }
+    public int getStudentCount() { return studentCount; }
+
+    /** Distinct course pairs with at least one shared student. */
+    public int getPairCount() {
+        int pairs = columns.length / 2;
+        for (int slot = 0; slot < overlay.keys.length; slot++) {
+            long key = overlay.keys[slot];
+            if (key != PairCounts.EMPTY_KEY && baseCount((int) (key >>> 32), (int) key) == 0) {
+                pairs++;
+            }
+        }
+        return pairs;
+    }
+
+    private int indexOf(String courseId) {
+        Integer index = courseIndex.get(courseId);
+        if (index == null) {
+            index = courseIds.size();
+            courseIds.add(courseId);
+            courseIndex.put(courseId, index);
+            if (enrollmentCounts != null) {
+                enrollmentCounts = Arrays.copyOf(enrollmentCounts, courseIds.size());
+            }
+        }
+        return index;
+    }
+
+    private Affinity affinity(int course, int other, int together) {
+        int either = enrollmentCounts[course] + enrollmentCounts[other] - together;
+        return new Affinity(courseIds.get(course), courseIds.get(other), together,
+                either > 0 ? (double) together / either : 0.0);
+    }
+
+    private static void requirePositive(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Count must be positive: " + k);
+        }
+    }
+
+    private static void offer(PriorityQueue<Affinity> top, Affinity candidate, int k) {
+        if (top.size() < k) {
+            top.add(candidate);
+        } else if (BY_TOGETHER.compare(candidate, top.peek()) > 0) {
+            top.poll();
+            top.add(candidate);
+        }
+    }
+
+    private static List<Affinity> drain(PriorityQueue<Affinity> top) {
+        List<Affinity> result = new ArrayList<>(top);
+        result.sort(BY_TOGETHER.reversed());
+        return result;
+    }
+
+    private int baseCount(int row, int column) {
+        if (row >= rowOffsets.length - 1) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(columns, rowOffsets[row], rowOffsets[row + 1], column);
+        return i >= 0 ? counts[i] : 0;
+    }
+
+    /** The CSR entries above the diagonal, as a pair map. */
+    private PairCounts upperTriangle() {
+        PairCounts pairs = new PairCounts(columns.length / 2 + overlay.size);
+        for (int row = 0; row < rowOffsets.length - 1; row++) {
+            for (int i = rowOffsets[row]; i < rowOffsets[row + 1]; i++) {
+                if (columns[i] > row) {
+                    pairs.add(pairKey(row, columns[i]), counts[i]);
+                }
+            }
+        }
+        return pairs;
+    }
+
+    /** Replaces the CSR arrays with these pairs, stored in both directions, and empties the overlay. */
+    private void setPairs(PairCounts pairs) {
+        int courses = courseIds.size();
+        int[] offsets = new int[courses + 1];
+        for (int slot = 0; slot < pairs.keys.length; slot++) {
+            long key = pairs.keys[slot];
+            if (key != PairCounts.EMPTY_KEY) {
+                offsets[(int) (key >>> 32) + 1]++;
+                offsets[(int) key + 1]++;
+            }
+        }
+        for (int row = 0; row < courses; row++) {
+            offsets[row + 1] += offsets[row];
+        }
+        long[] entries = new long[offsets[courses]];  // column << 32 | count, per row
+        int[] next = Arrays.copyOf(offsets, courses);
+        for (int slot = 0; slot < pairs.keys.length; slot++) {
+            long key = pairs.keys[slot];
+            if (key != PairCounts.EMPTY_KEY) {
+                int low = (int) (key >>> 32);
+                int high = (int) key;
+                long count = pairs.values[slot] & 0xFFFFFFFFL;
+                entries[next[low]++] = ((long) high << 32) | count;
+                entries[next[high]++] = ((long) low << 32) | count;
+            }
+        }
+        columns = new int[entries.length];
+        counts = new int[entries.length];
+        for (int row = 0; row < courses; row++) {
+            Arrays.sort(entries, offsets[row], offsets[row + 1]);
+            for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                columns[i] = (int) (entries[i] >>> 32);
+                counts[i] = (int) entries[i];
+            }
+        }
+        rowOffsets = offsets;
+        overlay = new PairCounts(64);
+    }
+
+    private static long pairKey(int a, int b) {
+        return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+    }
+
+    /** Counts the course pairs of a range of students, splitting in halves. */
+    private static final class CountPairs extends RecursiveTask<PairCounts> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] offsets;
+        private final int[] courses;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        CountPairs(int[] offsets, int[] courses, int from, int to, int leafSize) {
+            this.offsets = offsets;
+            this.courses = courses;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected PairCounts compute() {
+            if (to - from <= leafSize) {
+                PairCounts pairs = new PairCounts(1024);
+                for (int s = from; s < to; s++) {
+                    int end = offsets[s + 1];
+                    for (int i = offsets[s]; i < end; i++) {
+                        long low = (long) courses[i] << 32;
+                        for (int j = i + 1; j < end; j++) {
+                            pairs.add(low | courses[j], 1);
+                        }
+                    }
+                }
+                return pairs;
+            }
+            int middle = (from + to) >>> 1;
+            CountPairs left = new CountPairs(offsets, courses, from, middle, leafSize);
+            left.fork();
+            PairCounts right = new CountPairs(offsets, courses, middle, to, leafSize).compute();
+            PairCounts leftPairs = left.join();
+            if (leftPairs.size >= right.size) {
+                leftPairs.addAll(right);
+                return leftPairs;
+            }
+            right.addAll(leftPairs);
+            return right;
+        }
+    }
+
+    /** Open-addressing map from a (low, high) course pair to a count. */
+    private static final class PairCounts {
+        static final long EMPTY_KEY = -1L;
+
+        long[] keys;
+        int[] values;
+        int size;
+
+        PairCounts(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY_KEY);
+            values = new int[capacity];
+        }
+
+        void add(long key, int delta) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (true) {
+                long k = keys[slot];
+                if (k == key) {
+                    values[slot] += delta;
+                    return;
+                }
+                if (k == EMPTY_KEY) {
+                    keys[slot] = key;
+                    values[slot] = delta;
+                    if (++size * 2 > keys.length) {
+                        grow();
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (true) {
+                long k = keys[slot];
+                if (k == key) {
+                    return values[slot];
+                }
+                if (k == EMPTY_KEY) {
+                    return 0;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        void addAll(PairCounts other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.keys[slot] != EMPTY_KEY) {
+                    add(other.keys[slot], other.values[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY_KEY);
+            values = new int[oldValues.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY_KEY) {
+                    add(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package manager;
+
+/**
+ * Outcome of UniversityManager.tryEnroll. Rejections are ordinary
+ * results rather than exceptions, so a full course during a
+ * registration rush costs a comparison instead of a stack trace.
+ */
+public enum EnrollmentResult {
+    ENROLLED("%s enrolled in %s"),
+    STUDENT_NOT_FOUND("Student not found with ID: %s"),
+    COURSE_NOT_FOUND("Course not found with ID: %2$s"),
+    ALREADY_ENROLLED("%s is already enrolled in %s"),
+    PREREQUISITES_MISSING("%s has not passed the prerequisites for %s"),
+    SCHEDULE_CONFLICT("%2$s clashes with the timetable of %1$s"),
+    COURSE_FULL("%2$s is full; %1$s was not enrolled");
+
+    private final String template;
+
+    EnrollmentResult(String template) {
+        this.template = template;
+    }
+
+    public boolean isSuccess() {
+        return this == ENROLLED;
+    }
+
+    /** True when the student or course does not exist, rather than a rule failing. */
+    public boolean isNotFound() {
+        return this == STUDENT_NOT_FOUND || this == COURSE_NOT_FOUND;
+    }
+
+    public String describe(String studentId, String courseId) {
+        return String.format(template, studentId, courseId);
+    }
+}
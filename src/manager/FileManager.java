@@ -1,29 +1,75 @@
 package manager;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 import model.Course;
 import model.GraduateStudent;
+import model.Instructor;
 import model.Student;
+import model.Term;
+import model.TimeSlot;
 import model.UndergraduateStudent;
+import telemetry.PersistenceEvent;
 
 public class FileManager {
 
     private static final String DATA_DIRECTORY = "data/";
-    private static final String STUDENTS_FILE = DATA_DIRECTORY + "students.csv";
-    private static final String COURSES_FILE = DATA_DIRECTORY + "courses.csv";
-    private static final String ENROLLMENTS_FILE = DATA_DIRECTORY + "enrollments.csv";
 
     private static final String DELIMITER = ",";
+    private static final String NO_MEETING_TIME = "TBA";
+    private static final String END_OF_TABLE = "# END";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String CHECKPOINT_MANIFEST = "checkpoint.pending";
+
+    private static final String INSTRUCTORS_HEADER =
+            "# Instructors Data File\n# Format: ID,Name,Email,Age,Department,Title,Salary";
+    private static final String STUDENTS_HEADER =
+            "# Students Data File - University Management System\n"
+            + "# Format: TYPE,ID,Name,Email,Age,Department,[type-specific fields]";
+    private static final String COURSES_HEADER =
+            "# Courses Data File\n"
+            + "# Format: CourseID,Name,Department,Credits,MaxCapacity,Instructor,InstructorID,Schedule";
+    private static final String PREREQUISITES_HEADER =
+            "# Prerequisites Data File\n# Format: CourseID,PrerequisiteCourseID";
+    private static final String ENROLLMENTS_HEADER =
+            "# Enrollments Data File\n# Format: StudentID,CourseID,Grade";
+
+    /** "UGH1": grade history, binary. */
+    private static final int GRADE_HISTORY_MAGIC = 0x55474831;
+
+    private final String dataDirectory;
+    private final String studentsFile;
+    private final String coursesFile;
+    private final String enrollmentsFile;
+    private final String instructorsFile;
+    private final String prerequisitesFile;
+    private final String gradeHistoryFile;
+    private final String checkpointManifest;
+
+    /** Size and modification time of each data file as we last wrote it. */
+    private final Map<String, String> ownWrites = new ConcurrentHashMap<>();
 
     public FileManager() {
+        this.dataDirectory = DATA_DIRECTORY;
+        this.studentsFile = this.dataDirectory + "students.csv";
+        this.coursesFile = this.dataDirectory + "courses.csv";
+        this.enrollmentsFile = this.dataDirectory + "enrollments.csv";
+        this.instructorsFile = this.dataDirectory + "instructors.csv";
+        this.prerequisitesFile = this.dataDirectory + "prerequisites.csv";
+        this.gradeHistoryFile = this.dataDirectory + "grade_history.bin";
+        this.checkpointManifest = this.dataDirectory + CHECKPOINT_MANIFEST;
         createDataDirectory();
     }
 
     private void createDataDirectory() {
         try {
-            Files.createDirectories(Paths.get(DATA_DIRECTORY));
+            Files.createDirectories(Paths.get(dataDirectory));
         } catch (IOException e) {
             System.err.println("WARNING: Could not create data directory: "
                     + e.getMessage());
@@ -32,62 +78,353 @@ public class FileManager {
 
     public void saveAllData(UniversityManager manager) {
         System.out.println("\nSaving data...");
+        saveInstructors(manager);
         saveStudents(manager);
         saveCourses(manager);
+        savePrerequisites(manager);
         saveEnrollments(manager);
+        saveGradeHistory(manager);
+        for (String file : new String[] { instructorsFile, studentsFile, coursesFile,
+                                          prerequisitesFile, enrollmentsFile }) {
+            recordOwnWrite(file, Paths.get(file));
+        }
         System.out.println("All data saved successfully!");
     }
 
-    
-    private void saveStudents(UniversityManager manager) {
-        try (BufferedWriter writer = new BufferedWriter(
-                new FileWriter(STUDENTS_FILE))) {
+    /**
+     * True while the file is exactly as this FileManager last saved or
+     * checkpointed it, so a file watcher can tell its own writes from
+     * other systems' edits.
+     */
+    public boolean isOwnWrite(String file) {
+        String written = ownWrites.get(file);
+        try {
+            return written != null && written.equals(stamp(Paths.get(file)));
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
-            writer.write("# Students Data File - University Management System");
-            writer.newLine();
-            writer.write("# Format: TYPE,ID,Name,Email,Age,Department,[type-specific fields]");
-            writer.newLine();
+    private void recordOwnWrite(String file, Path written) {
+        try {
+            ownWrites.put(file, stamp(written));
+        } catch (IOException e) {
+            ownWrites.remove(file);
+        }
+    }
 
-            for (Student student : manager.getAllStudents()) {
-                String line = buildStudentCsvLine(student);
-                writer.write(line);
+    private static String stamp(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return attributes.size() + "@" + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Writes every table of a registry snapshot, in load order, to one
+     * stream. Each table keeps its file format and is followed by an end
+     * marker, so the stream can be read back with importSnapshot (e.g. to
+     * seed a replica). The grade history goes last, as its binary file
+     * format in base64 lines. Reads only the snapshot, so no lock is needed.
+     */
+    public void exportSnapshot(RegistrySnapshot snapshot, BufferedWriter writer)
+            throws IOException {
+        writeTable(writer, INSTRUCTORS_HEADER, instructorRows(snapshot));
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        writeTable(writer, STUDENTS_HEADER, studentRows(snapshot));
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        writeTable(writer, COURSES_HEADER, courseRows(snapshot));
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        writeTable(writer, PREREQUISITES_HEADER, prerequisiteRows(snapshot));
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        writeTable(writer, ENROLLMENTS_HEADER, enrollmentRows(snapshot));
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        ByteArrayOutputStream history = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(history)) {
+            writeGradeHistory(snapshot, out);
+        }
+        writer.write(Base64.getMimeEncoder().encodeToString(history.toByteArray()));
+        writer.newLine();
+        writer.write(END_OF_TABLE);
+        writer.newLine();
+        writer.flush();
+    }
+
+    /**
+     * Writes a registry snapshot, grade history included, to the data
+     * files without touching the live registry, so it can run on a
+     * background thread while writers carry on. Every file is written and
+     * synced to a temporary file first. A manifest naming them is then
+     * moved into place, which commits the checkpoint: the files are moved
+     * over the old ones and the manifest removed. If the process dies
+     * before the manifest lands the previous checkpoint stays whole, and
+     * after it the next load finishes the moves (see recoverCheckpoint).
+     * Returns the number of rows written.
+     */
+    public long saveSnapshot(RegistrySnapshot snapshot) throws IOException {
+        long rows = 0;
+        rows += writeTemp(instructorsFile, INSTRUCTORS_HEADER, instructorRows(snapshot));
+        rows += writeTemp(studentsFile, STUDENTS_HEADER, studentRows(snapshot));
+        rows += writeTemp(coursesFile, COURSES_HEADER, courseRows(snapshot));
+        rows += writeTemp(prerequisitesFile, PREREQUISITES_HEADER, prerequisiteRows(snapshot));
+        rows += writeTemp(enrollmentsFile, ENROLLMENTS_HEADER, enrollmentRows(snapshot));
+        writeGradeHistoryTemp(snapshot);
+
+        String[] files = { instructorsFile, studentsFile, coursesFile,
+                           prerequisitesFile, enrollmentsFile, gradeHistoryFile };
+        Path manifestTemp = Paths.get(checkpointManifest + TEMP_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(manifestTemp)) {
+            for (String file : files) {
+                writer.write(Paths.get(file).getFileName().toString());
                 writer.newLine();
             }
+        }
+        sync(manifestTemp);
+        Files.move(manifestTemp, Paths.get(checkpointManifest),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (String file : files) {
+            // A rename keeps the modification time, so stamp before it lands.
+            recordOwnWrite(file, Paths.get(file + TEMP_SUFFIX));
+            Files.move(Paths.get(file + TEMP_SUFFIX), Paths.get(file),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.delete(Paths.get(checkpointManifest));
+        return rows;
+    }
+
+    /**
+     * Completes or discards a checkpoint interrupted by a crash. With a
+     * manifest the checkpoint was committed, so any of its files still
+     * waiting as temporary files are moved into place; without one, any
+     * temporary files are from an unfinished checkpoint and are deleted.
+     */
+    private void recoverCheckpoint() {
+        Path manifest = Paths.get(checkpointManifest);
+        try {
+            if (Files.exists(manifest)) {
+                int moved = 0;
+                for (String name : Files.readAllLines(manifest)) {
+                    Path temp = Paths.get(dataDirectory, name + TEMP_SUFFIX);
+                    if (!name.isEmpty() && Files.exists(temp)) {
+                        Files.move(temp, Paths.get(dataDirectory, name),
+                                   StandardCopyOption.REPLACE_EXISTING,
+                                   StandardCopyOption.ATOMIC_MOVE);
+                        moved++;
+                    }
+                }
+                Files.delete(manifest);
+                System.out.println("  Completed an interrupted checkpoint (" + moved + " files).");
+            }
+            Files.deleteIfExists(Paths.get(checkpointManifest + TEMP_SUFFIX));
+            for (String file : new String[] { instructorsFile, studentsFile, coursesFile,
+                                              prerequisitesFile, enrollmentsFile,
+                                              gradeHistoryFile }) {
+                Files.deleteIfExists(Paths.get(file + TEMP_SUFFIX));
+            }
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not recover the last checkpoint: "
+                    + e.getMessage());
+        }
+    }
+
+    private static int writeTemp(String file, String header, Iterator<String> lines)
+            throws IOException {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count;
+        Path temp = Paths.get(file + TEMP_SUFFIX);
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            count = writeTable(writer, header, lines);
+        }
+        sync(temp);
+        event.finish("checkpoint", Paths.get(file).getFileName().toString().replace(".csv", ""),
+                     file + TEMP_SUFFIX, count);
+        return count;
+    }
+
+    private void writeGradeHistoryTemp(RegistrySnapshot snapshot) throws IOException {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count;
+        Path temp = Paths.get(gradeHistoryFile + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(temp)))) {
+            count = writeGradeHistory(snapshot, out);
+        }
+        sync(temp);
+        event.finish("checkpoint", "grade_history", gradeHistoryFile + TEMP_SUFFIX, count);
+    }
+
+    /** Forces a written file to disk, so a committed checkpoint survives a crash. */
+    private static void sync(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static int writeTable(BufferedWriter writer, String header, Iterator<String> lines)
+            throws IOException {
+        writeHeader(writer, header);
+        int count = 0;
+        while (lines.hasNext()) {
+            writer.write(lines.next());
+            writer.newLine();
+            count++;
+        }
+        return count;
+    }
+
+    private Iterator<String> instructorRows(RegistrySnapshot snapshot) {
+        return snapshot.instructors().map(this::buildInstructorCsvLine).iterator();
+    }
+
+    private Iterator<String> studentRows(RegistrySnapshot snapshot) {
+        return snapshot.students().map(this::buildStudentCsvLine).iterator();
+    }
+
+    private Iterator<String> courseRows(RegistrySnapshot snapshot) {
+        return snapshot.courses().map(this::buildCourseCsvLine).iterator();
+    }
+
+    private static Iterator<String> prerequisiteRows(RegistrySnapshot snapshot) {
+        return snapshot.getPrerequisiteEdges().entrySet().stream()
+                .flatMap(e -> e.getValue().stream()
+                        .map(prerequisiteId -> e.getKey() + DELIMITER + prerequisiteId))
+                .iterator();
+    }
+
+    private static Iterator<String> enrollmentRows(RegistrySnapshot snapshot) {
+        return snapshot.students().flatMap(FileManager::enrollmentLines).iterator();
+    }
+
+    private static Stream<String> enrollmentLines(
+            RegistrySnapshot.StudentView student) {
+        List<String> lines = new ArrayList<>(student.getEnrollmentCount());
+        for (int i = 0; i < student.getEnrollmentCount(); i++) {
+            lines.add(String.join(DELIMITER,
+                    student.getStudentId(),
+                    student.getEnrolledCourseId(i),
+                    String.valueOf(student.getGrade(i))));
+        }
+        return lines.stream();
+    }
+
+    private static void writeHeader(BufferedWriter writer, String header) throws IOException {
+        for (String line : header.split("\n")) {
+            writer.write(line);
+            writer.newLine();
+        }
+    }
+
+    private void saveInstructors(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count = 0;
+        try (BufferedWriter writer = new BufferedWriter(
+                new FileWriter(instructorsFile))) {
+
+            count = writeInstructors(manager, writer);
+
+            System.out.println("  Saved " + count
+                    + " instructors to " + instructorsFile);
 
-            System.out.println("  Saved " + manager.getAllStudents().size()
-                    + " students to " + STUDENTS_FILE);
+        } catch (IOException e) {
+            System.err.println("ERROR saving instructors: " + e.getMessage());
+        }
+        event.finish("save", "instructors", instructorsFile, count);
+    }
+
+    private int writeInstructors(UniversityManager manager, BufferedWriter writer)
+            throws IOException {
+        writeHeader(writer, INSTRUCTORS_HEADER);
+
+        List<Instructor> instructors = manager.getAllInstructors();
+        for (Instructor instructor : instructors) {
+            writer.write(buildInstructorCsvLine(instructor));
+            writer.newLine();
+        }
+        return instructors.size();
+    }
+
+    public String buildInstructorCsvLine(Instructor instructor) {
+        return buildInstructorCsvLine(new RegistrySnapshot.InstructorView(instructor));
+    }
+
+    public String buildInstructorCsvLine(RegistrySnapshot.InstructorView instructor) {
+        return String.join(DELIMITER,
+                instructor.getInstructorId(),
+                instructor.getName(),
+                instructor.getEmail(),
+                String.valueOf(instructor.getAge()),
+                instructor.getDepartment(),
+                instructor.getTitle(),
+                String.valueOf(instructor.getSalary()));
+    }
+
+    
+    private void saveStudents(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count = 0;
+        try (BufferedWriter writer = new BufferedWriter(
+                new FileWriter(studentsFile))) {
+
+            count = writeStudents(manager, writer);
+
+            System.out.println("  Saved " + count
+                    + " students to " + studentsFile);
 
         } catch (IOException e) {
             System.err.println("ERROR saving students: " + e.getMessage());
         }
+        event.finish("save", "students", studentsFile, count);
     }
 
-    private String buildStudentCsvLine(Student student) {
+    private int writeStudents(UniversityManager manager, BufferedWriter writer)
+            throws IOException {
+        writeHeader(writer, STUDENTS_HEADER);
+
+        List<Student> students = manager.getAllStudents();
+        for (Student student : students) {
+            String line = buildStudentCsvLine(student);
+            writer.write(line);
+            writer.newLine();
+        }
+        return students.size();
+    }
+
+    public String buildStudentCsvLine(Student student) {
+        return buildStudentCsvLine(new RegistrySnapshot.StudentView(student));
+    }
+
+    public String buildStudentCsvLine(RegistrySnapshot.StudentView student) {
 
         StringBuilder sb = new StringBuilder();
 
-        if (student instanceof UndergraduateStudent) {
-            UndergraduateStudent ug = (UndergraduateStudent) student;
+        if (student.isUndergraduate()) {
             sb.append("UNDERGRAD").append(DELIMITER)
-              .append(ug.getStudentId()).append(DELIMITER)
-              .append(ug.getName()).append(DELIMITER)
-              .append(ug.getEmail()).append(DELIMITER)
-              .append(ug.getAge()).append(DELIMITER)
-              .append(ug.getDepartment()).append(DELIMITER)
-              .append(ug.getYearLevel()).append(DELIMITER)
-              .append(ug.getMajor());
-
-        } else if (student instanceof GraduateStudent) {
-            GraduateStudent grad = (GraduateStudent) student;
+              .append(student.getStudentId()).append(DELIMITER)
+              .append(student.getName()).append(DELIMITER)
+              .append(student.getEmail()).append(DELIMITER)
+              .append(student.getAge()).append(DELIMITER)
+              .append(student.getDepartment()).append(DELIMITER)
+              .append(student.getYearLevel()).append(DELIMITER)
+              .append(student.getMajor());
+
+        } else if (student.isGraduate()) {
             sb.append("GRAD").append(DELIMITER)
-              .append(grad.getStudentId()).append(DELIMITER)
-              .append(grad.getName()).append(DELIMITER)
-              .append(grad.getEmail()).append(DELIMITER)
-              .append(grad.getAge()).append(DELIMITER)
-              .append(grad.getDepartment()).append(DELIMITER)
-              .append(grad.getResearchTopic()).append(DELIMITER)
-              .append(grad.getAdvisor()).append(DELIMITER)
-              .append(grad.isThesisTrack());
+              .append(student.getStudentId()).append(DELIMITER)
+              .append(student.getName()).append(DELIMITER)
+              .append(student.getEmail()).append(DELIMITER)
+              .append(student.getAge()).append(DELIMITER)
+              .append(student.getDepartment()).append(DELIMITER)
+              .append(student.getResearchTopic()).append(DELIMITER)
+              .append(student.getAdvisor()).append(DELIMITER)
+              .append(student.isThesisTrack());
         }
 
         return sb.toString();
@@ -95,117 +432,493 @@ public class FileManager {
 
     
     private void saveCourses(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count = 0;
         try (BufferedWriter writer = new BufferedWriter(
-                new FileWriter(COURSES_FILE))) {
+                new FileWriter(coursesFile))) {
 
-            writer.write("# Courses Data File");
-            writer.newLine();
-            writer.write("# Format: CourseID,Name,Department,Credits,MaxCapacity,Instructor");
+            count = writeCourses(manager, writer);
+
+            System.out.println("  Saved " + count
+                    + " courses to " + coursesFile);
+
+        } catch (IOException e) {
+            System.err.println("ERROR saving courses: " + e.getMessage());
+        }
+        event.finish("save", "courses", coursesFile, count);
+    }
+
+    private int writeCourses(UniversityManager manager, BufferedWriter writer)
+            throws IOException {
+        writeHeader(writer, COURSES_HEADER);
+
+        Collection<Course> courses = manager.getAllCourses();
+        for (Course course : courses) {
+            writer.write(buildCourseCsvLine(course));
             writer.newLine();
+        }
+        return courses.size();
+    }
 
-            for (Course course : manager.getAllCourses()) {
-                String line = String.join(DELIMITER,
-                        course.getCourseId(),
-                        course.getCourseName(),
-                        course.getDepartment(),
-                        String.valueOf(course.getCredits()),
-                        String.valueOf(course.getMaxCapacity()),
-                        course.getInstructorName());
+    public String buildCourseCsvLine(Course course) {
+        return buildCourseCsvLine(new RegistrySnapshot.CourseView(course));
+    }
 
-                writer.write(line);
-                writer.newLine();
+    public String buildCourseCsvLine(RegistrySnapshot.CourseView course) {
+        String instructorId = course.getInstructorId();
+        return String.join(DELIMITER,
+                course.getCourseId(),
+                course.getCourseName(),
+                course.getDepartment(),
+                String.valueOf(course.getCredits()),
+                String.valueOf(course.getMaxCapacity()),
+                course.getInstructorName(),
+                instructorId == null ? "" : instructorId,
+                course.getMeetingTime() != null
+                        ? course.getMeetingTime().toString()
+                        : NO_MEETING_TIME);
+    }
 
-            }
+    private void savePrerequisites(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count = 0;
+        try (BufferedWriter writer = new BufferedWriter(
+                new FileWriter(prerequisitesFile))) {
 
-            System.out.println("  Saved " + manager.getAllCourses().size()
-                    + " courses to " + COURSES_FILE);
+            count = writePrerequisites(manager, writer);
+
+            System.out.println("  Saved " + count + " prerequisite links to "
+                    + prerequisitesFile);
 
         } catch (IOException e) {
-            System.err.println("ERROR saving courses: " + e.getMessage());
+            System.err.println("ERROR saving prerequisites: " + e.getMessage());
         }
+        event.finish("save", "prerequisites", prerequisitesFile, count);
     }
 
-    private void saveEnrollments(UniversityManager manager) {
-        try (BufferedWriter writer = new BufferedWriter(
-                new FileWriter(ENROLLMENTS_FILE))) {
+    private int writePrerequisites(UniversityManager manager, BufferedWriter writer)
+            throws IOException {
+        writeHeader(writer, PREREQUISITES_HEADER);
 
-            writer.write("# Enrollments Data File");
-            writer.newLine();
-            writer.write("# Format: StudentID,CourseID,Grade");
-            writer.newLine();
+        int count = 0;
+        for (Map.Entry<String, List<String>> entry
+                : manager.getPrerequisiteEdges().entrySet()) {
+            for (String prerequisiteId : entry.getValue()) {
+                writer.write(entry.getKey() + DELIMITER + prerequisiteId);
+                writer.newLine();
+                count++;
+            }
+        }
+        return count;
+    }
 
-            int count = 0;
-            for (Student student : manager.getAllStudents()) {
-                for (Map.Entry<Course, Double> entry
-                        : student.getCourseGrades().entrySet()) {
-                    String line = String.join(DELIMITER,
-                            student.getStudentId(),
-                            entry.getKey().getCourseId(),
-                            String.valueOf(entry.getValue()));
-                    writer.write(line);
-                    writer.newLine();
-                    count++;
+    private void saveEnrollments(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int count = 0;
+        try (BufferedWriter writer = new BufferedWriter(
+                new FileWriter(enrollmentsFile))) {
 
-                }
-            }
+            count = writeEnrollments(manager, writer);
 
             System.out.println("  Saved " + count + " enrollment records to "
-                    + ENROLLMENTS_FILE);
+                    + enrollmentsFile);
 
         } catch (IOException e) {
             System.err.println("ERROR saving enrollments: " + e.getMessage());
         }
+        event.finish("save", "enrollments", enrollmentsFile, count);
+    }
+
+    private int writeEnrollments(UniversityManager manager, BufferedWriter writer)
+            throws IOException {
+        writeHeader(writer, ENROLLMENTS_HEADER);
+
+        int count = 0;
+        for (Student student : manager.getAllStudents()) {
+            for (Map.Entry<Course, Double> entry
+                    : student.getCourseGrades().entrySet()) {
+                String line = String.join(DELIMITER,
+                        student.getStudentId(),
+                        entry.getKey().getCourseId(),
+                        String.valueOf(entry.getValue()));
+                writer.write(line);
+                writer.newLine();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the grade history, which is binary: magic, current term code,
+     * the course ID table, then for each student with history their ID
+     * and encoded terms (see GradeHistory). Written to a temporary file
+     * and moved into place.
+     */
+    private void saveGradeHistory(UniversityManager manager) {
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        GradeHistory history = manager.getGradeHistory();
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(gradeHistoryFile + TEMP_SUFFIX)))) {
+            count = writeGradeHistory(manager.snapshot(), out);
+        } catch (IOException e) {
+            System.err.println("ERROR saving grade history: " + e.getMessage());
+            event.finish("save", "grade_history", gradeHistoryFile, count);
+            return;
+        }
+        try {
+            Files.move(Paths.get(gradeHistoryFile + TEMP_SUFFIX), Paths.get(gradeHistoryFile),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.println("  Saved " + history.getRecordCount() + " grade history records for "
+                    + count + " students to " + gradeHistoryFile);
+        } catch (IOException e) {
+            System.err.println("ERROR saving grade history: " + e.getMessage());
+        }
+        event.finish("save", "grade_history", gradeHistoryFile, count);
+    }
+
+    /**
+     * The grade history file format, from the history each student view
+     * carries; returns the number of students written.
+     */
+    private static int writeGradeHistory(RegistrySnapshot snapshot, DataOutputStream out)
+            throws IOException {
+        out.writeInt(GRADE_HISTORY_MAGIC);
+        out.writeInt(snapshot.getTerm().getCode());
+        List<String> courseIds = snapshot.getHistoryCourseIds();
+        out.writeInt(courseIds.size());
+        for (String courseId : courseIds) {
+            out.writeUTF(courseId);
+        }
+        int count = (int) snapshot.students()
+                .filter(student -> student.getEncodedHistory() != null).count();
+        out.writeInt(count);
+        Iterator<RegistrySnapshot.StudentView> students = snapshot.students().iterator();
+        while (students.hasNext()) {
+            RegistrySnapshot.StudentView student = students.next();
+            byte[] encoded = student.getEncodedHistory();
+            if (encoded != null) {
+                out.writeUTF(student.getStudentId());
+                out.writeInt(encoded.length);
+                out.write(encoded);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Replaces the history seeded from enrollments with the saved one, then
+     * posts any grade that changed since it was saved (say, by an edit to
+     * enrollments.csv) in the current term. The current
+     * term never moves back to an older saved term.
+     */
+    public void loadGradeHistory(UniversityManager manager) {
+        File file = new File(gradeHistoryFile);
+        if (!file.exists()) return;
+
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        GradeHistory history = manager.getGradeHistory();
+        int loadedCount = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)))) {
+            loadedCount = readGradeHistory(manager, in);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("ERROR loading grade history: " + e.getMessage());
+            history.clear();
+        }
+
+        int posted = 0;
+        for (Student student : manager.getAllStudents()) {
+            posted += history.reconcile(student, manager.getCurrentTerm());
+        }
+        manager.republishHistory();
+        System.out.println("  Loaded " + history.getRecordCount() + " grade history records for "
+                + loadedCount + " students (term " + manager.getCurrentTerm() + ")"
+                + (posted > 0 ? "; posted " + posted + " newer grades" : "") + ".");
+        event.finish("load", "grade_history", gradeHistoryFile, loadedCount);
+    }
+
+    /**
+     * Reads the grade history file format into the manager, replacing its
+     * history; returns the number of students restored.
+     */
+    private int readGradeHistory(UniversityManager manager, DataInputStream in)
+            throws IOException {
+        GradeHistory history = manager.getGradeHistory();
+        int loadedCount = 0;
+        if (in.readInt() != GRADE_HISTORY_MAGIC) {
+            throw new IOException("not a grade history file");
+        }
+        Term savedTerm = Term.fromCode(in.readInt());
+        if (savedTerm.compareTo(manager.getCurrentTerm()) > 0) {
+            manager.setCurrentTerm(savedTerm);
+        }
+        history.clear();
+        int courseCount = in.readInt();
+        List<String> courseIds = new ArrayList<>(courseCount);
+        for (int i = 0; i < courseCount; i++) {
+            courseIds.add(in.readUTF());
+        }
+        history.restoreCourseIds(courseIds);
+
+        int studentCount = in.readInt();
+        for (int i = 0; i < studentCount; i++) {
+            String studentId = in.readUTF();
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+            Optional<Student> student = manager.findStudentById(studentId);
+            if (student.isPresent()) {
+                history.restore(student.get(), encoded, manager.getCurrentTerm());
+                loadedCount++;
+            }
+        }
+        return loadedCount;
     }
 
     public void loadAllData(UniversityManager manager) {
         System.out.println("Loading saved data...");
+        recoverCheckpoint();
 
         if (!dataFilesExist()) {
             System.out.println("No saved data found. Starting fresh.");
             return;
         }
 
+        loadInstructors(manager);
         loadStudents(manager);
         loadCourses(manager);
+        loadPrerequisites(manager);
         loadEnrollments(manager);
+        loadGradeHistory(manager);
 
         System.out.println("Data loaded successfully!");
     }
 
-    private boolean dataFilesExist() {
-        return Files.exists(Paths.get(STUDENTS_FILE))
-                || Files.exists(Paths.get(COURSES_FILE));
-    }
+    /**
+     * Read-only load of students.csv and enrollments.csv straight into an
+     * off-heap store, without building Student or Course objects. Each
+     * enrollment adds its grade to the student's GPA.
+     */
+    public void loadStudentsOffHeap(OffHeapStudentStore store) {
+        System.out.println("Loading students off-heap...");
 
-    private void loadStudents(UniversityManager manager) {
-        File file = new File(STUDENTS_FILE);
-        if (!file.exists()) return;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        int students = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(studentsFile))) {
             String line;
-            int loadedCount = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.trim().isEmpty()) continue;
+                try {
+                    String[] parts = line.split(DELIMITER);
+                    String type = parts[0].trim();
+                    if (type.equals("UNDERGRAD")) {
+                        store.addUndergraduate(
+                                parts[1].trim(), parts[2].trim(), parts[3].trim(),
+                                Integer.parseInt(parts[4].trim()), parts[5].trim(),
+                                Integer.parseInt(parts[6].trim()), parts[7].trim());
+                        students++;
+                    } else if (type.equals("GRAD")) {
+                        store.addGraduate(
+                                parts[1].trim(), parts[2].trim(), parts[3].trim(),
+                                Integer.parseInt(parts[4].trim()), parts[5].trim(),
+                                parts[6].trim(), parts[7].trim(),
+                                Boolean.parseBoolean(parts[8].trim()));
+                        students++;
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("WARNING: Could not parse student line: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR loading students: " + e.getMessage());
+        }
 
+        int enrollments = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(enrollmentsFile))) {
+            String line;
             while ((line = reader.readLine()) != null) {
-                if (line.startsWith("#") || line.trim().isEmpty()) {
-                    continue;
+                if (line.startsWith("#") || line.trim().isEmpty()) continue;
+
+                String[] parts = line.split(DELIMITER);
+                if (parts.length < 3) continue;
+
+                int ordinal = store.ordinalOf(parts[0].trim());
+                if (ordinal >= 0) {
+                    store.recordEnrollment(ordinal, Double.parseDouble(parts[2].trim()));
+                    enrollments++;
                 }
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR loading enrollments: " + e.getMessage());
+        }
+
+        System.out.println("  Loaded " + students + " students and " + enrollments
+                + " enrollment records (" + store.getOffHeapBytes() / 1024 + " KB off-heap).");
+    }
+
+    /**
+     * Reads a stream written by exportSnapshot into the given (normally
+     * empty) manager. The grade history replaces the one seeded from the
+     * enrollments, so terms and transcript order match the source.
+     */
+    public void importSnapshot(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        readInstructors(manager, reader);
+        readStudents(manager, reader);
+        readCourses(manager, reader);
+        readPrerequisites(manager, reader);
+        readEnrollments(manager, reader);
 
-                Student student = parseStudentFromCsv(line);
-                if (student != null) {
-                    manager.addStudentDirectly(student);
-                    loadedCount++;
+        StringBuilder history = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            history.append(line);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                Base64.getMimeDecoder().decode(history.toString())))) {
+            readGradeHistory(manager, in);
+        } catch (RuntimeException e) {
+            throw new IOException("Bad grade history in snapshot: " + e.getMessage(), e);
+        }
+        manager.republishHistory();
+    }
+
+    public String getDataDirectory() { return dataDirectory; }
+    public String getStudentsFile() { return studentsFile; }
+    public String getCoursesFile() { return coursesFile; }
+
+    /**
+     * The data lines of a table file, untrimmed and in file order; header
+     * comments, blank lines and anything after the end marker are left out.
+     */
+    public List<String> readRows(String file) throws IOException {
+        List<String> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+                if (!line.startsWith("#") && !line.trim().isEmpty()) {
+                    rows.add(line);
                 }
+            }
+        }
+        return rows;
+    }
+
+    public boolean dataFilesExist() {
+        return Files.exists(Paths.get(studentsFile))
+                || Files.exists(Paths.get(coursesFile))
+                || Files.exists(Paths.get(instructorsFile));
+    }
+
+    private void loadInstructors(UniversityManager manager) {
+        File file = new File(instructorsFile);
+        if (!file.exists()) return;
+
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int loadedCount = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            loadedCount = readInstructors(manager, reader);
 
+            System.out.println("  Loaded " + loadedCount + " instructors.");
+
+        } catch (IOException e) {
+            System.err.println("ERROR loading instructors: " + e.getMessage());
+        }
+        event.finish("load", "instructors", instructorsFile, loadedCount);
+    }
+
+    private int readInstructors(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        String line;
+        int loadedCount = 0;
+
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) continue;
+
+            Instructor instructor = parseInstructorFromCsv(line, manager.getDictionary());
+            if (instructor != null) {
+                manager.addInstructorDirectly(instructor);
+                loadedCount++;
             }
+        }
+        return loadedCount;
+    }
+
+    public Instructor parseInstructorFromCsv(String line, StringDictionary dictionary) {
+        try {
+            String[] parts = line.split(DELIMITER);
+            Instructor instructor = new Instructor(
+                    parts[1].trim(),              // name
+                    parts[2].trim(),              // email
+                    Integer.parseInt(parts[3].trim()), // age
+                    parts[0].trim(),              // instructorId
+                    dictionary.canonicalizeIgnoreCase(parts[4].trim()), // department
+                    dictionary.canonicalize(parts[5].trim())  // title
+            );
+            if (parts.length > 6) {
+                instructor.setSalary(Double.parseDouble(parts[6].trim()));
+            }
+            return instructor;
+        } catch (Exception e) {
+            System.err.println("WARNING: Could not parse instructor line: " + line);
+        }
+        return null;
+    }
+
+    private void loadStudents(UniversityManager manager) {
+        File file = new File(studentsFile);
+        if (!file.exists()) return;
+
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int loadedCount = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            loadedCount = readStudents(manager, reader);
 
             System.out.println("  Loaded " + loadedCount + " students.");
 
         } catch (IOException e) {
             System.err.println("ERROR loading students: " + e.getMessage());
         }
+        event.finish("load", "students", studentsFile, loadedCount);
+    }
+
+    private int readStudents(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        String line;
+        int loadedCount = 0;
+
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) {
+                continue;
+            }
+
+            Student student = parseStudentFromCsv(line, manager.getDictionary());
+            if (student == null) {
+                continue;
+            }
+            if (manager.addStudentDirectly(student)) {
+                loadedCount++;
+            } else {
+                System.err.println("WARNING: Skipping duplicate student ID or email: "
+                        + student.getStudentId() + " <" + student.getEmail() + ">");
+            }
+
+        }
+        return loadedCount;
     }
 
-    private Student parseStudentFromCsv(String line) {
+    /**
+     * Repeated fields (department, major, advisor) are pooled through the
+     * manager's dictionary so each distinct value is stored only once.
+     */
+    public Student parseStudentFromCsv(String line, StringDictionary dictionary) {
         try {
             String[] parts = line.split(DELIMITER);
             String type = parts[0].trim();
@@ -216,9 +929,9 @@ public class FileManager {
                         parts[3].trim(),              // email
                         Integer.parseInt(parts[4].trim()), // age
                         parts[1].trim(),              // studentId
-                        parts[5].trim(),              // department
+                        dictionary.canonicalizeIgnoreCase(parts[5].trim()), // department
                         Integer.parseInt(parts[6].trim()), // yearLevel
-                        parts[7].trim()               // major
+                        dictionary.canonicalize(parts[7].trim())  // major
                 );
 
             } else if (type.equals("GRAD")) {
@@ -227,9 +940,9 @@ public class FileManager {
                         parts[3].trim(),              // email
                         Integer.parseInt(parts[4].trim()), // age
                         parts[1].trim(),              // studentId
-                        parts[5].trim(),              // department
+                        dictionary.canonicalizeIgnoreCase(parts[5].trim()), // department
                         parts[6].trim(),              // researchTopic
-                        parts[7].trim(),              // advisor
+                        dictionary.canonicalize(parts[7].trim()), // advisor
                         Boolean.parseBoolean(parts[8].trim()) // isThesisTrack
                 );
             }
@@ -241,87 +954,163 @@ public class FileManager {
     }
 
     private void loadCourses(UniversityManager manager) {
-        File file = new File(COURSES_FILE);
+        File file = new File(coursesFile);
         if (!file.exists()) return;
 
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int loadedCount = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            int loadedCount = 0;
-
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("#") || line.trim().isEmpty()) continue;
-
-                Course course = parseCourseFromCsv(line);
-                if (course != null) {
-                    manager.addCourseDirectly(course);
-                    loadedCount++;
-                }
-            }
+            loadedCount = readCourses(manager, reader);
 
             System.out.println("  Loaded " + loadedCount + " courses.");
 
         } catch (IOException e) {
             System.err.println("ERROR loading courses: " + e.getMessage());
         }
+        event.finish("load", "courses", coursesFile, loadedCount);
+    }
+
+    private int readCourses(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        String line;
+        int loadedCount = 0;
+
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) continue;
+
+            Course parsed = parseCourseFromCsv(line, manager.getDictionary());
+            if (parsed != null) {
+                Course course;
+                try {
+                    course = manager.addCourseDirectly(parsed);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("WARNING: Skipping course line: " + e.getMessage());
+                    continue;
+                }
+
+                String instructorId = parseInstructorIdFromCsv(line);
+                if (!instructorId.isEmpty()
+                        && !manager.assignInstructorDirectly(instructorId, course)) {
+                    System.err.println("WARNING: Unknown instructor "
+                            + instructorId + " for course " + course.getCourseId());
+                }
+                loadedCount++;
+            }
+        }
+        return loadedCount;
     }
 
-    private Course parseCourseFromCsv(String line) {
+    public Course parseCourseFromCsv(String line, StringDictionary dictionary) {
         try {
             String[] parts = line.split(DELIMITER);
-            return new Course(
+            Course course = new Course(
                     parts[0].trim(),              // courseId
                     parts[1].trim(),              // courseName
-                    parts[2].trim(),              // department
+                    dictionary.canonicalizeIgnoreCase(parts[2].trim()), // department
                     Integer.parseInt(parts[3].trim()), // credits
                     Integer.parseInt(parts[4].trim()), // maxCapacity
-                    parts[5].trim()               // instructorName
+                    dictionary.canonicalize(parts[5].trim())  // instructorName
             );
+            if (parts.length > 7 && !parts[7].trim().equals(NO_MEETING_TIME)) {
+                course.setMeetingTime(TimeSlot.parse(parts[7]));  // schedule
+            }
+            return course;
         } catch (Exception e) {
             System.err.println("WARNING: Could not parse course line: " + line);
         }
         return null;
     }
 
-    private void loadEnrollments(UniversityManager manager) {
-        File file = new File(ENROLLMENTS_FILE);
+    public String parseInstructorIdFromCsv(String line) {
+        String[] parts = line.split(DELIMITER);
+        return parts.length > 6 ? parts[6].trim() : "";
+    }
+
+    private void loadPrerequisites(UniversityManager manager) {
+        File file = new File(prerequisitesFile);
         if (!file.exists()) return;
 
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int loadedCount = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            int loadedCount = 0;
+            loadedCount = readPrerequisites(manager, reader);
 
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("#") || line.trim().isEmpty()) continue;
+            System.out.println("  Loaded " + loadedCount + " prerequisite links.");
 
-                String[] parts = line.split(DELIMITER);
-                if (parts.length < 3) continue;
+        } catch (IOException e) {
+            System.err.println("ERROR loading prerequisites: " + e.getMessage());
+        }
+        event.finish("load", "prerequisites", prerequisitesFile, loadedCount);
+    }
 
-                String studentId = parts[0].trim();
-                String courseId = parts[1].trim();
-                double grade = Double.parseDouble(parts[2].trim());
+    private int readPrerequisites(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        String line;
+        int loadedCount = 0;
 
-                Optional<Student> studentOpt = manager.findStudentById(studentId);
-                Optional<Course> courseOpt = manager.findCourseById(courseId);
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) continue;
 
-                if (studentOpt.isPresent() && courseOpt.isPresent()) {
-                    Student student = studentOpt.get();
-                    Course course = courseOpt.get();
+            String[] parts = line.split(DELIMITER);
+            if (parts.length < 2) continue;
 
-                    student.addCourse(course);
-                    course.addStudent(student);
+            String courseId = parts[0].trim();
+            String prerequisiteId = parts[1].trim();
 
-                    if (grade > 0.0) {
-                        student.updateGrade(course, grade);
-                    }
-                    loadedCount++;
-                }
-                
+            if (manager.addPrerequisiteDirectly(courseId, prerequisiteId)) {
+                loadedCount++;
+            } else {
+                System.err.println("WARNING: Skipped cyclic prerequisite line: " + line);
             }
+        }
+        return loadedCount;
+    }
+
+    private void loadEnrollments(UniversityManager manager) {
+        File file = new File(enrollmentsFile);
+        if (!file.exists()) return;
+
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        int loadedCount = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            loadedCount = readEnrollments(manager, reader);
 
             System.out.println("  Loaded " + loadedCount + " enrollment records.");
 
         } catch (IOException e) {
             System.err.println("ERROR loading enrollments: " + e.getMessage());
         }
+        event.finish("load", "enrollments", enrollmentsFile, loadedCount);
+    }
+
+    private int readEnrollments(UniversityManager manager, BufferedReader reader)
+            throws IOException {
+        String line;
+        int loadedCount = 0;
+
+        while ((line = reader.readLine()) != null && !line.equals(END_OF_TABLE)) {
+            if (line.startsWith("#") || line.trim().isEmpty()) continue;
+
+            String[] parts = line.split(DELIMITER);
+            if (parts.length < 3) continue;
+
+            String studentId = parts[0].trim();
+            String courseId = parts[1].trim();
+            double grade = Double.parseDouble(parts[2].trim());
+
+            Optional<Student> studentOpt = manager.findStudentById(studentId);
+            Optional<Course> courseOpt = manager.findCourseById(courseId);
+
+            if (studentOpt.isPresent() && courseOpt.isPresent()) {
+                manager.addEnrollmentDirectly(
+                        studentOpt.get(), courseOpt.get(), grade);
+                loadedCount++;
+            }
+            
+        }
+        return loadedCount;
     }
 }
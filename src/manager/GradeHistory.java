@@ -0,0 +1,543 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.Course;
+import model.Student;
+import model.Term;
+
+/**
+ * Every grade each student has received, by term, kept compact enough to
+ * hold years of history in memory.
+ *
+ * A student's closed terms are one byte array of blocks, one per term:
+ * the term code as a delta from the previous block, the record count,
+ * then the course codes (sorted, as deltas) and then the grades (in
+ * hundredths), all as varints. A typical record takes three or four
+ * bytes. The student's current term stays unencoded so that grade
+ * corrections are cheap; it is encoded once a later term starts.
+ *
+ * Per-term and cumulative grade totals are updated as each grade is
+ * posted and stored per term, so the GPA for a term, or as of a term,
+ * is a binary search, not a replay. Cumulative GPA counts the latest
+ * grade per course, like Student.getGpa: a retake replaces the earlier
+ * grade from that term on. Grades of 0.0 mean "not graded" and are not
+ * recorded.
+ *
+ * Not thread-safe; the manager uses it under its locks.
+ */
+public class GradeHistory {
+
+    /** One posted grade. */
+    public static final class Entry {
+        private final Term term;
+        private final String courseId;
+        private final double grade;
+
+        Entry(Term term, String courseId, double grade) {
+            this.term = term;
+            this.courseId = courseId;
+            this.grade = grade;
+        }
+
+        public Term getTerm() { return term; }
+        public String getCourseId() { return courseId; }
+        public double getGrade() { return grade; }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s %.2f", term, courseId, grade);
+        }
+    }
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int[] NO_PAIRS = new int[0];
+
+    // Summary row layout, in hundredths of a grade point.
+    private static final int TERM = 0;
+    private static final int TERM_SUM = 1;
+    private static final int TERM_COUNT = 2;
+    private static final int TOTAL_SUM = 3;
+    private static final int TOTAL_COUNT = 4;
+    private static final int SUMMARY_WIDTH = 5;
+
+    private static final class StudentHistory {
+        byte[] blocks = EMPTY;       // encoded closed terms
+        int blocksLength;
+        int lastBlockTerm;           // code of the last encoded term, 0 if none
+        int openTerm = -1;           // code of the unencoded term, -1 if none
+        int[] open = NO_PAIRS;       // course code, grade pairs
+        int openSize;
+        int[] summaries = new int[SUMMARY_WIDTH * 2];
+        int summaryCount;
+    }
+
+    private final List<String> courseIds = new ArrayList<>();
+    private final Map<String, Integer> courseCodes = new HashMap<>();
+    private StudentHistory[] histories = new StudentHistory[1024];  // by student ordinal
+    private int studentCount;
+    private long recordCount;
+
+    /**
+     * Posts a grade in a term. Posting the same course twice in one term
+     * corrects the grade; posting it in a later term is a retake.
+     *
+     * @throws IllegalArgumentException if the term is before the student's
+     *         latest term; history is append-only
+     */
+    public void record(Student student, Term term, String courseId, double grade) {
+        int value = (int) Math.round(grade * 100);
+        if (value <= 0) {
+            return;
+        }
+        StudentHistory h = historyFor(student.getOrdinal());
+        int termCode = term.getCode();
+        if (h.openTerm != termCode) {
+            int latest = h.summaryCount == 0 ? -1 : summary(h, h.summaryCount - 1, TERM);
+            if (termCode < latest) {
+                throw new IllegalArgumentException("Term " + term + " is before "
+                        + Term.fromCode(latest) + ", the latest term for " + student.getStudentId());
+            }
+            closeOpenTerm(h);
+            h.openTerm = termCode;
+            startSummary(h, termCode);
+        }
+
+        int course = courseCode(courseId);
+        int row = (h.summaryCount - 1) * SUMMARY_WIDTH;
+        int[] s = h.summaries;
+        for (int i = 0; i < h.openSize; i++) {
+            if (h.open[2 * i] == course) {
+                int delta = value - h.open[2 * i + 1];
+                h.open[2 * i + 1] = value;
+                s[row + TERM_SUM] += delta;
+                s[row + TOTAL_SUM] += delta;
+                return;
+            }
+        }
+
+        int earlier = latestClosedGrade(h, course);
+        if (2 * h.openSize + 2 > h.open.length) {
+            h.open = Arrays.copyOf(h.open, Math.max(8, h.open.length * 2));
+        }
+        h.open[2 * h.openSize] = course;
+        h.open[2 * h.openSize + 1] = value;
+        h.openSize++;
+        s[row + TERM_SUM] += value;
+        s[row + TERM_COUNT]++;
+        if (earlier > 0) {
+            s[row + TOTAL_SUM] += value - earlier;
+        } else {
+            s[row + TOTAL_SUM] += value;
+            s[row + TOTAL_COUNT]++;
+        }
+        recordCount++;
+    }
+
+    /** Average of the grades posted in that term; 0.0 if none. */
+    public double getTermGpa(Student student, Term term) {
+        StudentHistory h = historyOf(student);
+        int index = h == null ? -1 : findSummary(h, term.getCode());
+        if (index < 0 || summary(h, index, TERM) != term.getCode()) {
+            return 0.0;
+        }
+        return average(summary(h, index, TERM_SUM), summary(h, index, TERM_COUNT));
+    }
+
+    /** Cumulative GPA at the end of that term; 0.0 before the first grade. */
+    public double getGpaAsOf(Student student, Term term) {
+        StudentHistory h = historyOf(student);
+        int index = h == null ? -1 : findSummary(h, term.getCode());
+        if (index < 0) {
+            return 0.0;
+        }
+        return average(summary(h, index, TOTAL_SUM), summary(h, index, TOTAL_COUNT));
+    }
+
+    /** Terms in which the student has grades, oldest first. */
+    public List<Term> getTerms(Student student) {
+        StudentHistory h = historyOf(student);
+        if (h == null) {
+            return Collections.emptyList();
+        }
+        List<Term> terms = new ArrayList<>(h.summaryCount);
+        for (int i = 0; i < h.summaryCount; i++) {
+            terms.add(Term.fromCode(summary(h, i, TERM)));
+        }
+        return terms;
+    }
+
+    /** The student's whole history, oldest term first; decodes every block. */
+    public List<Entry> getEntries(Student student) {
+        StudentHistory h = historyOf(student);
+        List<Entry> entries = new ArrayList<>();
+        if (h == null) {
+            return entries;
+        }
+        BlockReader reader = new BlockReader(h.blocks, h.blocksLength);
+        while (reader.nextBlock()) {
+            Term term = Term.fromCode(reader.term);
+            for (int i = 0; i < reader.size; i++) {
+                entries.add(new Entry(term, courseIds.get(reader.courses[i]), reader.grades[i] / 100.0));
+            }
+        }
+        if (h.openSize > 0) {
+            Term term = Term.fromCode(h.openTerm);
+            int[] sorted = sortedOpen(h);
+            for (int i = 0; i < h.openSize; i++) {
+                entries.add(new Entry(term, courseIds.get(sorted[2 * i]), sorted[2 * i + 1] / 100.0));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Posts, in the given term, every grade the student holds that the
+     * history does not have as that course's latest grade, e.g. grades
+     * changed after the history was last saved. Returns how many were posted.
+     */
+    public int reconcile(Student student, Term term) {
+        Map<Course, Double> grades = student.getCourseGrades();
+        if (grades.isEmpty()) {
+            return 0;
+        }
+        StudentHistory h = historyOf(student);
+        Map<Integer, Integer> latest = h == null ? Collections.emptyMap() : latestGrades(h);
+        int posted = 0;
+        for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+            int value = (int) Math.round(entry.getValue() * 100);
+            if (value <= 0) {
+                continue;
+            }
+            Integer code = courseCodes.get(entry.getKey().getCourseId());
+            Integer known = code == null ? null : latest.get(code);
+            if (known == null || known != value) {
+                record(student, term, entry.getKey().getCourseId(), entry.getValue());
+                posted++;
+            }
+        }
+        return posted;
+    }
+
+    public long getRecordCount() { return recordCount; }
+    public int getStudentCount() { return studentCount; }
+
+    /** Bytes held by encoded terms, unencoded current terms and per-term totals. */
+    public long getFootprintBytes() {
+        long bytes = 0;
+        for (StudentHistory h : histories) {
+            if (h != null) {
+                bytes += h.blocks.length + 4L * h.open.length + 4L * h.summaries.length;
+            }
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        courseIds.clear();
+        courseCodes.clear();
+        histories = new StudentHistory[1024];
+        studentCount = 0;
+        recordCount = 0;
+    }
+
+    /** Course IDs in code order, as written to the history file. */
+    public List<String> getCourseIds() {
+        return Collections.unmodifiableList(courseIds);
+    }
+
+    /** Restores the code table; call on an empty history before restore. */
+    public void restoreCourseIds(List<String> ids) {
+        if (recordCount > 0) {
+            throw new IllegalStateException("History must be empty to restore course codes");
+        }
+        courseIds.clear();
+        courseCodes.clear();
+        for (String id : ids) {
+            courseCode(id);
+        }
+    }
+
+    /**
+     * The student's history in the file format: every term, the current
+     * one included, as encoded blocks. Null if the student has none.
+     */
+    public byte[] encode(Student student) {
+        StudentHistory h = historyOf(student);
+        if (h == null) {
+            return null;
+        }
+        byte[] bytes = Arrays.copyOf(h.blocks, h.blocksLength + 10 + 10 * h.openSize);
+        int length = h.blocksLength;
+        if (h.openSize > 0) {
+            length = writeBlock(bytes, length, h.openTerm - h.lastBlockTerm, sortedOpen(h), h.openSize);
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Loads a history written by encode and rebuilds its totals in one
+     * pass. If its last term is the current term, that term is kept
+     * unencoded so grades can still be corrected.
+     */
+    public void restore(Student student, byte[] encoded, Term currentTerm) {
+        StudentHistory h = historyFor(student.getOrdinal());
+        if (h.summaryCount > 0) {
+            throw new IllegalStateException("History already loaded for " + student.getStudentId());
+        }
+        Map<Integer, Integer> latest = new HashMap<>();
+        BlockReader reader = new BlockReader(encoded, encoded.length);
+        int lastStart = 0;
+        while (true) {
+            int start = reader.position;
+            if (!reader.nextBlock()) {
+                break;
+            }
+            lastStart = start;
+            startSummary(h, reader.term);
+            int row = (h.summaryCount - 1) * SUMMARY_WIDTH;
+            for (int i = 0; i < reader.size; i++) {
+                int value = reader.grades[i];
+                Integer earlier = latest.put(reader.courses[i], value);
+                h.summaries[row + TERM_SUM] += value;
+                h.summaries[row + TERM_COUNT]++;
+                if (earlier != null) {
+                    h.summaries[row + TOTAL_SUM] += value - earlier;
+                } else {
+                    h.summaries[row + TOTAL_SUM] += value;
+                    h.summaries[row + TOTAL_COUNT]++;
+                }
+                recordCount++;
+            }
+            h.lastBlockTerm = reader.term;
+        }
+        h.blocks = encoded;
+        h.blocksLength = encoded.length;
+
+        if (h.summaryCount > 0 && h.lastBlockTerm == currentTerm.getCode()) {
+            reader = new BlockReader(encoded, encoded.length);
+            reader.position = lastStart;
+            reader.previousTerm = h.summaryCount > 1 ? summary(h, h.summaryCount - 2, TERM) : 0;
+            reader.nextBlock();
+            h.openTerm = reader.term;
+            h.open = new int[Math.max(8, 2 * reader.size)];
+            for (int i = 0; i < reader.size; i++) {
+                h.open[2 * i] = reader.courses[i];
+                h.open[2 * i + 1] = reader.grades[i];
+            }
+            h.openSize = reader.size;
+            h.blocksLength = lastStart;
+            h.lastBlockTerm = reader.previousTerm;
+        }
+    }
+
+    private StudentHistory historyOf(Student student) {
+        int ordinal = student.getOrdinal();
+        return ordinal >= 0 && ordinal < histories.length ? histories[ordinal] : null;
+    }
+
+    private StudentHistory historyFor(int ordinal) {
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("Student is not registered");
+        }
+        if (ordinal >= histories.length) {
+            histories = Arrays.copyOf(histories, Math.max(ordinal + 1, histories.length * 2));
+        }
+        StudentHistory h = histories[ordinal];
+        if (h == null) {
+            h = new StudentHistory();
+            histories[ordinal] = h;
+            studentCount++;
+        }
+        return h;
+    }
+
+    private int courseCode(String courseId) {
+        Integer code = courseCodes.get(courseId);
+        if (code == null) {
+            code = courseIds.size();
+            courseIds.add(courseId);
+            courseCodes.put(courseId, code);
+        }
+        return code;
+    }
+
+    /** Adds a summary row for a new term, carrying the cumulative totals forward. */
+    private static void startSummary(StudentHistory h, int termCode) {
+        int row = h.summaryCount * SUMMARY_WIDTH;
+        if (row + SUMMARY_WIDTH > h.summaries.length) {
+            h.summaries = Arrays.copyOf(h.summaries, h.summaries.length * 2);
+        }
+        int[] s = h.summaries;
+        s[row + TERM] = termCode;
+        s[row + TERM_SUM] = 0;
+        s[row + TERM_COUNT] = 0;
+        s[row + TOTAL_SUM] = row == 0 ? 0 : s[row - SUMMARY_WIDTH + TOTAL_SUM];
+        s[row + TOTAL_COUNT] = row == 0 ? 0 : s[row - SUMMARY_WIDTH + TOTAL_COUNT];
+        h.summaryCount++;
+    }
+
+    private static int summary(StudentHistory h, int index, int field) {
+        return h.summaries[index * SUMMARY_WIDTH + field];
+    }
+
+    /** Index of the last summary at or before the term, or -1. */
+    private static int findSummary(StudentHistory h, int termCode) {
+        int low = 0;
+        int high = h.summaryCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (summary(h, mid, TERM) <= termCode) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private static double average(int sum, int count) {
+        return count == 0 ? 0.0 : sum / 100.0 / count;
+    }
+
+    /** Grade in hundredths from the course's latest closed term, or 0 if never taken. */
+    private static int latestClosedGrade(StudentHistory h, int course) {
+        int grade = 0;
+        BlockReader reader = new BlockReader(h.blocks, h.blocksLength);
+        while (reader.nextBlock()) {
+            for (int i = 0; i < reader.size; i++) {
+                if (reader.courses[i] == course) {
+                    grade = reader.grades[i];
+                }
+            }
+        }
+        return grade;
+    }
+
+    /** Latest grade per course code, in hundredths. */
+    private static Map<Integer, Integer> latestGrades(StudentHistory h) {
+        Map<Integer, Integer> latest = new HashMap<>();
+        BlockReader reader = new BlockReader(h.blocks, h.blocksLength);
+        while (reader.nextBlock()) {
+            for (int i = 0; i < reader.size; i++) {
+                latest.put(reader.courses[i], reader.grades[i]);
+            }
+        }
+        for (int i = 0; i < h.openSize; i++) {
+            latest.put(h.open[2 * i], h.open[2 * i + 1]);
+        }
+        return latest;
+    }
+
+    private static void closeOpenTerm(StudentHistory h) {
+        if (h.openSize == 0) {
+            return;
+        }
+        int needed = h.blocksLength + 10 + 10 * h.openSize;
+        if (needed > h.blocks.length) {
+            h.blocks = Arrays.copyOf(h.blocks, Math.max(needed, h.blocks.length * 3 / 2));
+        }
+        h.blocksLength = writeBlock(h.blocks, h.blocksLength, h.openTerm - h.lastBlockTerm,
+                sortedOpen(h), h.openSize);
+        h.lastBlockTerm = h.openTerm;
+        h.openTerm = -1;
+        h.openSize = 0;
+        h.open = NO_PAIRS;
+    }
+
+    /** Open pairs sorted by course code, so course deltas are small and positive. */
+    private static int[] sortedOpen(StudentHistory h) {
+        long[] keyed = new long[h.openSize];
+        for (int i = 0; i < h.openSize; i++) {
+            keyed[i] = ((long) h.open[2 * i] << 32) | h.open[2 * i + 1];
+        }
+        Arrays.sort(keyed);
+        int[] pairs = new int[2 * h.openSize];
+        for (int i = 0; i < h.openSize; i++) {
+            pairs[2 * i] = (int) (keyed[i] >>> 32);
+            pairs[2 * i + 1] = (int) keyed[i];
+        }
+        return pairs;
+    }
+
+    /** Block: term delta, count, course code deltas, grades. Returns the new length. */
+    private static int writeBlock(byte[] out, int pos, int termDelta, int[] pairs, int count) {
+        pos = putVarint(out, pos, termDelta);
+        pos = putVarint(out, pos, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            pos = putVarint(out, pos, pairs[2 * i] - previous);
+            previous = pairs[2 * i];
+        }
+        for (int i = 0; i < count; i++) {
+            pos = putVarint(out, pos, pairs[2 * i + 1]);
+        }
+        return pos;
+    }
+
+    private static int putVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    /** Decodes blocks in order into reusable arrays. */
+    private static final class BlockReader {
+        private final byte[] bytes;
+        private final int limit;
+        int position;
+        int previousTerm;
+        int term;
+        int size;
+        int[] courses = new int[8];
+        int[] grades = new int[8];
+
+        BlockReader(byte[] bytes, int limit) {
+            this.bytes = bytes;
+            this.limit = limit;
+        }
+
+        boolean nextBlock() {
+            if (position >= limit) {
+                return false;
+            }
+            previousTerm = term == 0 ? previousTerm : term;
+            term = previousTerm + varint();
+            size = varint();
+            if (size > courses.length) {
+                courses = new int[size];
+                grades = new int[size];
+            }
+            int course = 0;
+            for (int i = 0; i < size; i++) {
+                course += varint();
+                courses[i] = course;
+            }
+            for (int i = 0; i < size; i++) {
+                grades[i] = varint();
+            }
+            return true;
+        }
+
+        private int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
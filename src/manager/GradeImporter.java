@@ -0,0 +1,345 @@
+package manager;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import manager.RegistrySnapshot.CourseView;
+import manager.RegistrySnapshot.StudentView;
+import model.Course;
+import model.Student;
+
+/**
+ * Streaming end-of-term grade import from a CSV of
+ * StudentID,CourseID,Grade rows.
+ *
+ * Pass 1 reads the file in fixed-size batches, validates each batch in
+ * parallel, writes rejects (with a reason) to the rejects file and
+ * spills valid rows into temporary partitions by student. Pass 2 loads
+ * one partition at a time, groups its rows by student and applies each
+ * student's grades with a single GPA refresh. Memory use is bounded by
+ * one batch plus one partition; the partition count grows with the
+ * input size, so larger files do not need a larger heap.
+ *
+ * Pass 1 validates against the RegistrySnapshot taken when the import
+ * starts and takes no lock. Pass 2 hands a few hundred students at a
+ * time to the exclusive runner (e.g. UniversityService::execute), so
+ * other clients wait for one chunk, never for the whole file. Spilled
+ * rows carry IDs, not ordinals, and each is looked up and checked for
+ * enrollment again under the lock: a reload or replica resync in the
+ * meantime renumbers everything and may drop rows, which then go to the
+ * rejects file instead of grading the wrong student.
+ */
+public class GradeImporter {
+
+    private static final String DELIMITER = ",";
+    private static final int BATCH_SIZE = 4096;
+    private static final int APPLY_BATCH_SIZE = 256;
+    private static final int MIN_PARTITIONS = 16;
+    private static final int MAX_PARTITIONS = 1024;
+    private static final long TARGET_PARTITION_BYTES = 8L * 1024 * 1024;
+    private static final int SPILL_BUFFER_SIZE = 8 * 1024;
+
+    private final RegistrySnapshot snapshot;
+    private final Consumer<Consumer<UniversityManager>> exclusive;
+    private Map<String, StudentView> studentsById;
+    private Map<String, CourseView> coursesById;
+
+    /**
+     * @param snapshot the registry rows are validated against
+     * @param exclusive runs one apply step with exclusive access to the
+     *        manager the snapshot came from
+     */
+    public GradeImporter(RegistrySnapshot snapshot,
+                         Consumer<Consumer<UniversityManager>> exclusive) {
+        this.snapshot = snapshot;
+        this.exclusive = exclusive;
+    }
+
+    public static class Result {
+        private long rowsRead;
+        private long rowsApplied;
+        private long rowsRejected;
+        private long rowsStale;
+        private long studentsUpdated;
+        private long applyBatches;
+        private long maxApplyMillis;
+        private long elapsedMillis;
+
+        public long getRowsRead() { return rowsRead; }
+        public long getRowsApplied() { return rowsApplied; }
+        public long getRowsRejected() { return rowsRejected; }
+        /** Valid when read, but no longer enrolled when applied; also in rowsRejected. */
+        public long getRowsStale() { return rowsStale; }
+        public long getStudentsUpdated() { return studentsUpdated; }
+        public long getApplyBatches() { return applyBatches; }
+        /** Longest single exclusive hold while applying. */
+        public long getMaxApplyMillis() { return maxApplyMillis; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "Read %d rows: %d applied to %d students, %d rejected, %d of them "
+                + "changed since validation (%d ms; %d apply batches, longest %d ms)",
+                rowsRead, rowsApplied, studentsUpdated, rowsRejected, rowsStale,
+                elapsedMillis, applyBatches, maxApplyMillis);
+        }
+    }
+
+    /** A row that passed validation, with the registry's own spelling of the IDs. */
+    private static class ValidRow {
+        private final String studentId;
+        private final String courseId;
+        private final double grade;
+
+        ValidRow(String studentId, String courseId, double grade) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.grade = grade;
+        }
+    }
+
+    /** The last grade for one course in a partition, and how many rows gave it. */
+    private static class PendingGrade {
+        private double grade;
+        private int rows;
+    }
+
+    public Result importGrades(Path input, Path rejectsFile) throws IOException {
+        long start = System.currentTimeMillis();
+        Result result = new Result();
+
+        int partitions = choosePartitionCount(Files.size(input));
+        Path spillDirectory = Files.createTempDirectory("grade-import");
+        Path[] spillFiles = new Path[partitions];
+
+        try (BufferedWriter rejects = Files.newBufferedWriter(rejectsFile, StandardCharsets.UTF_8)) {
+            rejects.write("# Rejected grade rows");
+            rejects.newLine();
+            rejects.write("# Format: StudentID,CourseID,Grade,Reason");
+            rejects.newLine();
+
+            indexSnapshot();
+            spill(input, rejects, spillDirectory, spillFiles, result);
+            for (Path spillFile : spillFiles) {
+                if (spillFile != null) {
+                    applyPartition(spillFile, rejects, result);
+                }
+            }
+        } finally {
+            for (Path spillFile : spillFiles) {
+                if (spillFile != null) {
+                    Files.deleteIfExists(spillFile);
+                }
+            }
+            Files.deleteIfExists(spillDirectory);
+        }
+
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        return result;
+    }
+
+    private static int choosePartitionCount(long inputBytes) {
+        long wanted = inputBytes / TARGET_PARTITION_BYTES + 1;
+        return (int) Math.max(MIN_PARTITIONS, Math.min(MAX_PARTITIONS, wanted));
+    }
+
+    /** ID lookups over the snapshot, keyed as the manager's own maps are. */
+    private void indexSnapshot() {
+        studentsById = new HashMap<>(snapshot.getStudentCount() * 4 / 3 + 1);
+        for (int i = 0; i < snapshot.getStudentCount(); i++) {
+            StudentView student = snapshot.getStudent(i);
+            studentsById.put(student.getStudentId().toUpperCase(), student);
+        }
+        coursesById = new HashMap<>(snapshot.getCourseCount() * 4 / 3 + 1);
+        for (int i = 0; i < snapshot.getCourseCount(); i++) {
+            CourseView course = snapshot.getCourse(i);
+            coursesById.put(course.getCourseId(), course);
+        }
+    }
+
+    private void spill(Path input, BufferedWriter rejects, Path spillDirectory,
+                       Path[] spillFiles, Result result) throws IOException {
+        BufferedWriter[] writers = new BufferedWriter[spillFiles.length];
+
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#") || line.trim().isEmpty()) continue;
+                batch.add(line);
+                if (batch.size() == BATCH_SIZE) {
+                    spillBatch(batch, writers, spillDirectory, spillFiles, rejects, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                spillBatch(batch, writers, spillDirectory, spillFiles, rejects, result);
+            }
+        } finally {
+            for (BufferedWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    private void spillBatch(List<String> batch, BufferedWriter[] writers,
+                            Path spillDirectory, Path[] spillFiles,
+                            BufferedWriter rejects, Result result) throws IOException {
+        ValidRow[] valid = new ValidRow[batch.size()];
+        String[] reasons = new String[batch.size()];
+
+        // Validation only reads the snapshot, so rows are checked in parallel.
+        IntStream.range(0, batch.size()).parallel().forEach(i -> {
+            try {
+                valid[i] = validate(batch.get(i));
+            } catch (IllegalArgumentException e) {
+                reasons[i] = e.getMessage();
+            }
+        });
+
+        for (int i = 0; i < batch.size(); i++) {
+            result.rowsRead++;
+            if (valid[i] == null) {
+                result.rowsRejected++;
+                rejects.write(batch.get(i) + DELIMITER + reasons[i]);
+                rejects.newLine();
+                continue;
+            }
+            int partition = Math.floorMod(valid[i].studentId.hashCode(), spillFiles.length);
+            if (writers[partition] == null) {
+                spillFiles[partition] = spillDirectory.resolve("part-" + partition + ".csv");
+                writers[partition] = new BufferedWriter(
+                        Files.newBufferedWriter(spillFiles[partition], StandardCharsets.UTF_8),
+                        SPILL_BUFFER_SIZE);
+            }
+            BufferedWriter writer = writers[partition];
+            writer.write(valid[i].studentId);
+            writer.write(DELIMITER);
+            writer.write(valid[i].courseId);
+            writer.write(DELIMITER);
+            writer.write(Double.toString(valid[i].grade));
+            writer.newLine();
+        }
+    }
+
+    private ValidRow validate(String line) {
+        String[] parts = line.split(DELIMITER);
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("expected 3 fields");
+        }
+
+        double grade;
+        try {
+            grade = Double.parseDouble(parts[2].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("grade is not a number");
+        }
+        if (grade < 0.0 || grade > 4.0) {
+            throw new IllegalArgumentException("grade out of range 0.0-4.0");
+        }
+
+        StudentView student = studentsById.get(parts[0].trim().toUpperCase());
+        if (student == null) {
+            throw new IllegalArgumentException("unknown student");
+        }
+        CourseView course = coursesById.get(parts[1].trim().toUpperCase());
+        if (course == null) {
+            throw new IllegalArgumentException("unknown course");
+        }
+        if (!isEnrolled(student, course)) {
+            throw new IllegalArgumentException("student not enrolled in course");
+        }
+        return new ValidRow(student.getStudentId(), course.getCourseId(), grade);
+    }
+
+    private static boolean isEnrolled(StudentView student, CourseView course) {
+        for (int i = 0; i < student.getEnrollmentCount(); i++) {
+            if (student.getEnrolledCourseId(i).equals(course.getCourseId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void applyPartition(Path spillFile, BufferedWriter rejects, Result result)
+            throws IOException {
+        Map<String, Map<String, PendingGrade>> gradesByStudent = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(DELIMITER);
+                // Later rows for the same course win, as in the source file.
+                PendingGrade pending = gradesByStudent
+                        .computeIfAbsent(parts[0], k -> new LinkedHashMap<>())
+                        .computeIfAbsent(parts[1], k -> new PendingGrade());
+                pending.grade = Double.parseDouble(parts[2]);
+                pending.rows++;
+            }
+        }
+
+        List<Map.Entry<String, Map<String, PendingGrade>>> chunk = new ArrayList<>(APPLY_BATCH_SIZE);
+        for (Map.Entry<String, Map<String, PendingGrade>> entry : gradesByStudent.entrySet()) {
+            chunk.add(entry);
+            if (chunk.size() == APPLY_BATCH_SIZE) {
+                applyChunk(chunk, rejects, result);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, rejects, result);
+        }
+    }
+
+    private void applyChunk(List<Map.Entry<String, Map<String, PendingGrade>>> chunk,
+                            BufferedWriter rejects, Result result) throws IOException {
+        List<String> stale = new ArrayList<>();
+        exclusive.accept(manager -> {
+            long start = System.nanoTime();
+            for (Map.Entry<String, Map<String, PendingGrade>> entry : chunk) {
+                Optional<Student> student = manager.findStudentById(entry.getKey());
+                Map<Course, Double> grades = new LinkedHashMap<>();
+                for (Map.Entry<String, PendingGrade> pending : entry.getValue().entrySet()) {
+                    Optional<Course> course = manager.findCourseById(pending.getKey());
+                    if (student.isPresent() && course.isPresent()
+                            && student.get().isEnrolledIn(course.get())) {
+                        grades.put(course.get(), pending.getValue().grade);
+                        result.rowsApplied += pending.getValue().rows;
+                    } else {
+                        stale.add(entry.getKey() + DELIMITER + pending.getKey() + DELIMITER
+                                + pending.getValue().grade + DELIMITER
+                                + "no longer enrolled when applied");
+                        result.rowsStale += pending.getValue().rows;
+                        result.rowsRejected += pending.getValue().rows;
+                    }
+                }
+                if (!grades.isEmpty()) {
+                    manager.applyGradeBatch(student.get(), grades);
+                    result.studentsUpdated++;
+                }
+            }
+            result.maxApplyMillis = Math.max(result.maxApplyMillis,
+                    (System.nanoTime() - start) / 1_000_000);
+        });
+        for (String row : stale) {
+            rejects.write(row);
+            rejects.newLine();
+        }
+        result.applyBatches++;
+    }
+}
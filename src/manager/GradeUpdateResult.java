@@ -0,0 +1,24 @@
+package manager;
+
+/** Outcome of UniversityManager.tryUpdateGrade. */
+public enum GradeUpdateResult {
+    UPDATED("Updated grade for %s in %s"),
+    STUDENT_NOT_FOUND("Student not found: %s"),
+    COURSE_NOT_FOUND("Course not found: %2$s"),
+    INVALID_GRADE("Grade for %s in %s must be between 0.0 and 4.0"),
+    NOT_ENROLLED("%s is not enrolled in %s");
+
+    private final String template;
+
+    GradeUpdateResult(String template) {
+        this.template = template;
+    }
+
+    public boolean isSuccess() {
+        return this == UPDATED;
+    }
+
+    public String describe(String studentId, String courseId) {
+        return String.format(template, studentId, courseId);
+    }
+}
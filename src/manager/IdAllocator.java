@@ -0,0 +1,47 @@
+package manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free source of increasing int IDs. Used both for the dense
+ * internal ordinals of students and courses and for the numeric part of
+ * external IDs such as "STU1000".
+ */
+public class IdAllocator {
+
+    private final AtomicInteger next;
+
+    public IdAllocator(int first) {
+        this.next = new AtomicInteger(first);
+    }
+
+    public int next() {
+        return next.getAndIncrement();
+    }
+
+    /** Makes sure IDs issued from now on are greater than value. */
+    public void advancePast(int value) {
+        next.accumulateAndGet(value + 1, Math::max);
+    }
+
+    /**
+     * Numeric suffix of an external ID such as "STU1042", or -1 when the
+     * ID does not have the given prefix followed only by digits.
+     */
+    public static int parseSuffix(String externalId, String prefix) {
+        int length = externalId.length();
+        if (length <= prefix.length()
+                || !externalId.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = prefix.length(); i < length; i++) {
+            char c = externalId.charAt(i);
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
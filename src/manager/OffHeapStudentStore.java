@@ -0,0 +1,409 @@
+package manager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import model.GraduateStudent;
+import model.Student;
+import model.StudentRecord;
+import model.UndergraduateStudent;
+
+/**
+ * Student records kept outside the Java heap, for registries too large
+ * to hold as Student objects. Each student is a fixed-width slot in a
+ * direct ByteBuffer; names, emails, IDs and research topics are UTF-8 in
+ * an off-heap string arena; department, major and advisor are
+ * StringDictionary codes; the ID index is an off-heap hash table. The
+ * heap holds only the buffer objects, so heap use and collector work
+ * stay flat however many students are stored.
+ *
+ * Records are read through View flyweights that implement
+ * StudentRecord. A view is re-pointed with moveTo, so a scan can reuse
+ * one view instead of allocating per student.
+ *
+ * Off-heap memory counts against -XX:MaxDirectMemorySize (default: the
+ * maximum heap size). Like UniversityManager, the store is not
+ * thread-safe.
+ */
+public class OffHeapStudentStore {
+
+    private static final int SLOT_SIZE = 72;
+    private static final int SLOTS_PER_CHUNK = 1 << 16;
+    private static final int ARENA_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final long NO_STRING = -1L;
+
+    // Slot layout (byte offsets)
+    private static final int TYPE = 0;               // byte
+    private static final int YEAR_LEVEL = 1;         // byte
+    private static final int THESIS_TRACK = 2;       // byte
+    private static final int AGE = 4;                // int
+    private static final int DEPARTMENT = 8;         // int, dictionary code
+    private static final int MAJOR_OR_ADVISOR = 12;  // int, dictionary code
+    private static final int GPA = 16;               // double
+    private static final int GRADE_SUM = 24;         // double
+    private static final int GRADED_COUNT = 32;      // int
+    private static final int COURSE_COUNT = 36;      // int
+    private static final int STUDENT_ID = 40;        // long, arena reference
+    private static final int NAME = 48;              // long, arena reference
+    private static final int EMAIL = 56;             // long, arena reference
+    private static final int RESEARCH_TOPIC = 64;    // long, arena reference
+
+    private static final byte UNDERGRADUATE = 1;
+    private static final byte GRADUATE = 2;
+
+    private final StringDictionary dictionary;
+    private final List<ByteBuffer> slotChunks;
+    private final List<ByteBuffer> arenaChunks;
+    private long arenaBytes;
+    private int size;
+
+    // Open-addressing index of (upper-cased ID hash, ordinal + 1) int
+    // pairs; an ordinal of 0 marks an empty entry.
+    private ByteBuffer index;
+    private int indexCapacity;
+
+    public OffHeapStudentStore(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.slotChunks = new ArrayList<>();
+        this.arenaChunks = new ArrayList<>();
+        this.indexCapacity = 1024;
+        this.index = ByteBuffer.allocateDirect(indexCapacity * 2 * Integer.BYTES);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Bytes reserved outside the heap for slots, strings and the ID index. */
+    public long getOffHeapBytes() {
+        return (long) slotChunks.size() * SLOTS_PER_CHUNK * SLOT_SIZE
+                + arenaBytes + index.capacity();
+    }
+
+    /**
+     * Copies an existing Student into the store. Returns its ordinal, or
+     * the existing ordinal if the ID is already stored.
+     */
+    public int add(Student student) {
+        if (student instanceof GraduateStudent) {
+            GraduateStudent grad = (GraduateStudent) student;
+            return addGraduate(grad.getStudentId(), grad.getName(), grad.getEmail(),
+                    grad.getAge(), grad.getDepartment(), grad.getResearchTopic(),
+                    grad.getAdvisor(), grad.isThesisTrack());
+        }
+        UndergraduateStudent ug = (UndergraduateStudent) student;
+        return addUndergraduate(ug.getStudentId(), ug.getName(), ug.getEmail(),
+                ug.getAge(), ug.getDepartment(), ug.getYearLevel(), ug.getMajor());
+    }
+
+    public int addUndergraduate(String studentId, String name, String email, int age,
+                                String department, int yearLevel, String major) {
+        int existing = ordinalOf(studentId);
+        if (existing >= 0) {
+            return existing;
+        }
+        int ordinal = newSlot(studentId, name, email, age, department);
+        ByteBuffer chunk = chunkOf(ordinal);
+        int base = baseOf(ordinal);
+        chunk.put(base + TYPE, UNDERGRADUATE);
+        chunk.put(base + YEAR_LEVEL, (byte) yearLevel);
+        chunk.putInt(base + MAJOR_OR_ADVISOR, dictionary.encode(major));
+        return ordinal;
+    }
+
+    public int addGraduate(String studentId, String name, String email, int age,
+                           String department, String researchTopic, String advisor,
+                           boolean isThesisTrack) {
+        int existing = ordinalOf(studentId);
+        if (existing >= 0) {
+            return existing;
+        }
+        int ordinal = newSlot(studentId, name, email, age, department);
+        ByteBuffer chunk = chunkOf(ordinal);
+        int base = baseOf(ordinal);
+        chunk.put(base + TYPE, GRADUATE);
+        chunk.put(base + THESIS_TRACK, (byte) (isThesisTrack ? 1 : 0));
+        chunk.putInt(base + MAJOR_OR_ADVISOR, dictionary.encode(advisor));
+        chunk.putLong(base + RESEARCH_TOPIC, putString(researchTopic));
+        return ordinal;
+    }
+
+    private int newSlot(String studentId, String name, String email, int age,
+                        String department) {
+        int ordinal = size;
+        if (ordinal / SLOTS_PER_CHUNK == slotChunks.size()) {
+            slotChunks.add(ByteBuffer.allocateDirect(SLOTS_PER_CHUNK * SLOT_SIZE));
+        }
+        ByteBuffer chunk = chunkOf(ordinal);
+        int base = baseOf(ordinal);
+        chunk.putInt(base + AGE, age);
+        chunk.putInt(base + DEPARTMENT, dictionary.encodeIgnoreCase(department));
+        chunk.putDouble(base + GPA, 0.0);
+        chunk.putDouble(base + GRADE_SUM, 0.0);
+        chunk.putInt(base + GRADED_COUNT, 0);
+        chunk.putInt(base + COURSE_COUNT, 0);
+        chunk.putLong(base + STUDENT_ID, putString(studentId));
+        chunk.putLong(base + NAME, putString(name));
+        chunk.putLong(base + EMAIL, putString(email));
+        chunk.putLong(base + RESEARCH_TOPIC, NO_STRING);
+        size++;
+        index(studentId, ordinal);
+        return ordinal;
+    }
+
+    /**
+     * Adds one enrollment to a stored student. As in Student, a grade of
+     * 0.0 means "not graded yet" and is left out of the GPA.
+     */
+    public void recordEnrollment(int ordinal, double grade) {
+        checkOrdinal(ordinal);
+        ByteBuffer chunk = chunkOf(ordinal);
+        int base = baseOf(ordinal);
+        chunk.putInt(base + COURSE_COUNT, chunk.getInt(base + COURSE_COUNT) + 1);
+        if (grade > 0.0) {
+            double sum = chunk.getDouble(base + GRADE_SUM) + grade;
+            int count = chunk.getInt(base + GRADED_COUNT) + 1;
+            chunk.putDouble(base + GRADE_SUM, sum);
+            chunk.putInt(base + GRADED_COUNT, count);
+            chunk.putDouble(base + GPA, sum / count);
+        }
+    }
+
+    /** Ordinal of the student with this ID (case-insensitive), or -1. */
+    public int ordinalOf(String studentId) {
+        String key = studentId.toUpperCase();
+        int hash = mix(key.hashCode());
+        int mask = indexCapacity - 1;
+        for (int i = hash & mask; entryOrdinal(index, i) != 0; i = (i + 1) & mask) {
+            if (entryHash(index, i) == hash) {
+                int ordinal = entryOrdinal(index, i) - 1;
+                if (getString(chunkOf(ordinal).getLong(baseOf(ordinal) + STUDENT_ID))
+                        .equalsIgnoreCase(key)) {
+                    return ordinal;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void index(String studentId, int ordinal) {
+        if (size * 2 > indexCapacity) {
+            ByteBuffer old = index;
+            int oldCapacity = indexCapacity;
+            indexCapacity = oldCapacity * 2;
+            index = ByteBuffer.allocateDirect(indexCapacity * 2 * Integer.BYTES);
+            for (int i = 0; i < oldCapacity; i++) {
+                if (entryOrdinal(old, i) != 0) {
+                    insert(entryHash(old, i), entryOrdinal(old, i));
+                }
+            }
+        }
+        insert(mix(studentId.toUpperCase().hashCode()), ordinal + 1);
+    }
+
+    private void insert(int hash, int ordinalPlusOne) {
+        int mask = indexCapacity - 1;
+        int i = hash & mask;
+        while (entryOrdinal(index, i) != 0) {
+            i = (i + 1) & mask;
+        }
+        index.putInt(i * 2 * Integer.BYTES, hash);
+        index.putInt(i * 2 * Integer.BYTES + Integer.BYTES, ordinalPlusOne);
+    }
+
+    private static int entryHash(ByteBuffer table, int entry) {
+        return table.getInt(entry * 2 * Integer.BYTES);
+    }
+
+    private static int entryOrdinal(ByteBuffer table, int entry) {
+        return table.getInt(entry * 2 * Integer.BYTES + Integer.BYTES);
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /** A new flyweight positioned on the given student. */
+    public View view(int ordinal) {
+        return new View().moveTo(ordinal);
+    }
+
+    /** An unpositioned flyweight, to be moved with View.moveTo. */
+    public View newView() {
+        return new View();
+    }
+
+    /**
+     * Visits every student through one reused view; copy anything the
+     * action needs to keep, because the view moves on after it returns.
+     */
+    public void forEach(Consumer<? super View> action) {
+        View view = new View();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            action.accept(view.moveTo(ordinal));
+        }
+    }
+
+    public double getAverageGpaByDepartment(String department) {
+        double total = 0.0;
+        int count = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            ByteBuffer chunk = chunkOf(ordinal);
+            int base = baseOf(ordinal);
+            double gpa = chunk.getDouble(base + GPA);
+            if (gpa > 0.0 && dictionary.valueOf(chunk.getInt(base + DEPARTMENT))
+                    .equalsIgnoreCase(department)) {
+                total += gpa;
+                count++;
+            }
+        }
+        return count > 0 ? total / count : 0.0;
+    }
+
+    /** Students with a GPA above 3.5, highest first, each in its own view. */
+    public List<View> getDeansList() {
+        List<View> result = new ArrayList<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (chunkOf(ordinal).getDouble(baseOf(ordinal) + GPA) > 3.5) {
+                result.add(view(ordinal));
+            }
+        }
+        result.sort(Comparator.comparingDouble(View::getGpa).reversed());
+        return result;
+    }
+
+    private ByteBuffer chunkOf(int ordinal) {
+        return slotChunks.get(ordinal / SLOTS_PER_CHUNK);
+    }
+
+    private static int baseOf(int ordinal) {
+        return (ordinal % SLOTS_PER_CHUNK) * SLOT_SIZE;
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IndexOutOfBoundsException(
+                "Ordinal " + ordinal + " outside 0.." + (size - 1));
+        }
+    }
+
+    /** Appends a length-prefixed UTF-8 string; returns chunk << 32 | offset. */
+    private long putString(String value) {
+        if (value == null) {
+            return NO_STRING;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+
+        ByteBuffer chunk = arenaChunks.isEmpty() ? null : arenaChunks.get(arenaChunks.size() - 1);
+        if (chunk == null || chunk.remaining() < needed) {
+            int capacity = Math.max(ARENA_CHUNK_SIZE, needed);
+            chunk = ByteBuffer.allocateDirect(capacity);
+            arenaChunks.add(chunk);
+            arenaBytes += capacity;
+        }
+        int offset = chunk.position();
+        chunk.putInt(bytes.length).put(bytes);
+        return ((long) (arenaChunks.size() - 1) << 32) | offset;
+    }
+
+    private String getString(long reference) {
+        if (reference == NO_STRING) {
+            return null;
+        }
+        ByteBuffer chunk = arenaChunks.get((int) (reference >>> 32));
+        int offset = (int) reference;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Flyweight over one slot. Fixed fields are read straight from the
+     * buffer; strings are decoded on each call.
+     */
+    public final class View implements StudentRecord {
+
+        private int ordinal = -1;
+        private ByteBuffer chunk;
+        private int base;
+
+        private View() {
+        }
+
+        public View moveTo(int ordinal) {
+            checkOrdinal(ordinal);
+            this.ordinal = ordinal;
+            this.chunk = chunkOf(ordinal);
+            this.base = baseOf(ordinal);
+            return this;
+        }
+
+        public int getOrdinal() { return ordinal; }
+
+        @Override
+        public String getStudentId() { return getString(chunk.getLong(base + STUDENT_ID)); }
+
+        @Override
+        public String getName() { return getString(chunk.getLong(base + NAME)); }
+
+        @Override
+        public String getEmail() { return getString(chunk.getLong(base + EMAIL)); }
+
+        @Override
+        public int getAge() { return chunk.getInt(base + AGE); }
+
+        @Override
+        public String getDepartment() {
+            return dictionary.valueOf(chunk.getInt(base + DEPARTMENT));
+        }
+
+        @Override
+        public String getStudentType() {
+            return isUndergraduate() ? "UNDERGRADUATE" : "GRADUATE";
+        }
+
+        @Override
+        public double getGpa() { return chunk.getDouble(base + GPA); }
+
+        @Override
+        public int getCourseCount() { return chunk.getInt(base + COURSE_COUNT); }
+
+        public boolean isUndergraduate() { return chunk.get(base + TYPE) == UNDERGRADUATE; }
+
+        /** 1-4 for undergraduates, 0 for graduate students. */
+        public int getYearLevel() {
+            return isUndergraduate() ? chunk.get(base + YEAR_LEVEL) : 0;
+        }
+
+        /** Null for graduate students. */
+        public String getMajor() {
+            return isUndergraduate()
+                    ? dictionary.valueOf(chunk.getInt(base + MAJOR_OR_ADVISOR)) : null;
+        }
+
+        /** Null for undergraduates. */
+        public String getAdvisor() {
+            return isUndergraduate()
+                    ? null : dictionary.valueOf(chunk.getInt(base + MAJOR_OR_ADVISOR));
+        }
+
+        /** Null for undergraduates. */
+        public String getResearchTopic() {
+            return getString(chunk.getLong(base + RESEARCH_TOPIC));
+        }
+
+        public boolean isThesisTrack() { return chunk.get(base + THESIS_TRACK) != 0; }
+
+        @Override
+        public String toString() {
+            return String.format("Student[%s] %s | Dept: %s | GPA: %.2f | Courses: %d | Type: %s",
+                    getStudentId(), getName(), getDepartment(), getGpa(),
+                    getCourseCount(), getStudentType());
+        }
+    }
+}
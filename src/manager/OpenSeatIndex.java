@@ -0,0 +1,159 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import model.Course;
+
+/**
+ * Courses ordered by open seats, per department and university-wide,
+ * for "which courses still have room" searches. Each course sits in a
+ * sorted set under an immutable (seats, course ID) key; the course tells
+ * the index when its seats change (Course.SeatObserver) and the key is
+ * moved, so a search is a head-set walk: O(log n + k) for k results
+ * instead of a scan over every course.
+ *
+ * Listeners hear about every change on the mutating thread, which holds
+ * the registry's write lock, so they must be quick and must not call
+ * back into the registry.
+ */
+public class OpenSeatIndex implements Course.SeatObserver {
+
+    /** Pushed after a course's open-seat count changes. */
+    public interface Listener {
+        void openSeatsChanged(Course course, int oldOpenSeats, int newOpenSeats);
+    }
+
+    /** Most seats first, then course ID. */
+    private static final class Slot implements Comparable<Slot> {
+        private final int seats;
+        private final String courseId;
+        private final Course course;
+
+        Slot(int seats, String courseId, Course course) {
+            this.seats = seats;
+            this.courseId = courseId;
+            this.course = course;
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            int bySeats = Integer.compare(other.seats, seats);
+            return bySeats != 0 ? bySeats : courseId.compareTo(other.courseId);
+        }
+    }
+
+    private final NavigableSet<Slot> all = new TreeSet<>();
+    private final Map<String, NavigableSet<Slot>> byDepartment = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long moves;
+
+    public void add(Course course) {
+        Slot slot = slotOf(course, course.getOpenSeats());
+        all.add(slot);
+        byDepartment.computeIfAbsent(departmentKey(course.getDepartment()), k -> new TreeSet<>())
+                .add(slot);
+        course.setSeatObserver(this);
+    }
+
+    public void remove(Course course) {
+        course.setSeatObserver(null);
+        Slot slot = slotOf(course, course.getOpenSeats());
+        all.remove(slot);
+        String key = departmentKey(course.getDepartment());
+        NavigableSet<Slot> department = byDepartment.get(key);
+        if (department != null && department.remove(slot) && department.isEmpty()) {
+            byDepartment.remove(key);
+        }
+    }
+
+    @Override
+    public void seatsChanged(Course course, int oldOpenSeats) {
+        int newOpenSeats = course.getOpenSeats();
+        Slot stale = slotOf(course, oldOpenSeats);
+        Slot fresh = slotOf(course, newOpenSeats);
+        NavigableSet<Slot> department = byDepartment.get(departmentKey(course.getDepartment()));
+        if (!all.remove(stale) || department == null || !department.remove(stale)) {
+            throw new IllegalStateException(
+                "Course " + course.getCourseId() + " is not in the open-seat index at "
+                + oldOpenSeats + " seats");
+        }
+        all.add(fresh);
+        department.add(fresh);
+        moves++;
+        for (Listener listener : listeners) {
+            listener.openSeatsChanged(course, oldOpenSeats, newOpenSeats);
+        }
+    }
+
+    /**
+     * Courses with at least minSeats open seats, most seats first, at
+     * most limit of them. A null department searches every department.
+     */
+    public List<Course> find(String department, int minSeats, int limit) {
+        if (minSeats < 1) {
+            throw new IllegalArgumentException("Minimum open seats must be at least 1, got: " + minSeats);
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1, got: " + limit);
+        }
+        NavigableSet<Slot> source = department == null
+                ? all : byDepartment.get(departmentKey(department));
+        if (source == null) {
+            return Collections.emptyList();
+        }
+        // "" sorts before every course ID, so this cuts just above minSeats - 1.
+        Iterator<Slot> slots = source.headSet(new Slot(minSeats - 1, "", null), false).iterator();
+        List<Course> result = new ArrayList<>();
+        while (slots.hasNext() && result.size() < limit) {
+            result.add(slots.next().course);
+        }
+        return result;
+    }
+
+    /** Courses with at least one open seat in the department, or everywhere if null. */
+    public int countWithOpenSeats(String department) {
+        NavigableSet<Slot> source = department == null
+                ? all : byDepartment.get(departmentKey(department));
+        return source == null ? 0 : source.headSet(new Slot(0, "", null), false).size();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void clear() {
+        for (Slot slot : all) {
+            slot.course.setSeatObserver(null);
+        }
+        all.clear();
+        byDepartment.clear();
+        moves = 0;
+    }
+
+    public String getStats() {
+        return String.format(
+            "courses=%d%ndepartments=%d%ncourses_with_seats=%d%nseat_changes=%d%nlisteners=%d",
+            all.size(), byDepartment.size(), countWithOpenSeats(null), moves, listeners.size());
+    }
+
+    private static Slot slotOf(Course course, int seats) {
+        return new Slot(seats, course.getCourseId(), course);
+    }
+
+    private static String departmentKey(String department) {
+        return department.trim().toLowerCase(Locale.ROOT);
+    }
+}
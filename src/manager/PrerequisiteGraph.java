@@ -0,0 +1,167 @@
+package manager;
+
+import java.util.*;
+
+/**
+ * Prerequisite DAG over course IDs. Every course gets a dense index and a
+ * precomputed bitset of ALL courses it transitively depends on, so checking
+ * a student is one AND-NOT against their completed-course bitset instead
+ * of a graph walk per enrollment. Edges change rarely, so closures are
+ * rebuilt eagerly on each change.
+ */
+public class PrerequisiteGraph {
+
+    private Map<String, Integer> indexByCourseId;
+    private List<String> courseIdByIndex;
+    private List<BitSet> directPrerequisites;
+    private List<BitSet> closures;
+
+    public PrerequisiteGraph() {
+        this.indexByCourseId = new HashMap<>();
+        this.courseIdByIndex = new ArrayList<>();
+        this.directPrerequisites = new ArrayList<>();
+        this.closures = new ArrayList<>();
+    }
+
+    private int indexOf(String courseId) {
+        Integer index = indexByCourseId.get(courseId);
+        if (index != null) {
+            return index;
+        }
+        int newIndex = courseIdByIndex.size();
+        indexByCourseId.put(courseId, newIndex);
+        courseIdByIndex.add(courseId);
+        directPrerequisites.add(new BitSet());
+        closures.add(new BitSet());
+        return newIndex;
+    }
+
+    public void addPrerequisite(String courseId, String prerequisiteId) {
+        if (courseId.equals(prerequisiteId)) {
+            throw new IllegalArgumentException(
+                "Course '" + courseId + "' cannot be its own prerequisite");
+        }
+        int course = indexOf(courseId);
+        int prerequisite = indexOf(prerequisiteId);
+
+        if (closures.get(prerequisite).get(course)) {
+            throw new IllegalArgumentException(
+                "Adding " + prerequisiteId + " as a prerequisite of " + courseId
+                + " would create a cycle");
+        }
+
+        directPrerequisites.get(course).set(prerequisite);
+        rebuildClosures();
+    }
+
+    public boolean removePrerequisite(String courseId, String prerequisiteId) {
+        Integer course = indexByCourseId.get(courseId);
+        Integer prerequisite = indexByCourseId.get(prerequisiteId);
+        if (course == null || prerequisite == null
+                || !directPrerequisites.get(course).get(prerequisite)) {
+            return false;
+        }
+        directPrerequisites.get(course).clear(prerequisite);
+        rebuildClosures();
+        return true;
+    }
+
+    /**
+     * Memoised DFS in post-order: a course's closure is the union of its
+     * direct prerequisites and their closures. The graph is acyclic by
+     * construction, so each course is finished exactly once.
+     */
+    private void rebuildClosures() {
+        int size = courseIdByIndex.size();
+        boolean[] done = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            closures.get(i).clear();
+        }
+        for (int i = 0; i < size; i++) {
+            buildClosure(i, done);
+        }
+    }
+
+    private void buildClosure(int course, boolean[] done) {
+        if (done[course]) {
+            return;
+        }
+        BitSet closure = closures.get(course);
+        BitSet direct = directPrerequisites.get(course);
+        for (int p = direct.nextSetBit(0); p >= 0; p = direct.nextSetBit(p + 1)) {
+            buildClosure(p, done);
+            closure.set(p);
+            closure.or(closures.get(p));
+        }
+        done[course] = true;
+    }
+
+    /** Bitset of the known courses among the given IDs; unknown IDs are ignored. */
+    public BitSet toBitSet(Collection<String> courseIds) {
+        BitSet bits = new BitSet(courseIdByIndex.size());
+        for (String courseId : courseIds) {
+            Integer index = indexByCourseId.get(courseId);
+            if (index != null) {
+                bits.set(index);
+            }
+        }
+        return bits;
+    }
+
+    public boolean hasPrerequisites(String courseId) {
+        Integer course = indexByCourseId.get(courseId);
+        return course != null && !closures.get(course).isEmpty();
+    }
+
+    /**
+     * Course IDs in the transitive closure of courseId that are not in
+     * the completed set. Empty when the student may enroll.
+     */
+    public List<String> findMissingPrerequisites(String courseId, BitSet completed) {
+        Integer course = indexByCourseId.get(courseId);
+        if (course == null) {
+            return Collections.emptyList();
+        }
+        BitSet missing = (BitSet) closures.get(course).clone();
+        missing.andNot(completed);
+        return toCourseIds(missing);
+    }
+
+    public List<String> getDirectPrerequisites(String courseId) {
+        Integer course = indexByCourseId.get(courseId);
+        return course == null ? Collections.emptyList()
+                              : toCourseIds(directPrerequisites.get(course));
+    }
+
+    public List<String> getAllPrerequisites(String courseId) {
+        Integer course = indexByCourseId.get(courseId);
+        return course == null ? Collections.emptyList()
+                              : toCourseIds(closures.get(course));
+    }
+
+    /** Direct edges as courseId -> prerequisite IDs, for persistence. */
+    public Map<String, List<String>> getEdges() {
+        Map<String, List<String>> edges = new LinkedHashMap<>();
+        for (int i = 0; i < courseIdByIndex.size(); i++) {
+            if (!directPrerequisites.get(i).isEmpty()) {
+                edges.put(courseIdByIndex.get(i), toCourseIds(directPrerequisites.get(i)));
+            }
+        }
+        return edges;
+    }
+
+    private List<String> toCourseIds(BitSet bits) {
+        List<String> ids = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            ids.add(courseIdByIndex.get(i));
+        }
+        return ids;
+    }
+
+    public void clear() {
+        indexByCourseId.clear();
+        courseIdByIndex.clear();
+        directPrerequisites.clear();
+        closures.clear();
+    }
+}
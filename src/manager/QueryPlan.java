@@ -0,0 +1,72 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * How a StudentQuery will be answered: which index bitmaps were
+ * intersected, in what order, and how many candidate ordinals survived
+ * each step. Whatever the steps, every candidate is still checked
+ * against the whole query before it is returned.
+ */
+public class QueryPlan {
+
+    private final StudentQuery query;
+    private final int population;
+    private final List<String> steps = new ArrayList<>();
+    private BitSet candidates;  // null means scan every student
+
+    QueryPlan(StudentQuery query, int population) {
+        this.query = query;
+        this.population = population;
+    }
+
+    void addStep(String access, long estimate, int remaining) {
+        steps.add(String.format("%-34s est %8d  -> candidates %8d", access, estimate, remaining));
+    }
+
+    void addNote(String note) {
+        steps.add(note);
+    }
+
+    void setCandidates(BitSet candidates) {
+        this.candidates = candidates;
+    }
+
+    BitSet getCandidates() {
+        return candidates;
+    }
+
+    public boolean isFullScan() {
+        return candidates == null;
+    }
+
+    /** Rows that will be read and checked; the population for a scan. */
+    public int getCandidateCount() {
+        return candidates == null ? population : candidates.cardinality();
+    }
+
+    public String explain() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Query: ").append(query).append('\n');
+        sb.append("Population: ").append(population).append(" students\n");
+        if (candidates == null) {
+            sb.append("  1. full scan (no indexed condition)\n");
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            sb.append(String.format("  %d. %s%n", i + 1, steps.get(i)));
+        }
+        sb.append("  ").append(steps.size() + (candidates == null ? 2 : 1))
+          .append(". check every condition on ").append(getCandidateCount()).append(" rows");
+        if (query.getLimit() != Integer.MAX_VALUE) {
+            sb.append(", stop at ").append(query.getLimit());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
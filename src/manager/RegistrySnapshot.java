@@ -0,0 +1,340 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import model.Course;
+import model.GraduateStudent;
+import model.Instructor;
+import model.Student;
+import model.StudentRecord;
+import model.Term;
+import model.TimeSlot;
+import model.UndergraduateStudent;
+
+/**
+ * Immutable, point-in-time view of the registry. The manager publishes a
+ * new snapshot after each complete mutation (for an enrollment: after
+ * BOTH the roster and the timetable are updated), so a reader holding a
+ * snapshot never sees a torn write and never blocks a writer.
+ *
+ * Student and course views are indexed by ordinal in persistent vectors;
+ * a new version copies only the changed paths. The views hold every
+ * field the data files store, so a snapshot can be checkpointed to disk
+ * without touching the live registry. That includes the grade history:
+ * each student view carries its encoded history, and the snapshot the
+ * history's course-code table and the current term.
+ */
+public final class RegistrySnapshot {
+
+    private final long version;
+    private final PersistentVector<StudentView> students;
+    private final PersistentVector<CourseView> courses;
+    private final PersistentVector<InstructorView> instructors;
+    private final Map<String, List<String>> prerequisiteEdges;
+    private final List<String> historyCourseIds;
+    private final Term term;
+
+    private RegistrySnapshot(long version,
+                             PersistentVector<StudentView> students,
+                             PersistentVector<CourseView> courses,
+                             PersistentVector<InstructorView> instructors,
+                             Map<String, List<String>> prerequisiteEdges,
+                             List<String> historyCourseIds,
+                             Term term) {
+        this.version = version;
+        this.students = students;
+        this.courses = courses;
+        this.instructors = instructors;
+        this.prerequisiteEdges = prerequisiteEdges;
+        this.historyCourseIds = historyCourseIds;
+        this.term = term;
+    }
+
+    static RegistrySnapshot empty(Term term) {
+        return new RegistrySnapshot(0, PersistentVector.empty(), PersistentVector.empty(),
+                PersistentVector.empty(), Collections.emptyMap(), Collections.emptyList(), term);
+    }
+
+    /** Call after the student's grades and history are both updated. */
+    RegistrySnapshot withStudent(Student student, GradeHistory history) {
+        return new RegistrySnapshot(version + 1,
+                students.with(student.getOrdinal(), new StudentView(student, history.encode(student))),
+                courses, instructors, prerequisiteEdges, courseIdsOf(history), term);
+    }
+
+    RegistrySnapshot withCourse(Course course) {
+        return new RegistrySnapshot(version + 1,
+                students,
+                courses.with(course.getOrdinal(), new CourseView(course)),
+                instructors, prerequisiteEdges, historyCourseIds, term);
+    }
+
+    RegistrySnapshot withEnrollment(Student student, Course course, GradeHistory history) {
+        return new RegistrySnapshot(version + 1,
+                students.with(student.getOrdinal(), new StudentView(student, history.encode(student))),
+                courses.with(course.getOrdinal(), new CourseView(course)),
+                instructors, prerequisiteEdges, courseIdsOf(history), term);
+    }
+
+    /** Appends a newly registered instructor. */
+    RegistrySnapshot withInstructor(Instructor instructor) {
+        return new RegistrySnapshot(version + 1, students, courses,
+                instructors.with(instructors.size(), new InstructorView(instructor)),
+                prerequisiteEdges, historyCourseIds, term);
+    }
+
+    /** Replaces the prerequisite edges; they change rarely and are few. */
+    RegistrySnapshot withPrerequisites(Map<String, List<String>> edges) {
+        Map<String, List<String>> copy = new LinkedHashMap<>();
+        edges.forEach((courseId, ids) -> copy.put(courseId, List.copyOf(ids)));
+        return new RegistrySnapshot(version + 1, students, courses, instructors,
+                Collections.unmodifiableMap(copy), historyCourseIds, term);
+    }
+
+    RegistrySnapshot withTerm(Term newTerm) {
+        return new RegistrySnapshot(version + 1, students, courses, instructors,
+                prerequisiteEdges, historyCourseIds, newTerm);
+    }
+
+    /**
+     * The code table only ever grows (a course gets a code with its first
+     * grade), so it is copied only when a new code has appeared.
+     */
+    private List<String> courseIdsOf(GradeHistory history) {
+        List<String> ids = history.getCourseIds();
+        return ids.size() == historyCourseIds.size() ? historyCourseIds : List.copyOf(ids);
+    }
+
+    /** Increases with every published mutation. */
+    public long getVersion() { return version; }
+
+    public int getStudentCount() { return students.size(); }
+    public int getCourseCount() { return courses.size(); }
+    public int getInstructorCount() { return instructors.size(); }
+
+    public StudentView getStudent(int ordinal) { return students.get(ordinal); }
+    public CourseView getCourse(int ordinal) { return courses.get(ordinal); }
+    public InstructorView getInstructor(int index) { return instructors.get(index); }
+
+    public Stream<StudentView> students() {
+        return StreamSupport.stream(students.spliterator(), false);
+    }
+
+    public Stream<CourseView> courses() {
+        return StreamSupport.stream(courses.spliterator(), false);
+    }
+
+    public Stream<InstructorView> instructors() {
+        return StreamSupport.stream(instructors.spliterator(), false);
+    }
+
+    /** Course ID to its direct prerequisite IDs. */
+    public Map<String, List<String>> getPrerequisiteEdges() {
+        return prerequisiteEdges;
+    }
+
+    /** The grade history's course IDs in code order; see GradeHistory.getCourseIds. */
+    public List<String> getHistoryCourseIds() {
+        return historyCourseIds;
+    }
+
+    /** The term new grades were being posted in. */
+    public Term getTerm() {
+        return term;
+    }
+
+    public List<StudentView> getDeansList() {
+        List<StudentView> result = new ArrayList<>();
+        for (StudentView s : students) {
+            if (s.getGpa() > 3.5) {
+                result.add(s);
+            }
+        }
+        result.sort(Comparator.comparingDouble(StudentView::getGpa).reversed());
+        return result;
+    }
+
+    public double getAverageGpaByDepartment(String department) {
+        OptionalDouble average = students()
+                .filter(s -> s.getDepartment().equalsIgnoreCase(department))
+                .filter(s -> s.getGpa() > 0.0)
+                .mapToDouble(StudentView::getGpa)
+                .average();
+        return average.orElse(0.0);
+    }
+
+    /** Read-only copy of a student's fields at the time of the snapshot. */
+    public static final class StudentView implements StudentRecord {
+
+        private final int ordinal;
+        private final String studentId;
+        private final String name;
+        private final String email;
+        private final int age;
+        private final String department;
+        private final String studentType;
+        private final double gpa;
+        private final int courseCount;
+        private final boolean undergraduate;
+        private final boolean graduate;
+        private final int yearLevel;
+        private final String major;
+        private final String researchTopic;
+        private final String advisor;
+        private final boolean thesisTrack;
+        private final String[] enrolledCourseIds;
+        private final double[] grades;
+        private final byte[] history;
+
+        StudentView(Student student) {
+            this(student, null);
+        }
+
+        /** @param history the student's GradeHistory.encode output, or null */
+        StudentView(Student student, byte[] history) {
+            this.history = history;
+            this.ordinal = student.getOrdinal();
+            this.studentId = student.getStudentId();
+            this.name = student.getName();
+            this.email = student.getEmail();
+            this.age = student.getAge();
+            this.department = student.getDepartment();
+            this.studentType = student.getStudentType();
+            this.gpa = student.getGpa();
+            this.courseCount = student.getCourseCount();
+            this.undergraduate = student instanceof UndergraduateStudent;
+            this.graduate = student instanceof GraduateStudent;
+            if (undergraduate) {
+                UndergraduateStudent ug = (UndergraduateStudent) student;
+                this.yearLevel = ug.getYearLevel();
+                this.major = ug.getMajor();
+            } else {
+                this.yearLevel = 0;
+                this.major = null;
+            }
+            if (graduate) {
+                GraduateStudent grad = (GraduateStudent) student;
+                this.researchTopic = grad.getResearchTopic();
+                this.advisor = grad.getAdvisor();
+                this.thesisTrack = grad.isThesisTrack();
+            } else {
+                this.researchTopic = null;
+                this.advisor = null;
+                this.thesisTrack = false;
+            }
+
+            Map<Course, Double> courseGrades = student.getCourseGrades();
+            this.enrolledCourseIds = new String[courseGrades.size()];
+            this.grades = new double[courseGrades.size()];
+            int i = 0;
+            for (Map.Entry<Course, Double> entry : courseGrades.entrySet()) {
+                enrolledCourseIds[i] = entry.getKey().getCourseId();
+                grades[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        public int getOrdinal() { return ordinal; }
+        public String getStudentId() { return studentId; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public int getAge() { return age; }
+        public String getDepartment() { return department; }
+        public String getStudentType() { return studentType; }
+        public double getGpa() { return gpa; }
+        public int getCourseCount() { return courseCount; }
+        public boolean isUndergraduate() { return undergraduate; }
+        public boolean isGraduate() { return graduate; }
+        public int getYearLevel() { return yearLevel; }
+        public String getMajor() { return major; }
+        public String getResearchTopic() { return researchTopic; }
+        public String getAdvisor() { return advisor; }
+        public boolean isThesisTrack() { return thesisTrack; }
+
+        /** Number of enrollments; index them with getEnrolledCourseId and getGrade. */
+        public int getEnrollmentCount() { return enrolledCourseIds.length; }
+        public String getEnrolledCourseId(int index) { return enrolledCourseIds[index]; }
+        public double getGrade(int index) { return grades[index]; }
+
+        /** Encoded grade history (GradeHistory.encode), or null if none. */
+        byte[] getEncodedHistory() { return history; }
+    }
+
+    /** Read-only copy of a course's fields at the time of the snapshot. */
+    public static final class CourseView {
+
+        private final int ordinal;
+        private final String courseId;
+        private final String courseName;
+        private final String department;
+        private final int credits;
+        private final int currentEnrollment;
+        private final int maxCapacity;
+        private final String instructorName;
+        private final String instructorId;
+        private final TimeSlot meetingTime;
+
+        CourseView(Course course) {
+            this.ordinal = course.getOrdinal();
+            this.courseId = course.getCourseId();
+            this.courseName = course.getCourseName();
+            this.department = course.getDepartment();
+            this.credits = course.getCredits();
+            this.currentEnrollment = course.getCurrentEnrollment();
+            this.maxCapacity = course.getMaxCapacity();
+            this.instructorName = course.getInstructorName();
+            this.instructorId = course.getInstructorId();
+            this.meetingTime = course.hasMeetingTime() ? course.getMeetingTime() : null;
+        }
+
+        public int getOrdinal() { return ordinal; }
+        public String getCourseId() { return courseId; }
+        public String getCourseName() { return courseName; }
+        public String getDepartment() { return department; }
+        public int getCredits() { return credits; }
+        public int getCurrentEnrollment() { return currentEnrollment; }
+        public int getMaxCapacity() { return maxCapacity; }
+        public int getOpenSeats() { return Math.max(0, maxCapacity - currentEnrollment); }
+        public String getInstructorName() { return instructorName; }
+        public String getInstructorId() { return instructorId; }
+        public TimeSlot getMeetingTime() { return meetingTime; }
+    }
+
+    /** Read-only copy of an instructor's stored fields. */
+    public static final class InstructorView {
+
+        private final String instructorId;
+        private final String name;
+        private final String email;
+        private final int age;
+        private final String department;
+        private final String title;
+        private final double salary;
+
+        InstructorView(Instructor instructor) {
+            this.instructorId = instructor.getInstructorId();
+            this.name = instructor.getName();
+            this.email = instructor.getEmail();
+            this.age = instructor.getAge();
+            this.department = instructor.getDepartment();
+            this.title = instructor.getTitle();
+            this.salary = instructor.getSalary();
+        }
+
+        public String getInstructorId() { return instructorId; }
+        public String getName() { return name; }
+        public String getEmail() { return email; }
+        public int getAge() { return age; }
+        public String getDepartment() { return department; }
+        public String getTitle() { return title; }
+        public double getSalary() { return salary; }
+    }
+}
@@ -0,0 +1,100 @@
+package manager;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared pool for low-cardinality strings such as departments, majors,
+ * advisors and instructor names. Every distinct value is stored once and
+ * given a dense int code, so thousands of records can point at the same
+ * String instance and indexes can group by int instead of by text.
+ *
+ * Departments are matched without regard to case everywhere else, so
+ * they go through the IgnoreCase methods: "computer science" then pools
+ * to (and shares the code of) the first casing seen, and counts and
+ * indexes built on the codes see one department, not two.
+ *
+ * Lookups are lock-free; only the first sighting of a new value locks.
+ */
+public class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> codes;
+    private final ConcurrentHashMap<String, Integer> foldedCodes;
+    private volatile String[] values;
+    private int size;
+
+    public StringDictionary() {
+        this.codes = new ConcurrentHashMap<>();
+        this.foldedCodes = new ConcurrentHashMap<>();
+        this.values = new String[64];
+    }
+
+    /** The pooled instance equal to value (null stays null). */
+    public String canonicalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        int code = encode(value);
+        return values[code];
+    }
+
+    /** The code of value, adding it to the dictionary if it is new. */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /** Like canonicalize, but the first casing seen wins. */
+    public String canonicalizeIgnoreCase(String value) {
+        if (value == null) {
+            return null;
+        }
+        return values[encodeIgnoreCase(value)];
+    }
+
+    /** Like encode, but values that differ only in case share one code. */
+    public int encodeIgnoreCase(String value) {
+        String key = value.toLowerCase(Locale.ROOT);
+        Integer code = foldedCodes.get(key);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = foldedCodes.get(key);
+            if (code == null) {
+                code = encode(value);
+                foldedCodes.put(key, code);
+            }
+            return code;
+        }
+    }
+
+    /** The code of value, or -1 if it has never been seen. */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String valueOf(int code) {
+        return values[code];
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
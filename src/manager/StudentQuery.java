@@ -0,0 +1,223 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+import model.Course;
+import model.GraduateStudent;
+import model.Student;
+import model.UndergraduateStudent;
+
+/**
+ * A question about students, built by chaining conditions that must all
+ * hold, e.g.
+ *
+ *     new StudentQuery().department("Physics").graduates()
+ *             .thesisTrack(true).gpaAbove(3.0).enrolledIn("CS101")
+ *
+ * Run it with UniversityManager.findStudents, which lets the planner
+ * narrow the candidates with its indexes before any student is read;
+ * explainStudentQuery shows the plan. matches is the full definition
+ * of the query and is re-checked on every candidate.
+ */
+public class StudentQuery {
+
+    private String department;
+    private String studentType;
+    private double minGpa = Double.NEGATIVE_INFINITY;
+    private boolean minInclusive = true;
+    private double maxGpa = Double.POSITIVE_INFINITY;
+    private boolean maxInclusive = true;
+    private final List<String> courseIds = new ArrayList<>();
+    private String courseDepartment;
+    private Boolean thesisTrack;
+    private Integer yearLevel;
+    private final List<Predicate<? super Student>> filters = new ArrayList<>();
+    private final List<String> conditions = new ArrayList<>();
+    private int limit = Integer.MAX_VALUE;
+
+    /** Department name, compared ignoring case. */
+    public StudentQuery department(String department) {
+        this.department = department.trim();
+        conditions.add("department = " + this.department);
+        return this;
+    }
+
+    public StudentQuery undergraduates() {
+        return type("UNDERGRADUATE");
+    }
+
+    public StudentQuery graduates() {
+        return type("GRADUATE");
+    }
+
+    private StudentQuery type(String studentType) {
+        this.studentType = studentType;
+        conditions.add("type = " + studentType);
+        return this;
+    }
+
+    public StudentQuery gpaAbove(double gpa) {
+        return gpaFrom(gpa, false, "gpa > ");
+    }
+
+    public StudentQuery gpaAtLeast(double gpa) {
+        return gpaFrom(gpa, true, "gpa >= ");
+    }
+
+    public StudentQuery gpaBelow(double gpa) {
+        return gpaTo(gpa, false, "gpa < ");
+    }
+
+    public StudentQuery gpaAtMost(double gpa) {
+        return gpaTo(gpa, true, "gpa <= ");
+    }
+
+    /** Both ends inclusive. */
+    public StudentQuery gpaBetween(double min, double max) {
+        if (min > max) {
+            throw new IllegalArgumentException("GPA range is empty: " + min + " to " + max);
+        }
+        return gpaAtLeast(min).gpaAtMost(max);
+    }
+
+    private StudentQuery gpaFrom(double gpa, boolean inclusive, String label) {
+        if (gpa > minGpa || (gpa == minGpa && !inclusive)) {
+            minGpa = gpa;
+            minInclusive = inclusive;
+        }
+        conditions.add(label + gpa);
+        return this;
+    }
+
+    private StudentQuery gpaTo(double gpa, boolean inclusive, String label) {
+        if (gpa < maxGpa || (gpa == maxGpa && !inclusive)) {
+            maxGpa = gpa;
+            maxInclusive = inclusive;
+        }
+        conditions.add(label + gpa);
+        return this;
+    }
+
+    /** Enrolled in this course; call again to require several. */
+    public StudentQuery enrolledIn(String courseId) {
+        String id = courseId.trim().toUpperCase();
+        courseIds.add(id);
+        conditions.add("enrolled in " + id);
+        return this;
+    }
+
+    /** Enrolled in at least one course offered by this department. */
+    public StudentQuery enrolledInCourseOf(String courseDepartment) {
+        this.courseDepartment = courseDepartment.trim();
+        conditions.add("enrolled in a " + this.courseDepartment + " course");
+        return this;
+    }
+
+    /** Graduate students on (or off) thesis track; undergraduates never match. */
+    public StudentQuery thesisTrack(boolean thesisTrack) {
+        this.thesisTrack = thesisTrack;
+        conditions.add("thesis track = " + thesisTrack);
+        return this;
+    }
+
+    /** Undergraduates in this year; graduates never match. */
+    public StudentQuery yearLevel(int yearLevel) {
+        this.yearLevel = yearLevel;
+        conditions.add("year level = " + yearLevel);
+        return this;
+    }
+
+    /** Any other condition; it has no index, so it is checked row by row. */
+    public StudentQuery matching(String description, Predicate<? super Student> filter) {
+        filters.add(filter);
+        conditions.add(description);
+        return this;
+    }
+
+    /** Stop after this many matches, in registration order. */
+    public StudentQuery limit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public boolean matches(Student student) {
+        if (department != null && !student.getDepartment().equalsIgnoreCase(department)) {
+            return false;
+        }
+        if (studentType != null && !student.getStudentType().equals(studentType)) {
+            return false;
+        }
+        if (!inGpaRange(student.getGpa())) {
+            return false;
+        }
+        if (thesisTrack != null && !(student instanceof GraduateStudent
+                && ((GraduateStudent) student).isThesisTrack() == thesisTrack)) {
+            return false;
+        }
+        if (yearLevel != null && !(student instanceof UndergraduateStudent
+                && ((UndergraduateStudent) student).getYearLevel() == yearLevel)) {
+            return false;
+        }
+        for (String courseId : courseIds) {
+            if (!isEnrolledIn(student, courseId)) {
+                return false;
+            }
+        }
+        if (courseDepartment != null && !hasCourseOf(student, courseDepartment)) {
+            return false;
+        }
+        for (Predicate<? super Student> filter : filters) {
+            if (!filter.test(student)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean inGpaRange(double gpa) {
+        boolean aboveMin = minInclusive ? gpa >= minGpa : gpa > minGpa;
+        boolean belowMax = maxInclusive ? gpa <= maxGpa : gpa < maxGpa;
+        return aboveMin && belowMax;
+    }
+
+    private static boolean isEnrolledIn(Student student, String courseId) {
+        for (Course course : student.getEnrolledCourses()) {
+            if (course.getCourseId().equalsIgnoreCase(courseId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasCourseOf(Student student, String department) {
+        for (Course course : student.getEnrolledCourses()) {
+            if (course.getDepartment().equalsIgnoreCase(department)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    String getDepartmentKey() {
+        return department == null ? null : department.toLowerCase(Locale.ROOT);
+    }
+
+    String getStudentType() { return studentType; }
+    double getMinGpa() { return minGpa; }
+    double getMaxGpa() { return maxGpa; }
+    boolean hasGpaRange() { return minGpa != Double.NEGATIVE_INFINITY || maxGpa != Double.POSITIVE_INFINITY; }
+    List<String> getCourseIds() { return courseIds; }
+    String getCourseDepartment() { return courseDepartment; }
+    public int getLimit() { return limit; }
+
+    @Override
+    public String toString() {
+        return conditions.isEmpty() ? "all students" : String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,217 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import model.Course;
+import model.Student;
+
+/**
+ * Bitmap indexes over student ordinals, used to plan StudentQuery runs:
+ * one bitmap per department, per student type and per 0.1-wide GPA
+ * bucket, plus each course's own roster bitmap. The planner orders the
+ * indexed conditions by estimated rows, most selective first, and ANDs
+ * their bitmaps 64 students per word, so students are only read once
+ * the candidate set is small.
+ *
+ * Not thread-safe; the manager updates it under its write lock and
+ * plans under the read lock.
+ */
+public class StudentQueryIndex {
+
+    private static final int GPA_BUCKETS = 41;  // 0.0-0.09, ..., 3.9-3.99, 4.0
+
+    /** Below this many candidates, checking rows beats building more bitmaps. */
+    private static final int ROW_CHECK_THRESHOLD = 64;
+
+    private final Map<String, BitSet> byDepartment = new HashMap<>();
+    private final BitSet undergraduates = new BitSet();
+    private final BitSet graduates = new BitSet();
+    private final BitSet[] byGpa = new BitSet[GPA_BUCKETS];
+    private byte[] gpaBucketOf = new byte[1024];
+
+    public StudentQueryIndex() {
+        for (int i = 0; i < GPA_BUCKETS; i++) {
+            byGpa[i] = new BitSet();
+        }
+    }
+
+    public void add(Student student) {
+        int ordinal = student.getOrdinal();
+        byDepartment.computeIfAbsent(departmentKey(student.getDepartment()), k -> new BitSet())
+                .set(ordinal);
+        if ("GRADUATE".equals(student.getStudentType())) {
+            graduates.set(ordinal);
+        } else {
+            undergraduates.set(ordinal);
+        }
+        if (ordinal >= gpaBucketOf.length) {
+            gpaBucketOf = Arrays.copyOf(gpaBucketOf, Math.max(ordinal + 1, gpaBucketOf.length * 2));
+        }
+        int bucket = bucketOf(student.getGpa());
+        gpaBucketOf[ordinal] = (byte) bucket;
+        byGpa[bucket].set(ordinal);
+    }
+
+    /** Call whenever a student's grades change. */
+    public void updateGpa(Student student) {
+        int ordinal = student.getOrdinal();
+        int bucket = bucketOf(student.getGpa());
+        int old = gpaBucketOf[ordinal];
+        if (bucket != old) {
+            byGpa[old].clear(ordinal);
+            byGpa[bucket].set(ordinal);
+            gpaBucketOf[ordinal] = (byte) bucket;
+        }
+    }
+
+    /** Call after a student moves to another department. */
+    public void updateDepartment(Student student, String oldDepartment) {
+        String oldKey = departmentKey(oldDepartment);
+        BitSet old = byDepartment.get(oldKey);
+        if (old != null) {
+            old.clear(student.getOrdinal());
+            if (old.isEmpty()) {
+                byDepartment.remove(oldKey);
+            }
+        }
+        byDepartment.computeIfAbsent(departmentKey(student.getDepartment()), k -> new BitSet())
+                .set(student.getOrdinal());
+    }
+
+    public void clear() {
+        byDepartment.clear();
+        undergraduates.clear();
+        graduates.clear();
+        for (BitSet bucket : byGpa) {
+            bucket.clear();
+        }
+        gpaBucketOf = new byte[1024];
+    }
+
+    /** An indexed condition: its row estimate, and its bitmap built on demand. */
+    private static final class Access {
+        private final String name;
+        private final long estimate;
+        private final Supplier<BitSet> bitmap;
+
+        Access(String name, long estimate, Supplier<BitSet> bitmap) {
+            this.name = name;
+            this.estimate = estimate;
+            this.bitmap = bitmap;
+        }
+    }
+
+    /**
+     * @param findCourse course by upper-case ID, or null
+     * @param allCourses every course, for enrolledInCourseOf
+     */
+    QueryPlan plan(StudentQuery query, int population,
+                   Function<String, Course> findCourse, Collection<Course> allCourses) {
+        List<Access> accesses = new ArrayList<>();
+
+        String department = query.getDepartmentKey();
+        if (department != null) {
+            BitSet bits = byDepartment.getOrDefault(department, new BitSet());
+            accesses.add(new Access("index department " + department, bits.cardinality(), () -> bits));
+        }
+        if (query.getStudentType() != null) {
+            BitSet bits = "GRADUATE".equals(query.getStudentType()) ? graduates : undergraduates;
+            accesses.add(new Access("index type " + query.getStudentType(), bits.cardinality(), () -> bits));
+        }
+        if (query.hasGpaRange()) {
+            accesses.add(gpaAccess(query));
+        }
+        for (String courseId : query.getCourseIds()) {
+            Course course = findCourse.apply(courseId);
+            if (course == null) {
+                accesses.add(new Access("course " + courseId + " not found", 0, BitSet::new));
+            } else {
+                accesses.add(new Access("roster " + courseId, course.getCurrentEnrollment(),
+                        course::copyEnrolledOrdinals));
+            }
+        }
+        if (query.getCourseDepartment() != null) {
+            accesses.add(courseDepartmentAccess(query.getCourseDepartment(), allCourses));
+        }
+
+        QueryPlan plan = new QueryPlan(query, population);
+        if (accesses.isEmpty()) {
+            return plan;
+        }
+
+        accesses.sort(Comparator.comparingLong(a -> a.estimate));
+        BitSet candidates = null;
+        for (Access access : accesses) {
+            if (candidates != null && candidates.cardinality() <= ROW_CHECK_THRESHOLD) {
+                plan.addNote("skip " + access.name + " (few candidates left; checked per row)");
+                continue;
+            }
+            if (candidates == null) {
+                candidates = (BitSet) access.bitmap.get().clone();
+            } else {
+                candidates.and(access.bitmap.get());
+            }
+            plan.addStep(access.name, access.estimate, candidates.cardinality());
+        }
+        plan.setCandidates(candidates);
+        return plan;
+    }
+
+    /** OR of the buckets the range touches; edge buckets are rechecked per row. */
+    private Access gpaAccess(StudentQuery query) {
+        int low = query.getMinGpa() == Double.NEGATIVE_INFINITY ? 0 : bucketOf(query.getMinGpa());
+        int high = query.getMaxGpa() == Double.POSITIVE_INFINITY
+                ? GPA_BUCKETS - 1 : bucketOf(query.getMaxGpa());
+        long estimate = 0;
+        for (int b = low; b <= high; b++) {
+            estimate += byGpa[b].cardinality();
+        }
+        String name = String.format("index gpa buckets %.1f-%.1f", low / 10.0, high / 10.0);
+        return new Access(name, estimate, () -> {
+            BitSet bits = new BitSet();
+            for (int b = low; b <= high; b++) {
+                bits.or(byGpa[b]);
+            }
+            return bits;
+        });
+    }
+
+    private static Access courseDepartmentAccess(String department, Collection<Course> allCourses) {
+        List<Course> offered = new ArrayList<>();
+        long estimate = 0;
+        for (Course course : allCourses) {
+            if (course.getDepartment().equalsIgnoreCase(department)) {
+                offered.add(course);
+                estimate += course.getCurrentEnrollment();
+            }
+        }
+        return new Access("rosters of " + offered.size() + " " + department + " courses", estimate, () -> {
+            BitSet bits = new BitSet();
+            for (Course course : offered) {
+                bits.or(course.copyEnrolledOrdinals());
+            }
+            return bits;
+        });
+    }
+
+    private static int bucketOf(double gpa) {
+        if (!(gpa > 0.0)) {
+            return 0;
+        }
+        return Math.min(GPA_BUCKETS - 1, (int) (gpa * 10));
+    }
+
+    private static String departmentKey(String department) {
+        return department.toLowerCase(Locale.ROOT);
+    }
+}
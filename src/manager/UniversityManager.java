@@ -1,47 +1,118 @@
 package manager;
 
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import events.CourseCreatedEvent;
+import events.EnrolledEvent;
+import events.EventBus;
+import events.GradeUpdatedEvent;
+import events.InstructorAssignedEvent;
+import events.InstructorRegisteredEvent;
+import events.PrerequisiteChangedEvent;
+import events.StudentRegisteredEvent;
 import exceptions.CourseFullException;
+import exceptions.PrerequisiteNotMetException;
+import exceptions.ScheduleConflictException;
 import exceptions.StudentAlreadyEnrolledException;
 import model.Course;
+import model.GradeStatistics;
 import model.GraduateStudent;
 import model.Instructor;
+import model.ScheduleConflict;
 import model.Student;
+import model.Term;
+import model.TimeSlot;
 import model.UndergraduateStudent;
+import telemetry.EnrollmentEvent;
+import telemetry.GradeUpdateEvent;
+import telemetry.QueryEvent;
+import telemetry.RegistrationEvent;
 
 public class UniversityManager {
 
-    private List<Student> students;
+    private static final int INITIAL_FILTER_CAPACITY = 1024;
+    private static final double FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    private List<Student> students;             // index == student ordinal
+    private Map<String, Student> studentsById;  // upper-cased external ID
+    private Map<String, Student> studentsByEmail;  // normalized email
+    private NavigableMap<String, Student> studentsInIdOrder;  // cursor index
+    private StudentQueryIndex queryIndex;
+    private GradeHistory gradeHistory;
+    private CoEnrollmentMatrix coEnrollment;  // built on first use
+    private OpenSeatIndex openSeats;
+    private Term currentTerm;
+    private BloomFilter studentIdFilter;
+    private BloomFilter emailFilter;
+    private long identityChecks;
+    private long filterPositives;
+    private long filterFalsePositives;
     private Map<String, Course> courses;   
-    private List<Instructor> instructors;
+    private List<Course> coursesByOrdinal;
+    private NavigableMap<String, Course> coursesInIdOrder;
+    private Map<String, Instructor> instructors;
+    private NavigableMap<Integer, Set<Instructor>> instructorsByLoad;
+    private PrerequisiteGraph prerequisites;
+    private EventBus eventBus;
+    private StringDictionary dictionary;
+    private volatile RegistrySnapshot snapshot;
+    private boolean stacklessErrors;
 
-    private int studentIdCounter;
-    private int instructorIdCounter;
+    private IdAllocator studentOrdinals;
+    private IdAllocator courseOrdinals;
+    private IdAllocator studentNumbers;
+    private IdAllocator instructorNumbers;
 
     public UniversityManager() {
         this.students = new ArrayList<>();
+        this.studentsById = new HashMap<>();
+        this.studentsByEmail = new HashMap<>();
+        this.studentsInIdOrder = new TreeMap<>();
+        this.queryIndex = new StudentQueryIndex();
+        this.gradeHistory = new GradeHistory();
+        this.openSeats = new OpenSeatIndex();
+        this.currentTerm = Term.containing(LocalDate.now());
+        this.studentIdFilter = new BloomFilter(INITIAL_FILTER_CAPACITY, FILTER_FALSE_POSITIVE_RATE);
+        this.emailFilter = new BloomFilter(INITIAL_FILTER_CAPACITY, FILTER_FALSE_POSITIVE_RATE);
         this.courses = new HashMap<>();
-        this.instructors = new ArrayList<>();
-        this.studentIdCounter = 1000; 
-        this.instructorIdCounter = 100;
+        this.coursesByOrdinal = new ArrayList<>();
+        this.coursesInIdOrder = new TreeMap<>();
+        this.instructors = new LinkedHashMap<>();
+        this.instructorsByLoad = new TreeMap<>();
+        this.prerequisites = new PrerequisiteGraph();
+        this.eventBus = new EventBus();
+        this.dictionary = new StringDictionary();
+        this.snapshot = RegistrySnapshot.empty(currentTerm);
+        this.studentOrdinals = new IdAllocator(0);
+        this.courseOrdinals = new IdAllocator(0);
+        this.studentNumbers = new IdAllocator(1000);
+        this.instructorNumbers = new IdAllocator(100);
     }
 
     public UndergraduateStudent registerUndergraduateStudent(
             String name, String email, int age,
             String department, int yearLevel, String major) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
 
-        
-        String studentId = "STU" + studentIdCounter++;
+        requireUnregisteredEmail(email);
+        String studentId = "STU" + studentNumbers.next();
 
         UndergraduateStudent student = new UndergraduateStudent(
-                name, email, age, studentId, department, yearLevel, major);
+                name, email, age, studentId, dictionary.canonicalizeIgnoreCase(department),
+                yearLevel, dictionary.canonicalize(major));
 
-        students.add(student);
+        addStudent(student);
+        eventBus.publish(new StudentRegisteredEvent(snapshot.getStudent(student.getOrdinal())));
 
         System.out.println("SUCCESS: Registered undergraduate student: "
                 + name + " (ID: " + studentId + ")");
+        event.finish("student", studentId);
         return student;
     }
     
@@ -49,58 +120,375 @@ public class UniversityManager {
             String name, String email, int age,
             String department, String researchTopic,
             String advisor, boolean isThesisTrack) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
 
-        String studentId = "STU" + studentIdCounter++;
+        requireUnregisteredEmail(email);
+        String studentId = "STU" + studentNumbers.next();
 
         GraduateStudent student = new GraduateStudent(
-                name, email, age, studentId, department,
-                researchTopic, advisor, isThesisTrack);
+                name, email, age, studentId, dictionary.canonicalizeIgnoreCase(department),
+                researchTopic, dictionary.canonicalize(advisor), isThesisTrack);
 
-        students.add(student);
+        addStudent(student);
+        eventBus.publish(new StudentRegisteredEvent(snapshot.getStudent(student.getOrdinal())));
 
         System.out.println("SUCCESS: Registered graduate student: "
                 + name + " (ID: " + studentId + ")");
+        event.finish("student", studentId);
         return student;
     }
 
+    private void addStudent(Student student) {
+        student.setOrdinal(studentOrdinals.next());
+        students.add(student);
+        indexIdentity(student);
+        queryIndex.add(student);
+        snapshot = snapshot.withStudent(student, gradeHistory);
+    }
+
+    private void requireUnregisteredEmail(String email) {
+        if (isEmailRegistered(email)) {
+            throw new IllegalArgumentException("Email already registered: " + email);
+        }
+    }
+
+    /** Case-insensitive; surrounding spaces are ignored. */
+    public boolean isEmailRegistered(String email) {
+        String key = normalizeEmail(email);
+        return key != null && probe(emailFilter, studentsByEmail, key);
+    }
+
+    public boolean isStudentIdRegistered(String studentId) {
+        return probe(studentIdFilter, studentsById, studentId.toUpperCase());
+    }
+
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Most registrations are new, so the filter usually answers "no"
+     * without touching the index; a "maybe" is confirmed there.
+     */
+    private boolean probe(BloomFilter filter, Map<String, Student> index, String key) {
+        identityChecks++;
+        if (!filter.mightContain(key)) {
+            return false;
+        }
+        filterPositives++;
+        if (index.containsKey(key)) {
+            return true;
+        }
+        filterFalsePositives++;
+        return false;
+    }
+
+    private void indexIdentity(Student student) {
+        String id = student.getStudentId().toUpperCase();
+        String email = normalizeEmail(student.getEmail());
+        studentsById.put(id, student);
+        studentsInIdOrder.put(id, student);
+        if (email != null) {
+            studentsByEmail.put(email, student);
+        }
+        if (studentIdFilter.isFull()) {
+            rebuildIdentityFilters(studentIdFilter.getCapacity() * 2);
+        } else {
+            studentIdFilter.put(id);
+            if (email != null) {
+                emailFilter.put(email);
+            }
+        }
+    }
+
+    /**
+     * Adds an edited email to the filter. The old one cannot be taken out,
+     * so a full filter is rebuilt from the index, which drops replaced
+     * emails; it only grows if the students themselves fill it.
+     */
+    private void indexChangedEmail(String email) {
+        if (emailFilter.isFull()) {
+            int capacity = studentIdFilter.getCapacity();
+            rebuildIdentityFilters(studentsById.size() < capacity ? capacity : capacity * 2);
+        } else {
+            emailFilter.put(email);
+        }
+    }
+
+    /** Resizes both filters and re-adds every key; the indexes are the source of truth. */
+    private void rebuildIdentityFilters(int capacity) {
+        studentIdFilter = new BloomFilter(capacity, FILTER_FALSE_POSITIVE_RATE);
+        emailFilter = new BloomFilter(capacity, FILTER_FALSE_POSITIVE_RATE);
+        studentsById.keySet().forEach(studentIdFilter::put);
+        studentsByEmail.keySet().forEach(emailFilter::put);
+    }
+
+    /** Duplicate-check counters and the filters' observed and expected false-positive rates. */
+    public String getIdentityIndexStats() {
+        long negatives = identityChecks - (filterPositives - filterFalsePositives);
+        return String.format(
+            "checks=%d%nfilter_positives=%d%nfalse_positives=%d%n"
+            + "observed_fp_rate=%.5f%nexpected_fp_rate=%.5f%nfilter_capacity=%d%nfilter_bits=%d",
+            identityChecks, filterPositives, filterFalsePositives,
+            negatives == 0 ? 0.0 : (double) filterFalsePositives / negatives,
+            Math.max(studentIdFilter.getExpectedFalsePositiveRate(),
+                     emailFilter.getExpectedFalsePositiveRate()),
+            studentIdFilter.getCapacity(), studentIdFilter.getBitCount());
+    }
+
+    private void addCourse(Course course) {
+        courses.put(course.getCourseId(), course);
+        coursesInIdOrder.put(course.getCourseId(), course);
+        course.setOrdinal(courseOrdinals.next());
+        coursesByOrdinal.add(course);
+        openSeats.add(course);
+        snapshot = snapshot.withCourse(course);
+    }
+
     public Optional<Student> findStudentById(String studentId) {
-        return students.stream()
-                .filter(s -> s.getStudentId().equalsIgnoreCase(studentId))
-                .findFirst(); 
+        return Optional.ofNullable(studentsById.get(studentId.toUpperCase()));
+    }
+
+    public Student getStudentByOrdinal(int ordinal) {
+        return students.get(ordinal);
+    }
+
+    public Course getCourseByOrdinal(int ordinal) {
+        return coursesByOrdinal.get(ordinal);
     }
 
     public List<Student> findStudentsByName(String name) {
-        return students.stream()
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        List<Student> result = students.stream()
                 .filter(s -> s.getName().toLowerCase().contains(name.toLowerCase()))
                 .collect(Collectors.toList());
+        event.finish("find-by-name", name, result.size());
+        return result;
     }
 
     public Course createCourse(String courseId, String courseName,
                                 String department, int credits,
                                 int maxCapacity, String instructorName) {
+        return createCourse(courseId, courseName, department, credits,
+                            maxCapacity, instructorName, null);
+    }
 
+    public Course createCourse(String courseId, String courseName,
+                                String department, int credits,
+                                int maxCapacity, String instructorName,
+                                TimeSlot meetingTime) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
 
         if (courses.containsKey(courseId)) {
             throw new IllegalArgumentException(
                 "Course with ID '" + courseId + "' already exists!");
         }
 
-        Course course = new Course(courseId, courseName, department,
-                                   credits, maxCapacity, instructorName);
-        courses.put(courseId, course);
+        Course course = new Course(courseId, courseName,
+                                   dictionary.canonicalizeIgnoreCase(department),
+                                   credits, maxCapacity,
+                                   dictionary.canonicalize(instructorName));
+        course.setMeetingTime(meetingTime);
+        addCourse(course);
+        eventBus.publish(new CourseCreatedEvent(snapshot.getCourse(course.getOrdinal())));
 
         System.out.println("SUCCESS: Created course: " + courseName
                 + " (" + courseId + ")");
+        event.finish("course", courseId);
         return course;
     }
 
+    public Instructor registerInstructor(String name, String email, int age,
+                                         String department, String title) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+
+        String instructorId = "INS" + instructorNumbers.next();
+
+        Instructor instructor = new Instructor(
+                name, email, age, instructorId,
+                dictionary.canonicalizeIgnoreCase(department), dictionary.canonicalize(title));
+
+        instructors.put(instructorId, instructor);
+        indexInstructorLoad(instructor, -1);
+        snapshot = snapshot.withInstructor(instructor);
+        eventBus.publish(new InstructorRegisteredEvent(
+                snapshot.getInstructor(snapshot.getInstructorCount() - 1)));
+
+        System.out.println("SUCCESS: Registered instructor: "
+                + name + " (ID: " + instructorId + ")");
+        event.finish("instructor", instructorId);
+        return instructor;
+    }
+
+    public Optional<Instructor> findInstructorById(String instructorId) {
+        return Optional.ofNullable(instructors.get(instructorId.toUpperCase()));
+    }
+
+    public List<Instructor> getAllInstructors() {
+        return new ArrayList<>(instructors.values());
+    }
+
+    public void assignInstructorToCourse(String instructorId, String courseId) {
+        Instructor instructor = findInstructorById(instructorId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Instructor not found with ID: " + instructorId));
+
+        Course course = findCourseById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Course not found with ID: " + courseId));
+
+        linkInstructor(instructor, course);
+        eventBus.publish(new InstructorAssignedEvent(
+                course.getCourseId(), instructor.getInstructorId()));
+
+        System.out.println("SUCCESS: " + instructor.getName()
+                + " assigned to teach " + course.getCourseName());
+    }
+
+    public void unassignInstructorFromCourse(String courseId) {
+        Course course = findCourseById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Course not found with ID: " + courseId));
+
+        Instructor previous = course.getInstructor();
+        if (previous == null) {
+            throw new IllegalArgumentException(
+                "Course '" + courseId + "' has no assigned instructor");
+        }
+
+        int oldLoad = previous.getCourseLoad();
+        previous.removeCourse(course);
+        course.setInstructor(null);
+        indexInstructorLoad(previous, oldLoad);
+        snapshot = snapshot.withCourse(course);
+        eventBus.publish(new InstructorAssignedEvent(course.getCourseId(), null));
+    }
+
+    /**
+     * Keeps both sides of the Course/Instructor link and the load
+     * index in step. A course has at most one instructor, so any
+     * previous assignment is released first.
+     */
+    private void linkInstructor(Instructor instructor, Course course) {
+        Instructor previous = course.getInstructor();
+        if (instructor.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            int oldLoad = previous.getCourseLoad();
+            previous.removeCourse(course);
+            indexInstructorLoad(previous, oldLoad);
+        }
+
+        int oldLoad = instructor.getCourseLoad();
+        instructor.assignCourse(course);
+        course.setInstructor(instructor);
+        indexInstructorLoad(instructor, oldLoad);
+        snapshot = snapshot.withCourse(course);
+    }
+
+    private void indexInstructorLoad(Instructor instructor, int oldLoad) {
+        if (oldLoad >= 0) {
+            Set<Instructor> bucket = instructorsByLoad.get(oldLoad);
+            if (bucket != null) {
+                bucket.remove(instructor);
+                if (bucket.isEmpty()) {
+                    instructorsByLoad.remove(oldLoad);
+                }
+            }
+        }
+        instructorsByLoad
+                .computeIfAbsent(instructor.getCourseLoad(), k -> new LinkedHashSet<>())
+                .add(instructor);
+    }
+
+    public List<Instructor> getInstructorsWithCourseLoadAbove(int courseCount) {
+        List<Instructor> result = new ArrayList<>();
+        for (Set<Instructor> bucket
+                : instructorsByLoad.descendingMap().headMap(courseCount, false).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    public Map<Instructor, Integer> getStudentsTaughtPerInstructor() {
+        Map<Instructor, Integer> result = new LinkedHashMap<>();
+        for (Instructor instructor : instructors.values()) {
+            result.put(instructor, instructor.getTotalStudentsTaught());
+        }
+        return result;
+    }
+
     public Optional<Course> findCourseById(String courseId) {
         Course course = courses.get(courseId); // Direct map lookup
         return Optional.ofNullable(course);    // Wrap in Optional
     }
 
+    public void addPrerequisite(String courseId, String prerequisiteId) {
+        RegistrationEvent event = new RegistrationEvent();
+        event.begin();
+        Course course = findCourseById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Course not found with ID: " + courseId));
+        Course prerequisite = findCourseById(prerequisiteId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Course not found with ID: " + prerequisiteId));
+
+        prerequisites.addPrerequisite(course.getCourseId(), prerequisite.getCourseId());
+        snapshot = snapshot.withPrerequisites(prerequisites.getEdges());
+        eventBus.publish(new PrerequisiteChangedEvent(
+                course.getCourseId(), prerequisite.getCourseId(), true));
+
+        System.out.println("SUCCESS: " + prerequisite.getCourseName()
+                + " is now a prerequisite of " + course.getCourseName());
+        event.finish("prerequisite", courseId + "<-" + prerequisiteId);
+    }
+
+    public boolean removePrerequisite(String courseId, String prerequisiteId) {
+        boolean removed = prerequisites.removePrerequisite(courseId, prerequisiteId);
+        if (removed) {
+            snapshot = snapshot.withPrerequisites(prerequisites.getEdges());
+            eventBus.publish(new PrerequisiteChangedEvent(courseId, prerequisiteId, false));
+        }
+        return removed;
+    }
+
+    public List<String> getPrerequisites(String courseId) {
+        return prerequisites.getDirectPrerequisites(courseId);
+    }
+
+    public List<String> getAllPrerequisites(String courseId) {
+        return prerequisites.getAllPrerequisites(courseId);
+    }
+
+    public Map<String, List<String>> getPrerequisiteEdges() {
+        return prerequisites.getEdges();
+    }
+
+    public List<String> findMissingPrerequisites(Student student, Course course) {
+        if (!prerequisites.hasPrerequisites(course.getCourseId())) {
+            return Collections.emptyList();
+        }
+        List<String> passed = new ArrayList<>();
+        for (Course taken : student.getEnrolledCourses()) {
+            if (student.hasPassed(taken)) {
+                passed.add(taken.getCourseId());
+            }
+        }
+        return prerequisites.findMissingPrerequisites(
+                course.getCourseId(), prerequisites.toBitSet(passed));
+    }
+
     public void enrollStudentInCourse(String studentId, String courseId)
-            throws CourseFullException, StudentAlreadyEnrolledException {
+            throws CourseFullException, StudentAlreadyEnrolledException,
+                   ScheduleConflictException, PrerequisiteNotMetException {
+        EnrollmentEvent event = new EnrollmentEvent();
+        event.begin();
+        long start = event.mark();
 
         Student student = findStudentById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException(
@@ -109,23 +497,118 @@ public class UniversityManager {
         Course course = findCourseById(courseId)
                 .orElseThrow(() -> new IllegalArgumentException(
                     "Course not found with ID: " + courseId));
+        long looked = event.mark();
 
-        if (student.isEnrolledIn(course)) {
-            throw new StudentAlreadyEnrolledException(
-                    studentId, student.getName(), courseId, course.getCourseName());
+        EnrollmentResult result = evaluateEnrollment(student, course);
+        long checked = event.mark();
+        if (!result.isSuccess()) {
+            event.finish(studentId, courseId, result.name(), start, looked, checked, checked);
+            throwRejection(student, course, result);
         }
-        if (!course.hasSpace()) {
-            throw new CourseFullException(
-                    courseId, course.getCourseName(), course.getMaxCapacity());
+        commitEnrollment(student, course);
+        event.finish(studentId, courseId, result.name(), start, looked, checked, event.mark());
+    }
+
+    /**
+     * Same rules as enrollStudentInCourse, but a rejection is returned
+     * instead of thrown. Meant for hot paths such as registration rushes,
+     * where "course full" is the common answer.
+     */
+    public EnrollmentResult tryEnroll(String studentId, String courseId) {
+        EnrollmentEvent event = new EnrollmentEvent();
+        event.begin();
+        long start = event.mark();
+
+        Student student = findStudentById(studentId).orElse(null);
+        Course course = student == null ? null : findCourseById(courseId).orElse(null);
+        long looked = event.mark();
+
+        EnrollmentResult result;
+        if (student == null) {
+            result = EnrollmentResult.STUDENT_NOT_FOUND;
+        } else if (course == null) {
+            result = EnrollmentResult.COURSE_NOT_FOUND;
+        } else {
+            result = evaluateEnrollment(student, course);
+        }
+        long checked = event.mark();
+        if (result.isSuccess()) {
+            commitEnrollment(student, course);
         }
+        event.finish(studentId, courseId, result.name(), start, looked, checked, event.mark());
+        return result;
+    }
 
+    private void commitEnrollment(Student student, Course course) {
         course.addStudent(student);
         student.addCourse(course);
+        snapshot = snapshot.withEnrollment(student, course, gradeHistory);
+        if (coEnrollment != null) {
+            coEnrollment.addEnrollment(student, course);
+        }
+        eventBus.publish(new EnrolledEvent(student.getStudentId(), course.getCourseId()));
 
         System.out.println("SUCCESS: " + student.getName()
                 + " enrolled in " + course.getCourseName());
     }
 
+    /**
+     * Every rule an enrollment must pass, without changing anything or
+     * allocating an exception. Returns ENROLLED when all rules pass.
+     */
+    public EnrollmentResult evaluateEnrollment(Student student, Course course) {
+        if (student.isEnrolledIn(course)) {
+            return EnrollmentResult.ALREADY_ENROLLED;
+        }
+        if (!findMissingPrerequisites(student, course).isEmpty()) {
+            return EnrollmentResult.PREREQUISITES_MISSING;
+        }
+        if (student.findScheduleConflict(course) != null) {
+            return EnrollmentResult.SCHEDULE_CONFLICT;
+        }
+        if (!course.hasSpace()) {
+            return EnrollmentResult.COURSE_FULL;
+        }
+        return EnrollmentResult.ENROLLED;
+    }
+
+    private void throwRejection(Student student, Course course, EnrollmentResult result)
+            throws CourseFullException, StudentAlreadyEnrolledException,
+                   ScheduleConflictException, PrerequisiteNotMetException {
+        String studentId = student.getStudentId();
+        String courseId = course.getCourseId();
+        boolean trace = !stacklessErrors;
+
+        switch (result) {
+            case ALREADY_ENROLLED:
+                throw new StudentAlreadyEnrolledException(
+                        studentId, student.getName(), courseId, course.getCourseName(),
+                        trace);
+            case PREREQUISITES_MISSING:
+                throw new PrerequisiteNotMetException(
+                        studentId, student.getName(), courseId, course.getCourseName(),
+                        findMissingPrerequisites(student, course), trace);
+            case SCHEDULE_CONFLICT:
+                Course clash = student.findScheduleConflict(course);
+                throw new ScheduleConflictException(
+                        studentId, student.getName(), courseId, course.getCourseName(),
+                        clash.getCourseId(), clash.getCourseName(), trace);
+            case COURSE_FULL:
+                throw new CourseFullException(
+                        courseId, course.getCourseName(), course.getMaxCapacity(), trace);
+            default:
+                break;
+        }
+    }
+
+    /**
+     * When on, the enrollment exceptions are created without a stack
+     * trace. Callers that only show the message lose nothing.
+     */
+    public void setStacklessErrors(boolean stacklessErrors) {
+        this.stacklessErrors = stacklessErrors;
+    }
+
     public void updateStudentGrade(String studentId, String courseId, double grade) {
         Student student = findStudentById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException(
@@ -135,68 +618,394 @@ public class UniversityManager {
                 .orElseThrow(() -> new IllegalArgumentException(
                     "Course not found: " + courseId));
 
+        updateStudentGrade(student, course, grade);
+    }
+
+    /** Non-throwing form of updateStudentGrade for hot paths. */
+    public GradeUpdateResult tryUpdateGrade(String studentId, String courseId, double grade) {
+        Student student = findStudentById(studentId).orElse(null);
+        if (student == null) {
+            return GradeUpdateResult.STUDENT_NOT_FOUND;
+        }
+        Course course = findCourseById(courseId).orElse(null);
+        if (course == null) {
+            return GradeUpdateResult.COURSE_NOT_FOUND;
+        }
+        if (!(grade >= 0.0 && grade <= 4.0)) {
+            return GradeUpdateResult.INVALID_GRADE;
+        }
+        if (!student.isEnrolledIn(course)) {
+            return GradeUpdateResult.NOT_ENROLLED;
+        }
+        updateStudentGrade(student, course, grade);
+        return GradeUpdateResult.UPDATED;
+    }
+
+    private void updateStudentGrade(Student student, Course course, double grade) {
+        GradeUpdateEvent event = new GradeUpdateEvent();
+        event.begin();
+        long start = event.mark();
         student.updateGrade(course, grade);
+        long recomputed = event.mark();
+        queryIndex.updateGpa(student);
+        gradeHistory.record(student, currentTerm, course.getCourseId(), grade);
+        snapshot = snapshot.withStudent(student, gradeHistory);
+        eventBus.publish(new GradeUpdatedEvent(
+                student.getStudentId(), course.getCourseId(), grade));
         System.out.printf("SUCCESS: Updated grade for %s in %s: %.1f%n",
                 student.getName(), course.getCourseName(), grade);
+        event.finish(student.getStudentId(), course.getCourseId(), 1, "UPDATED",
+                start, recomputed, event.mark());
+    }
+
+    /**
+     * Posts all of one student's new grades with a single GPA refresh
+     * and no console output, for bulk imports.
+     */
+    public void applyGradeBatch(Student student, Map<Course, Double> grades) {
+        GradeUpdateEvent event = new GradeUpdateEvent();
+        event.begin();
+        long start = event.mark();
+        student.updateGrades(grades);
+        long recomputed = event.mark();
+        queryIndex.updateGpa(student);
+        for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+            gradeHistory.record(student, currentTerm, entry.getKey().getCourseId(), entry.getValue());
+        }
+        snapshot = snapshot.withStudent(student, gradeHistory);
+        for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+            eventBus.publish(new GradeUpdatedEvent(
+                    student.getStudentId(), entry.getKey().getCourseId(), entry.getValue()));
+        }
+        event.finish(student.getStudentId(), "", grades.size(), "BATCH",
+                start, recomputed, event.mark());
+    }
+
+    /**
+     * Registry-wide audit of overlapping timetables. Each student's
+     * check is independent, so the scan is spread across cores.
+     */
+    public List<ScheduleConflict> findAllScheduleConflicts() {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        List<ScheduleConflict> result = students.parallelStream()
+                .flatMap(s -> s.findScheduleConflicts().stream())
+                .collect(Collectors.toList());
+        event.finish("schedule-conflicts", null, result.size());
+        return result;
+    }
+
+    /**
+     * Stream of every change made through this manager's mutators:
+     * registrations, course creation, instructor assignment, prerequisite
+     * changes, enrollments and grades. Bulk loads through the
+     * *Directly methods are not published.
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    /** Pool of department, major, advisor and instructor name strings. */
+    public StringDictionary getDictionary() {
+        return dictionary;
     }
 
     public List<Student> getAllStudents() {
         return Collections.unmodifiableList(students);
     }
 
-    public List<Course> getAllCourses() {
-        return new ArrayList<>(courses.values());
+    /** Read-only view in course ID order; nothing is copied. */
+    public Collection<Course> getAllCourses() {
+        return Collections.unmodifiableCollection(coursesInIdOrder.values());
     }
 
-    public List<Student> getDeansList() {
-        return students.stream()
-                .filter(s -> s.getGpa() > 3.5)        // Step 2: filter
-                .sorted((s1, s2) -> Double.compare(    // Step 3: sort descending
-                        s2.getGpa(), s1.getGpa()))
-                .collect(Collectors.toList()); 
-                          
+    public int getStudentCount() {
+        return students.size();
     }
 
-    public double getAverageGpaByDepartment(String department) {
-        OptionalDouble average = students.stream()
-                .filter(s -> s.getDepartment().equalsIgnoreCase(department))
-                .filter(s -> s.getGpa() > 0.0) 
-                .mapToDouble(Student::getGpa)   
-                .average();                      
+    public int getCourseCount() {
+        return courses.size();
+    }
+
+    /**
+     * Up to limit students whose ID sorts after afterId, in ID order.
+     * Pass null to start from the beginning, then the last ID of each
+     * page to get the next one. A cursor survives registrations between
+     * pages: a student added behind it is simply not revisited.
+     */
+    public List<Student> pageStudents(String afterId, int limit) {
+        return page(studentsInIdOrder, afterId == null ? null : afterId.toUpperCase(), limit);
+    }
+
+    /** Same cursor contract as pageStudents, over course IDs. */
+    public List<Course> pageCourses(String afterId, int limit) {
+        return page(coursesInIdOrder, afterId, limit);
+    }
+
+    private static <T> List<T> page(NavigableMap<String, T> index, String afterKey, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        Collection<T> rest = afterKey == null
+                ? index.values()
+                : index.tailMap(afterKey, false).values();
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        for (T item : rest) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(item);
+        }
+        return page;
+    }
+
+    /**
+     * Lazy stream of the students that pass the filter (null for all),
+     * in ID order. Like every manager method it must be consumed under
+     * the service lock; UniversityService.streamStudents pages instead.
+     */
+    public Stream<Student> streamStudents(Predicate<? super Student> filter) {
+        Stream<Student> stream = studentsInIdOrder.values().stream();
+        return filter == null ? stream : stream.filter(filter);
+    }
 
-        return average.orElse(0.0); 
+    public Stream<Course> streamCourses(Predicate<? super Course> filter) {
+        Stream<Course> stream = coursesInIdOrder.values().stream();
+        return filter == null ? stream : stream.filter(filter);
+    }
+
+    /**
+     * The latest consistent view of the registry. Reading it needs no
+     * lock, and it never changes under the reader.
+     */
+    public RegistrySnapshot snapshot() {
+        return snapshot;
+    }
+
+    public List<RegistrySnapshot.StudentView> getDeansList() {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        List<RegistrySnapshot.StudentView> result = snapshot.getDeansList();
+        event.finish("deans-list", null, result.size());
+        return result;
+    }
+
+    public double getAverageGpaByDepartment(String department) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        double average = snapshot.getAverageGpaByDepartment(department);
+        event.finish("department-gpa", department, 1);
+        return average;
     }
 
     public Optional<Student> getTopPerformingStudent() {
-        return students.stream()
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        Optional<Student> top = students.stream()
                 .filter(s -> s.getGpa() > 0.0) 
                 .max(Comparator.comparingDouble(Student::getGpa)); 
+        event.finish("top-student", null, top.isPresent() ? 1 : 0);
+        return top;
+    }
+
+    /**
+     * Head count per department, grouped on dictionary codes rather than
+     * by hashing every student's department text.
+     */
+    public Map<String, Integer> getStudentCountsByDepartment() {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        int[] counts = new int[dictionary.size()];
+        for (Student student : students) {
+            int code = dictionary.encodeIgnoreCase(student.getDepartment());
+            if (code >= counts.length) {
+                counts = Arrays.copyOf(counts, dictionary.size());
+            }
+            counts[code]++;
+        }
+        Map<String, Integer> result = new TreeMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(dictionary.valueOf(code), counts[code]);
+            }
+        }
+        event.finish("department-counts", null, result.size());
+        return result;
     }
 
     public List<Student> getStudentsByDepartment(String department) {
-        return students.stream()
-                .filter(s -> s.getDepartment().equalsIgnoreCase(department))
-                .collect(Collectors.toList());
+        return findStudents(new StudentQuery().department(department));
+    }
+
+    /**
+     * Students matching every condition of the query, in registration
+     * order. The planner intersects index bitmaps first, so only the
+     * surviving candidates are read; see explainStudentQuery.
+     */
+    public List<Student> findStudents(StudentQuery query) {
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        QueryPlan plan = planStudentQuery(query);
+        List<Student> result = new ArrayList<>();
+        int limit = query.getLimit();
+        if (plan.isFullScan()) {
+            for (int i = 0; i < students.size() && result.size() < limit; i++) {
+                if (query.matches(students.get(i))) {
+                    result.add(students.get(i));
+                }
+            }
+        } else {
+            BitSet candidates = plan.getCandidates();
+            for (int i = candidates.nextSetBit(0);
+                 i >= 0 && i < students.size() && result.size() < limit;
+                 i = candidates.nextSetBit(i + 1)) {
+                if (query.matches(students.get(i))) {
+                    result.add(students.get(i));
+                }
+            }
+        }
+        event.finish("student-query", query.toString(), result.size());
+        return result;
+    }
+
+    /** The plan findStudents would use, with row estimates per step. */
+    public String explainStudentQuery(StudentQuery query) {
+        return planStudentQuery(query).explain();
+    }
+
+    private QueryPlan planStudentQuery(StudentQuery query) {
+        return queryIndex.plan(query, students.size(), courses::get, coursesInIdOrder.values());
+    }
+
+    /** The term new grades are posted in. */
+    public Term getCurrentTerm() {
+        return currentTerm;
+    }
+
+    /**
+     * Moves grading to another term, e.g. at the start of a semester.
+     * Terms only move forward, since each student's history is append-only.
+     */
+    public void setCurrentTerm(Term term) {
+        if (term.compareTo(currentTerm) < 0) {
+            throw new IllegalArgumentException(
+                "Cannot move back from " + currentTerm + " to " + term);
+        }
+        currentTerm = term;
+        snapshot = snapshot.withTerm(term);
+    }
+
+    /**
+     * Republishes every student's view after their grade history was
+     * replaced wholesale (a load or a replica resync), so snapshots carry
+     * the restored history.
+     */
+    void republishHistory() {
+        for (Student student : students) {
+            snapshot = snapshot.withStudent(student, gradeHistory);
+        }
+    }
+
+    public GradeHistory getGradeHistory() {
+        return gradeHistory;
+    }
+
+    public List<GradeHistory.Entry> getTranscript(Student student) {
+        return gradeHistory.getEntries(student);
+    }
+
+    public double getTermGpa(Student student, Term term) {
+        return gradeHistory.getTermGpa(student, term);
+    }
+
+    /** Cumulative GPA as it stood at the end of the term. */
+    public double getGpaAsOf(Student student, Term term) {
+        return gradeHistory.getGpaAsOf(student, term);
+    }
+
+    /**
+     * Builds the co-enrollment matrix on the common fork-join pool unless
+     * it is already built; from then on every enrollment keeps it current.
+     * Call with writers locked out.
+     */
+    public CoEnrollmentMatrix ensureCoEnrollmentMatrix() {
+        if (coEnrollment == null) {
+            coEnrollment = CoEnrollmentMatrix.build(students, coursesInIdOrder.values(),
+                    ForkJoinPool.commonPool());
+        }
+        return coEnrollment;
+    }
+
+    public boolean hasCoEnrollmentMatrix() {
+        return coEnrollment != null;
+    }
+
+    /** The k courses most often taken with this one; see ensureCoEnrollmentMatrix. */
+    public List<CoEnrollmentMatrix.Affinity> getCourseAffinities(String courseId, int k) {
+        return requireCoEnrollment().topAffinities(courseId, k);
+    }
+
+    /** The k course pairs most often taken together; see ensureCoEnrollmentMatrix. */
+    public List<CoEnrollmentMatrix.Affinity> getTopCoursePairs(int k) {
+        return requireCoEnrollment().topPairs(k);
+    }
+
+    private CoEnrollmentMatrix requireCoEnrollment() {
+        if (coEnrollment == null) {
+            throw new IllegalStateException("Co-enrollment matrix has not been built");
+        }
+        return coEnrollment;
+    }
+
+    /**
+     * Courses with at least minSeats open seats, most seats first. A null
+     * department searches every department.
+     */
+    public List<Course> findCoursesWithOpenSeats(String department, int minSeats, int limit) {
+        return openSeats.find(department, minSeats, limit);
+    }
+
+    /**
+     * The open-seat index, for subscribing to seat changes. Listeners run
+     * under the write lock; see OpenSeatIndex.
+     */
+    public OpenSeatIndex getOpenSeatIndex() {
+        return openSeats;
+    }
+
+    /**
+     * Every course's running grade statistics merged per department, in
+     * department order, as fresh objects. Costs one merge per course.
+     */
+    public Map<String, GradeStatistics> getGradeStatisticsByDepartment() {
+        Map<String, GradeStatistics> result = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Course course : coursesByOrdinal) {
+            result.computeIfAbsent(course.getDepartment(), k -> new GradeStatistics())
+                  .merge(course.getGradeStatistics());
+        }
+        return result;
     }
 
     public void printEnrollmentStatistics() {
+        RegistrySnapshot view = snapshot;
+
         System.out.println("\n========== ENROLLMENT STATISTICS ==========");
-        System.out.println("Total Students: " + students.size());
-        System.out.println("Total Courses: " + courses.size());
+        System.out.println("Total Students: " + view.getStudentCount());
+        System.out.println("Total Courses: " + view.getCourseCount());
 
-        long undergrads = students.stream()
-                .filter(s -> s instanceof UndergraduateStudent)
+        long undergrads = view.students()
+                .filter(RegistrySnapshot.StudentView::isUndergraduate)
                 .count();
-        long grads = students.stream()
-                .filter(s -> s instanceof GraduateStudent)
+        long grads = view.students()
+                .filter(RegistrySnapshot.StudentView::isGraduate)
                 .count();
 
         System.out.println("Undergraduates: " + undergrads);
         System.out.println("Graduates: " + grads);
 
-        OptionalDouble avgGpa = students.stream()
+        OptionalDouble avgGpa = view.students()
                 .filter(s -> s.getGpa() > 0.0)
-                .mapToDouble(Student::getGpa)
+                .mapToDouble(RegistrySnapshot.StudentView::getGpa)
                 .average();
 
         System.out.printf("Overall Average GPA: %.2f%n",
@@ -204,28 +1013,195 @@ public class UniversityManager {
         System.out.println("===========================================");
     }
 
-    public void addStudentDirectly(Student student) {
-        if (!students.contains(student)) {
-            students.add(student);
-            try {
-                int idNum = Integer.parseInt(
-                    student.getStudentId().replace("STU", ""));
-                if (idNum >= studentIdCounter) {
-                    studentIdCounter = idNum + 1;
-                }
-            } catch (NumberFormatException e) {
+    /**
+     * Adds a loaded student without the registration output. Returns
+     * false, and adds nothing, if the ID or email is already taken.
+     */
+    public boolean addStudentDirectly(Student student) {
+        if (isStudentIdRegistered(student.getStudentId())
+                || isEmailRegistered(student.getEmail())) {
+            return false;
+        }
+        addStudent(student);
+        int idNum = IdAllocator.parseSuffix(student.getStudentId(), "STU");
+        if (idNum >= 0) {
+            studentNumbers.advancePast(idNum);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a loaded course. If the ID is already registered, the loaded
+     * fields are copied onto the registered course instead, so its
+     * roster, grade statistics and instructor link survive and students
+     * keep pointing at the live object. Returns the registered course.
+     *
+     * @throws IllegalArgumentException if the new capacity is below the
+     *         current enrollment; nothing is changed then
+     */
+    public Course addCourseDirectly(Course course) {
+        Course existing = courses.get(course.getCourseId());
+        if (existing == null) {
+            addCourse(course);
+            return course;
+        }
+        if (course.getMaxCapacity() < existing.getCurrentEnrollment()) {
+            throw new IllegalArgumentException("Cannot reduce capacity of " + course.getCourseId()
+                + " below its " + existing.getCurrentEnrollment() + " enrolled students");
+        }
+        existing.setCourseName(course.getCourseName());
+        existing.setCredits(course.getCredits());
+        if (!existing.getDepartment().equals(course.getDepartment())) {
+            openSeats.remove(existing);
+            existing.setDepartment(course.getDepartment());
+            openSeats.add(existing);
+        }
+        existing.setMaxCapacity(course.getMaxCapacity());
+        if (existing.getInstructor() == null) {
+            existing.setInstructorName(course.getInstructorName());
+        }
+        if (!Objects.equals(existing.getMeetingTime(), course.getMeetingTime())) {
+            existing.setMeetingTime(course.getMeetingTime());
+            for (Student student : existing.getEnrolledStudents()) {
+                student.refreshSchedule();
             }
         }
+        snapshot = snapshot.withCourse(existing);
+        return existing;
     }
 
-    public void addCourseDirectly(Course course) {
-        courses.put(course.getCourseId(), course);
+    /**
+     * Copies a reloaded student row onto the registered student with the
+     * same ID, keeping the identity and query indexes in step.
+     *
+     * @throws IllegalArgumentException if the ID is unknown, the student
+     *         type differs or the new email belongs to someone else;
+     *         nothing is changed then
+     */
+    public Student updateStudentDirectly(Student loaded) {
+        Student existing = studentsById.get(loaded.getStudentId().toUpperCase());
+        if (existing == null) {
+            throw new IllegalArgumentException(
+                "Student not found with ID: " + loaded.getStudentId());
+        }
+        if (!existing.getStudentType().equals(loaded.getStudentType())) {
+            throw new IllegalArgumentException("Cannot change " + existing.getStudentId()
+                + " from " + existing.getStudentType() + " to " + loaded.getStudentType());
+        }
+        String oldEmail = normalizeEmail(existing.getEmail());
+        String newEmail = normalizeEmail(loaded.getEmail());
+        Student holder = studentsByEmail.get(newEmail);
+        if (holder != null && holder != existing) {
+            throw new IllegalArgumentException("Email already registered: " + loaded.getEmail());
+        }
+        // The constructors do not validate but the setters do, so run them
+        // on the loaded copy first; a bad row then changes nothing.
+        loaded.setName(loaded.getName());
+        loaded.setEmail(loaded.getEmail());
+        loaded.setAge(loaded.getAge());
+        if (loaded instanceof UndergraduateStudent) {
+            UndergraduateStudent undergraduate = (UndergraduateStudent) loaded;
+            undergraduate.setYearLevel(undergraduate.getYearLevel());
+        }
+
+        existing.setName(loaded.getName());
+        existing.setAge(loaded.getAge());
+        if (!newEmail.equals(oldEmail)) {
+            existing.setEmail(loaded.getEmail());
+            studentsByEmail.remove(oldEmail);
+            studentsByEmail.put(newEmail, existing);
+            indexChangedEmail(newEmail);
+        }
+        if (!existing.getDepartment().equals(loaded.getDepartment())) {
+            String oldDepartment = existing.getDepartment();
+            existing.setDepartment(loaded.getDepartment());
+            queryIndex.updateDepartment(existing, oldDepartment);
+        }
+        if (existing instanceof UndergraduateStudent) {
+            UndergraduateStudent target = (UndergraduateStudent) existing;
+            UndergraduateStudent source = (UndergraduateStudent) loaded;
+            target.setYearLevel(source.getYearLevel());
+            target.setMajor(source.getMajor());
+        } else if (existing instanceof GraduateStudent) {
+            GraduateStudent target = (GraduateStudent) existing;
+            GraduateStudent source = (GraduateStudent) loaded;
+            target.setResearchTopic(source.getResearchTopic());
+            target.setAdvisor(source.getAdvisor());
+            target.setThesisTrack(source.isThesisTrack());
+        }
+        snapshot = snapshot.withStudent(existing, gradeHistory);
+        return existing;
+    }
+
+    /**
+     * Restores a saved enrollment without the business-rule checks, e.g.
+     * while loading files. A grade of 0.0 means "not graded yet".
+     */
+    public void addEnrollmentDirectly(Student student, Course course, double grade) {
+        student.addCourse(course);
+        course.addStudent(student);
+        if (coEnrollment != null) {
+            coEnrollment.addEnrollment(student, course);
+        }
+        if (grade > 0.0) {
+            student.updateGrade(course, grade);
+            queryIndex.updateGpa(student);
+            gradeHistory.record(student, currentTerm, course.getCourseId(), grade);
+        }
+        snapshot = snapshot.withEnrollment(student, course, gradeHistory);
+    }
+
+    public void addInstructorDirectly(Instructor instructor) {
+        String key = instructor.getInstructorId().toUpperCase();
+        if (!instructors.containsKey(key)) {
+            instructors.put(key, instructor);
+            indexInstructorLoad(instructor, -1);
+            snapshot = snapshot.withInstructor(instructor);
+            int idNum = IdAllocator.parseSuffix(instructor.getInstructorId(), "INS");
+            if (idNum >= 0) {
+                instructorNumbers.advancePast(idNum);
+            }
+        }
+    }
+
+    public boolean assignInstructorDirectly(String instructorId, Course course) {
+        Instructor instructor = instructors.get(instructorId.toUpperCase());
+        if (instructor == null) {
+            return false;
+        }
+        linkInstructor(instructor, course);
+        return true;
+    }
+
+    public boolean addPrerequisiteDirectly(String courseId, String prerequisiteId) {
+        try {
+            prerequisites.addPrerequisite(courseId, prerequisiteId);
+            snapshot = snapshot.withPrerequisites(prerequisites.getEdges());
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
     public void clearAllData() {
         students.clear();
+        studentsById.clear();
+        studentsByEmail.clear();
+        studentsInIdOrder.clear();
+        queryIndex.clear();
+        gradeHistory.clear();
+        coEnrollment = null;
+        openSeats.clear();
+        rebuildIdentityFilters(INITIAL_FILTER_CAPACITY);
         courses.clear();
+        coursesByOrdinal.clear();
+        coursesInIdOrder.clear();
+        studentOrdinals = new IdAllocator(0);
+        courseOrdinals = new IdAllocator(0);
+        snapshot = RegistrySnapshot.empty(currentTerm);
         instructors.clear();
+        instructorsByLoad.clear();
+        prerequisites.clear();
         System.out.println("All data cleared.");
     }
 }
@@ -1,19 +1,39 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 public class Course {
 
+    /**
+     * Told after every change to the number of open seats, so an index
+     * keyed by seats can move the course. Runs on the mutating thread.
+     */
+    public interface SeatObserver {
+        void seatsChanged(Course course, int oldOpenSeats);
+    }
+
     private String courseId;
+    private int ordinal = -1;
     private String courseName;
     private String department;
     private int credits;
     private int maxCapacity;
     private String instructorName;
+    private Instructor instructor;
+    private TimeSlot meetingTime;
 
     private List<Student> enrolledStudents;
 
+    /** Ordinals of enrolledStudents, so roster membership is a bit test. */
+    private BitSet enrolledOrdinals;
+
+    private SeatObserver seatObserver;
+
+    /** Kept current by Student as grades are posted; see GradeStatistics. */
+    private final GradeStatistics gradeStatistics = new GradeStatistics();
+
     public Course(String courseId, String courseName, String department,
                   int credits, int maxCapacity, String instructorName) {
         this.courseId = courseId;
@@ -23,53 +43,156 @@ public class Course {
         this.maxCapacity = maxCapacity;
         this.instructorName = instructorName;
         this.enrolledStudents = new ArrayList<>();
+        this.enrolledOrdinals = new BitSet();
     }
 
     public boolean addStudent(Student student) {
-        if (enrolledStudents.contains(student)) {
+        if (isStudentEnrolled(student)) {
             return false;
         }
+        int oldOpenSeats = getOpenSeats();
         enrolledStudents.add(student);
+        if (student.getOrdinal() >= 0) {
+            enrolledOrdinals.set(student.getOrdinal());
+        }
+        notifySeatsChanged(oldOpenSeats);
         return true;
     }
 
     public boolean removeStudent(Student student) {
-        return enrolledStudents.remove(student);
+        int oldOpenSeats = getOpenSeats();
+        boolean removed = enrolledStudents.remove(student);
+        if (removed && student.getOrdinal() >= 0) {
+            enrolledOrdinals.clear(student.getOrdinal());
+        }
+        if (removed) {
+            notifySeatsChanged(oldOpenSeats);
+        }
+        return removed;
     }
 
     public boolean hasSpace() {
         return enrolledStudents.size() < maxCapacity;
     }
 
+    /** Seats left; 0 for a course loaded over capacity. */
+    public int getOpenSeats() {
+        return Math.max(0, maxCapacity - enrolledStudents.size());
+    }
+
+    private void notifySeatsChanged(int oldOpenSeats) {
+        if (seatObserver != null && oldOpenSeats != getOpenSeats()) {
+            seatObserver.seatsChanged(this, oldOpenSeats);
+        }
+    }
+
     public boolean isStudentEnrolled(Student student) {
+        if (student.getOrdinal() >= 0) {
+            return enrolledOrdinals.get(student.getOrdinal());
+        }
         return enrolledStudents.contains(student);
     }
 
+    /**
+     * Copy of the roster as a bitmap of student ordinals, for query
+     * planning.
+     */
+    public BitSet copyEnrolledOrdinals() {
+        return (BitSet) enrolledOrdinals.clone();
+    }
+
     public int getCurrentEnrollment() {
         return enrolledStudents.size();
     }
 
     public String getCourseId() { return courseId; }
+    public int getOrdinal() { return ordinal; }
     public String getCourseName() { return courseName; }
     public String getDepartment() { return department; }
     public int getCredits() { return credits; }
     public int getMaxCapacity() { return maxCapacity; }
     public String getInstructorName() { return instructorName; }
+    public Instructor getInstructor() { return instructor; }
+    public TimeSlot getMeetingTime() { return meetingTime; }
+
+    public boolean hasMeetingTime() {
+        return meetingTime != null;
+    }
+
+    public String getInstructorId() {
+        return instructor == null ? null : instructor.getInstructorId();
+    }
+
+    /** Live running statistics; read them under the registry lock or copy(). */
+    public GradeStatistics getGradeStatistics() {
+        return gradeStatistics;
+    }
+
+    void gradeChanged(double oldGrade, double newGrade) {
+        gradeStatistics.replace(oldGrade, newGrade);
+    }
 
     public List<Student> getEnrolledStudents() {
         return new ArrayList<>(enrolledStudents);
     }
 
+    public void setCourseName(String courseName) {
+        this.courseName = courseName;
+    }
+
+    /** Callers that index courses by department must re-index it. */
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public void setCredits(int credits) {
+        this.credits = credits;
+    }
+
     public void setInstructorName(String instructorName) {
         this.instructorName = instructorName;
     }
 
+    /**
+     * Links this course to an instructor record. The instructor's name
+     * replaces the free-text name; passing null keeps the existing name.
+     */
+    public void setInstructor(Instructor instructor) {
+        this.instructor = instructor;
+        if (instructor != null) {
+            this.instructorName = instructor.getName();
+        }
+    }
+
+    /**
+     * Dense internal number issued once by the registry. The string
+     * course ID stays the external identity for display and files.
+     */
+    public void setOrdinal(int ordinal) {
+        if (this.ordinal >= 0 && this.ordinal != ordinal) {
+            throw new IllegalStateException(
+                "Course " + courseId + " already has ordinal " + this.ordinal);
+        }
+        this.ordinal = ordinal;
+    }
+
+    /** At most one observer; the registry that holds the course sets it. */
+    public void setSeatObserver(SeatObserver seatObserver) {
+        this.seatObserver = seatObserver;
+    }
+
+    public void setMeetingTime(TimeSlot meetingTime) {
+        this.meetingTime = meetingTime;
+    }
+
     public void setMaxCapacity(int maxCapacity) {
         if (maxCapacity < enrolledStudents.size()) {
             throw new IllegalArgumentException(
                 "Cannot reduce capacity below current enrollment count");
         }
+        int oldOpenSeats = getOpenSeats();
         this.maxCapacity = maxCapacity;
+        notifySeatsChanged(oldOpenSeats);
     }
 
     @Override
@@ -0,0 +1,121 @@
+package model;
+
+/**
+ * Running grade statistics for one course: count, mean and variance
+ * (Welford's method, so no sum of squares to lose precision in) and a
+ * histogram of 0.5-point buckets. Students keep it current as grades are
+ * posted, changed or dropped, so every read is O(1).
+ *
+ * Only real grades count; 0.0 means "not graded yet", as it does for the
+ * GPA. Not thread-safe; it is guarded like the course that owns it.
+ */
+public class GradeStatistics {
+
+    public static final int BUCKETS = 8;
+    public static final double BUCKET_WIDTH = 4.0 / BUCKETS;
+
+    private long count;
+    private double mean;
+    private double m2;  // sum of squared distances from the mean
+    private final long[] histogram = new long[BUCKETS];
+
+    void add(double grade) {
+        count++;
+        double delta = grade - mean;
+        mean += delta / count;
+        m2 += delta * (grade - mean);
+        histogram[bucketOf(grade)]++;
+    }
+
+    /** Welford's update run backwards; the grade must have been added. */
+    void remove(double grade) {
+        if (count <= 1) {
+            count = 0;
+            mean = 0.0;
+            m2 = 0.0;
+        } else {
+            double oldMean = mean;
+            count--;
+            mean = (oldMean * (count + 1) - grade) / count;
+            m2 = Math.max(0.0, m2 - (grade - oldMean) * (grade - mean));
+        }
+        histogram[bucketOf(grade)]--;
+    }
+
+    /** Moves a student's grade, where 0.0 on either side means ungraded. */
+    void replace(double oldGrade, double newGrade) {
+        if (oldGrade > 0.0) {
+            remove(oldGrade);
+        }
+        if (newGrade > 0.0) {
+            add(newGrade);
+        }
+    }
+
+    /**
+     * Folds another set of grades into this one (Chan et al.'s pairwise
+     * combination), e.g. to roll courses up into a department.
+     */
+    public void merge(GradeStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * count * other.count / total;
+        count = total;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    public GradeStatistics copy() {
+        GradeStatistics copy = new GradeStatistics();
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount() { return count; }
+
+    public double getMean() { return count == 0 ? 0.0 : mean; }
+
+    /** Sample variance; 0 with fewer than two grades. */
+    public double getVariance() {
+        return count < 2 ? 0.0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public long getBucketCount(int bucket) {
+        return histogram[bucket];
+    }
+
+    /** Share of grades at or above the bucket's lower bound, 0 if none. */
+    public double getShareFromBucket(int bucket) {
+        if (count == 0) {
+            return 0.0;
+        }
+        long above = 0;
+        for (int i = bucket; i < BUCKETS; i++) {
+            above += histogram[i];
+        }
+        return (double) above / count;
+    }
+
+    public static double bucketLowerBound(int bucket) {
+        return bucket * BUCKET_WIDTH;
+    }
+
+    /** 4.0 joins the top bucket rather than opening its own. */
+    public static int bucketOf(double grade) {
+        return Math.min(BUCKETS - 1, (int) (grade / BUCKET_WIDTH));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.2f sd=%.2f", count, getMean(), getStandardDeviation());
+    }
+}
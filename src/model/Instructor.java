@@ -1,7 +1,9 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class Instructor extends Person {
 
@@ -11,10 +13,10 @@ public class Instructor extends Person {
     private double salary;
 
     /**
-     * List of courses this instructor is assigned to teach.
+     * Courses this instructor is assigned to teach, keyed by course ID.
      * One instructor can teach MANY courses.
      */
-    private List<Course> assignedCourses;
+    private Map<String, Course> assignedCourses;
 
     public Instructor(String name, String email, int age,
                       String instructorId, String department, String title) {
@@ -23,29 +25,43 @@ public class Instructor extends Person {
         this.department = department;
         this.title = title;
         this.salary = 0.0;
-        this.assignedCourses = new ArrayList<>();
+        this.assignedCourses = new LinkedHashMap<>();
     }
 
     public void assignCourse(Course course) {
-        if (!assignedCourses.contains(course)) {
-            assignedCourses.add(course);
-        }
+        assignedCourses.putIfAbsent(course.getCourseId(), course);
     }
 
     public void removeCourse(Course course) {
-        assignedCourses.remove(course);
+        assignedCourses.remove(course.getCourseId());
+    }
+
+    public boolean isTeaching(Course course) {
+        return assignedCourses.containsKey(course.getCourseId());
     }
 
     public int getCourseLoad() {
         return assignedCourses.size();
     }
 
+    /**
+     * Sums the rosters of this instructor's own courses only,
+     * so no scan over the full course catalog is needed.
+     */
+    public int getTotalStudentsTaught() {
+        int total = 0;
+        for (Course course : assignedCourses.values()) {
+            total += course.getCurrentEnrollment();
+        }
+        return total;
+    }
+
     public String getInstructorId() { return instructorId; }
     public String getDepartment() { return department; }
     public String getTitle() { return title; }
     public double getSalary() { return salary; }
     public List<Course> getAssignedCourses() {
-        return new ArrayList<>(assignedCourses);
+        return new ArrayList<>(assignedCourses.values());
     }
     public void setTitle(String title) { this.title = title; }
     public void setSalary(double salary) {
@@ -0,0 +1,29 @@
+package model;
+
+/**
+ * Two courses on one student's timetable whose meeting times overlap.
+ */
+public class ScheduleConflict {
+
+    private final Student student;
+    private final Course firstCourse;
+    private final Course secondCourse;
+
+    public ScheduleConflict(Student student, Course firstCourse, Course secondCourse) {
+        this.student = student;
+        this.firstCourse = firstCourse;
+        this.secondCourse = secondCourse;
+    }
+
+    public Student getStudent() { return student; }
+    public Course getFirstCourse() { return firstCourse; }
+    public Course getSecondCourse() { return secondCourse; }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] %s: %s (%s) overlaps %s (%s)",
+                student.getStudentId(), student.getName(),
+                firstCourse.getCourseId(), firstCourse.getMeetingTime(),
+                secondCourse.getCourseId(), secondCourse.getMeetingTime());
+    }
+}
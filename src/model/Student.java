@@ -1,18 +1,31 @@
 package model;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-public abstract class Student extends Person {
+public abstract class Student extends Person implements StudentRecord {
+
+    /** Lowest grade (a D) that counts a course as completed for prerequisites. */
+    public static final double PASSING_GRADE = 1.0;
 
     private String studentId;
+    private int ordinal = -1;
     private double gpa;
     private String department;
     private String studentType;
 
     private Map<Course, Double> courseGrades;
 
+    /** Ordinals of the courses in courseGrades, for O(1) membership tests. */
+    private BitSet enrolledCourseOrdinals;
+
+    /** Union of the week slots of every timed course on this timetable. */
+    private BitSet weeklySchedule;
+
     public Student(String name, String email, int age,
                    String studentId, String department, String studentType) {
         super(name, email, age);
@@ -21,12 +34,61 @@ public abstract class Student extends Person {
         this.studentType = studentType;
         this.gpa = 0.0;
         this.courseGrades = new HashMap<>();
+        this.enrolledCourseOrdinals = new BitSet();
+        this.weeklySchedule = new BitSet(TimeSlot.SLOTS_PER_WEEK);
     }
 
     public void addCourse(Course course) {
         if (!courseGrades.containsKey(course)) {
             courseGrades.put(course, 0.0);
+            if (course.getOrdinal() >= 0) {
+                enrolledCourseOrdinals.set(course.getOrdinal());
+            }
+            if (course.hasMeetingTime()) {
+                weeklySchedule.or(course.getMeetingTime().getWeekSlots());
+            }
+        }
+    }
+
+    /**
+     * Returns the enrolled course whose meeting time overlaps the given
+     * course, or null when it fits. The common no-clash case is a single
+     * bitset intersection; the timetable is only walked to name the clash.
+     */
+    public Course findScheduleConflict(Course course) {
+        if (!course.hasMeetingTime()
+                || !weeklySchedule.intersects(course.getMeetingTime().getWeekSlots())) {
+            return null;
+        }
+        for (Course enrolled : courseGrades.keySet()) {
+            if (!enrolled.equals(course) && enrolled.hasMeetingTime()
+                    && enrolled.getMeetingTime().overlaps(course.getMeetingTime())) {
+                return enrolled;
+            }
         }
+        return null;
+    }
+
+    /**
+     * Lists every overlapping pair already on this timetable, e.g. rows
+     * loaded from file that bypassed the enrollment checks.
+     */
+    public List<ScheduleConflict> findScheduleConflicts() {
+        List<ScheduleConflict> conflicts = new ArrayList<>();
+        List<Course> timed = new ArrayList<>();
+        for (Course course : courseGrades.keySet()) {
+            if (course.hasMeetingTime()) {
+                timed.add(course);
+            }
+        }
+        for (int i = 0; i < timed.size(); i++) {
+            for (int j = i + 1; j < timed.size(); j++) {
+                if (timed.get(i).getMeetingTime().overlaps(timed.get(j).getMeetingTime())) {
+                    conflicts.add(new ScheduleConflict(this, timed.get(i), timed.get(j)));
+                }
+            }
+        }
+        return conflicts;
     }
 
     public void updateGrade(Course course, double grade) {
@@ -38,15 +100,59 @@ public abstract class Student extends Person {
             throw new IllegalArgumentException(
                 "Student not enrolled in: " + course.getCourseName());
         }
-        courseGrades.put(course, grade);
+        course.gradeChanged(courseGrades.put(course, grade), grade);
+        recalculateGPA();
+    }
+
+    /**
+     * Applies several grades at once with a single GPA refresh. Every
+     * grade is validated first, so either all are applied or none are.
+     */
+    public void updateGrades(Map<Course, Double> grades) {
+        for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+            double grade = entry.getValue();
+            if (grade < 0.0 || grade > 4.0) {
+                throw new IllegalArgumentException(
+                    "Grade must be between 0.0 and 4.0, got: " + grade);
+            }
+            if (!courseGrades.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException(
+                    "Student not enrolled in: " + entry.getKey().getCourseName());
+            }
+        }
+        for (Map.Entry<Course, Double> entry : grades.entrySet()) {
+            Course course = entry.getKey();
+            course.gradeChanged(courseGrades.put(course, entry.getValue()), entry.getValue());
+        }
         recalculateGPA();
     }
 
     public void removeCourse(Course course) {
-        courseGrades.remove(course);
+        Double grade = courseGrades.remove(course);
+        if (grade != null) {
+            course.gradeChanged(grade, 0.0);
+        }
+        if (course.getOrdinal() >= 0) {
+            enrolledCourseOrdinals.clear(course.getOrdinal());
+        }
+        rebuildWeeklySchedule();
         recalculateGPA();
     }
 
+    /** Re-reads the enrolled courses' meeting times after one of them moved. */
+    public void refreshSchedule() {
+        rebuildWeeklySchedule();
+    }
+
+    private void rebuildWeeklySchedule() {
+        weeklySchedule.clear();
+        for (Course course : courseGrades.keySet()) {
+            if (course.hasMeetingTime()) {
+                weeklySchedule.or(course.getMeetingTime().getWeekSlots());
+            }
+        }
+    }
+
     private void recalculateGPA() {
         if (courseGrades.isEmpty()) {
             this.gpa = 0.0;
@@ -67,6 +173,9 @@ public abstract class Student extends Person {
     }
 
     public boolean isEnrolledIn(Course course) {
+        if (course.getOrdinal() >= 0) {
+            return enrolledCourseOrdinals.get(course.getOrdinal());
+        }
         return courseGrades.containsKey(course);
     }
 
@@ -78,6 +187,10 @@ public abstract class Student extends Person {
         return courseGrades.getOrDefault(course, -1.0);
     }
 
+    public boolean hasPassed(Course course) {
+        return getGradeForCourse(course) >= PASSING_GRADE;
+    }
+
     public Map<Course, Double> getCourseGrades() {
         return new HashMap<>(courseGrades);
     }
@@ -89,6 +202,7 @@ public abstract class Student extends Person {
     public abstract double calculateTuition();
 
     public String getStudentId() { return studentId; }
+    public int getOrdinal() { return ordinal; }
     public double getGpa() { return gpa; }
     public String getDepartment() { return department; }
     public String getStudentType() { return studentType; }
@@ -97,6 +211,18 @@ public abstract class Student extends Person {
         this.department = department;
     }
 
+    /**
+     * Dense internal number issued once by the registry. The string
+     * student ID stays the external identity for display and files.
+     */
+    public void setOrdinal(int ordinal) {
+        if (this.ordinal >= 0 && this.ordinal != ordinal) {
+            throw new IllegalStateException(
+                "Student " + studentId + " already has ordinal " + this.ordinal);
+        }
+        this.ordinal = ordinal;
+    }
+
     @Override
     public String getRole() {
         return studentType + " Student";
@@ -0,0 +1,18 @@
+package model;
+
+/**
+ * Read-only view of a student's own fields. Implemented by Student and by
+ * the flyweight views of the off-heap student store, so reports can run
+ * over either.
+ */
+public interface StudentRecord {
+
+    String getStudentId();
+    String getName();
+    String getEmail();
+    int getAge();
+    String getDepartment();
+    String getStudentType();
+    double getGpa();
+    int getCourseCount();
+}
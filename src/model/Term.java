@@ -0,0 +1,90 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * An academic term such as 2026-FALL. Terms are numbered consecutively
+ * (three per year), so codes sort in calendar order and the gap between
+ * two terms is a small number, which keeps delta-encoded history small.
+ */
+public final class Term implements Comparable<Term> {
+
+    public enum Season { SPRING, SUMMER, FALL }
+
+    private static final Season[] SEASONS = Season.values();
+
+    private final int year;
+    private final Season season;
+
+    public Term(int year, Season season) {
+        if (year < 1900 || year > 9999) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+        this.year = year;
+        this.season = season;
+    }
+
+    /** The term a date falls in: Jan-May spring, Jun-Jul summer, Aug-Dec fall. */
+    public static Term containing(LocalDate date) {
+        int month = date.getMonthValue();
+        Season season = month <= 5 ? Season.SPRING : month <= 7 ? Season.SUMMER : Season.FALL;
+        return new Term(date.getYear(), season);
+    }
+
+    /** Accepts "2026-FALL", "2026 fall" or "FALL-2026". */
+    public static Term parse(String text) {
+        String[] parts = text.trim().toUpperCase(Locale.ROOT).split("[-\\s]+");
+        if (parts.length == 2) {
+            boolean yearFirst = !parts[0].isEmpty() && Character.isDigit(parts[0].charAt(0));
+            try {
+                int year = Integer.parseInt(yearFirst ? parts[0] : parts[1]);
+                Season season = Season.valueOf(yearFirst ? parts[1] : parts[0]);
+                return new Term(year, season);
+            } catch (IllegalArgumentException e) {
+                // falls through to the message below
+            }
+        }
+        throw new IllegalArgumentException(
+            "Invalid term: " + text + " (expected e.g. 2026-FALL)");
+    }
+
+    public static Term fromCode(int code) {
+        return new Term(code / SEASONS.length, SEASONS[code % SEASONS.length]);
+    }
+
+    /** Consecutive term number: year * 3 + season. */
+    public int getCode() {
+        return year * SEASONS.length + season.ordinal();
+    }
+
+    public Term next() {
+        return fromCode(getCode() + 1);
+    }
+
+    public int getYear() { return year; }
+    public Season getSeason() { return season; }
+
+    @Override
+    public int compareTo(Term other) {
+        return Integer.compare(getCode(), other.getCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Term)) return false;
+        Term other = (Term) obj;
+        return year == other.year && season == other.season;
+    }
+
+    @Override
+    public int hashCode() {
+        return getCode();
+    }
+
+    @Override
+    public String toString() {
+        return year + "-" + season;
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import java.util.BitSet;
+
+/**
+ * A weekly meeting pattern such as "MWF 09:00-10:15".
+ * Days use the registrar letters M T W R F S U (Monday..Sunday).
+ */
+public class TimeSlot {
+
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = (24 * 60) / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+
+    private static final String DAY_CODES = "MTWRFSU";
+
+    private final int dayMask;      // bit 0 = Monday ... bit 6 = Sunday
+    private final int startMinute;  // minutes after midnight
+    private final int endMinute;
+
+    /**
+     * Week divided into 5-minute slots. Two meeting times clash exactly
+     * when their slot sets intersect, which is a handful of word ANDs.
+     */
+    private final BitSet weekSlots;
+
+    public TimeSlot(int dayMask, int startMinute, int endMinute) {
+        if (dayMask <= 0 || dayMask >= (1 << 7)) {
+            throw new IllegalArgumentException("At least one valid meeting day is required");
+        }
+        if (startMinute < 0 || endMinute > 24 * 60 || startMinute >= endMinute) {
+            throw new IllegalArgumentException(
+                "Invalid meeting time range: " + startMinute + "-" + endMinute);
+        }
+        this.dayMask = dayMask;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.weekSlots = buildWeekSlots();
+    }
+
+    public static TimeSlot parse(String text) {
+        String[] parts = text.trim().split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(
+                "Meeting time must look like 'MWF 09:00-10:15', got: " + text);
+        }
+
+        int mask = 0;
+        for (char c : parts[0].toUpperCase().toCharArray()) {
+            int day = DAY_CODES.indexOf(c);
+            if (day < 0) {
+                throw new IllegalArgumentException("Unknown meeting day: " + c);
+            }
+            mask |= 1 << day;
+        }
+
+        String[] range = parts[1].split("-");
+        if (range.length != 2) {
+            throw new IllegalArgumentException("Invalid meeting time range: " + parts[1]);
+        }
+        return new TimeSlot(mask, parseMinutes(range[0]), parseMinutes(range[1]));
+    }
+
+    private static int parseMinutes(String hhmm) {
+        String[] hm = hhmm.split(":");
+        int hours;
+        int minutes;
+        try {
+            hours = Integer.parseInt(hm[0]);
+            minutes = hm.length > 1 ? Integer.parseInt(hm[1]) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid time of day: " + hhmm);
+        }
+        if (hm.length > 2 || hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            throw new IllegalArgumentException("Invalid time of day: " + hhmm);
+        }
+        return hours * 60 + minutes;
+    }
+
+    private BitSet buildWeekSlots() {
+        BitSet slots = new BitSet(SLOTS_PER_WEEK);
+        int firstSlot = startMinute / SLOT_MINUTES;
+        int lastSlot = (endMinute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        for (int day = 0; day < 7; day++) {
+            if ((dayMask & (1 << day)) != 0) {
+                int base = day * SLOTS_PER_DAY;
+                slots.set(base + firstSlot, base + lastSlot);
+            }
+        }
+        return slots;
+    }
+
+    public boolean overlaps(TimeSlot other) {
+        return (dayMask & other.dayMask) != 0
+                && startMinute < other.endMinute
+                && other.startMinute < endMinute;
+    }
+
+    BitSet getWeekSlots() {
+        return weekSlots;
+    }
+
+    public int getDayMask() { return dayMask; }
+    public int getStartMinute() { return startMinute; }
+    public int getEndMinute() { return endMinute; }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int day = 0; day < 7; day++) {
+            if ((dayMask & (1 << day)) != 0) {
+                sb.append(DAY_CODES.charAt(day));
+            }
+        }
+        return sb.append(String.format(" %02d:%02d-%02d:%02d",
+                startMinute / 60, startMinute % 60,
+                endMinute / 60, endMinute % 60)).toString();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof TimeSlot)) return false;
+        TimeSlot other = (TimeSlot) obj;
+        return dayMask == other.dayMask
+                && startMinute == other.startMinute
+                && endMinute == other.endMinute;
+    }
+
+    @Override
+    public int hashCode() {
+        return (dayMask * 31 + startMinute) * 31 + endMinute;
+    }
+}
@@ -0,0 +1,191 @@
+package replication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import manager.FileManager;
+import service.UniversityService;
+
+/**
+ * Read-only replica of a ReplicationPrimary. On connect it replaces its
+ * registry with the primary's snapshot, then applies the mutation log in
+ * sequence order, each record under the service write lock, so local
+ * queries always see a prefix of the primary's history.
+ *
+ * If the connection drops, or a record is missing or cannot be applied,
+ * the follower reconnects and catches up from a fresh snapshot.
+ */
+public class ReplicationFollower {
+
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final UniversityService service;
+    private final FileManager fileManager;
+    private final ReplicationLog log;
+    private final String host;
+    private final int port;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile Socket socket;
+    private volatile long appliedSequence = -1;
+    private volatile long appliedTimestamp;
+    private volatile long primaryCursor = -1;
+    private volatile long snapshotsLoaded;
+    private volatile long recordsApplied;
+
+    public ReplicationFollower(UniversityService service, FileManager fileManager,
+                               String host, int port) {
+        this.service = service;
+        this.fileManager = fileManager;
+        this.log = new ReplicationLog(fileManager);
+        this.host = host;
+        this.port = port;
+        this.thread = new Thread(this::follow, "replication-follower");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Blocks until the follower is stopped. */
+    public void awaitTermination() throws InterruptedException {
+        thread.join();
+    }
+
+    public boolean isConnected() { return connected; }
+    public long getAppliedSequence() { return appliedSequence; }
+    public long getPrimaryCursor() { return primaryCursor; }
+    public long getSnapshotsLoaded() { return snapshotsLoaded; }
+    public long getRecordsApplied() { return recordsApplied; }
+
+    /** Events the primary has published that are not applied here yet. */
+    public long getSequenceLag() {
+        return Math.max(0, primaryCursor - appliedSequence);
+    }
+
+    /**
+     * Age of the newest applied change while behind the primary, or 0
+     * when caught up as of the last heartbeat.
+     */
+    public long getLagMillis() {
+        if (getSequenceLag() == 0) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - appliedTimestamp);
+    }
+
+    public String getStatus() {
+        return "role=follower"
+                + "\nprimary=" + host + ":" + port
+                + "\nconnected=" + connected
+                + "\napplied=" + appliedSequence
+                + "\nprimaryCursor=" + primaryCursor
+                + "\nlagEvents=" + getSequenceLag()
+                + "\nlagMillis=" + getLagMillis()
+                + "\nsnapshots=" + snapshotsLoaded;
+    }
+
+    private void follow() {
+        while (running) {
+            try (Socket s = new Socket(host, port)) {
+                socket = s;
+                s.setTcpNoDelay(true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        s.getInputStream(), StandardCharsets.UTF_8));
+                loadSnapshot(in);
+                connected = true;
+                applyLog(in);
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    System.err.println("WARNING: Replication from " + host + ":" + port
+                            + " interrupted: " + e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void loadSnapshot(BufferedReader in) throws IOException {
+        String header = in.readLine();
+        if (header == null || !header.startsWith("SNAPSHOT ")) {
+            throw new IOException("Expected snapshot from primary, got: " + header);
+        }
+        long cursor = Long.parseLong(header.substring("SNAPSHOT ".length()).trim());
+
+        service.execute(manager -> {
+            manager.clearAllData();
+            try {
+                fileManager.importSnapshot(manager, in);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        appliedSequence = cursor;
+        appliedTimestamp = System.currentTimeMillis();
+        primaryCursor = Math.max(primaryCursor, cursor);
+        snapshotsLoaded++;
+    }
+
+    private void applyLog(BufferedReader in) throws IOException {
+        String line;
+        while (running && (line = in.readLine()) != null) {
+            if (line.startsWith("HEARTBEAT ")) {
+                String[] parts = line.split(" ");
+                primaryCursor = Long.parseLong(parts[1]);
+                continue;
+            }
+            if (!line.startsWith("EVENT ")) {
+                throw new IOException("Unexpected replication line: " + line);
+            }
+
+            String[] parts = line.split(" ", 5);
+            long sequence = Long.parseLong(parts[1]);
+            if (sequence <= appliedSequence) {
+                continue;
+            }
+            if (sequence != appliedSequence + 1) {
+                throw new IOException("Replication gap: expected "
+                        + (appliedSequence + 1) + ", got " + sequence);
+            }
+
+            service.execute(manager -> log.apply(manager, parts[3], parts[4]));
+            appliedSequence = sequence;
+            appliedTimestamp = Long.parseLong(parts[2]);
+            primaryCursor = Math.max(primaryCursor, sequence);
+            recordsApplied++;
+        }
+    }
+}
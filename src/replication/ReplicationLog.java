@@ -0,0 +1,194 @@
+package replication;
+
+import java.util.Collections;
+
+import events.CourseCreatedEvent;
+import events.CourseUpdatedEvent;
+import events.DomainEvent;
+import events.EnrolledEvent;
+import events.GradeUpdatedEvent;
+import events.InstructorAssignedEvent;
+import events.InstructorRegisteredEvent;
+import events.PrerequisiteChangedEvent;
+import events.StudentRegisteredEvent;
+import events.StudentUpdatedEvent;
+import manager.FileManager;
+import manager.RegistrySnapshot;
+import manager.UniversityManager;
+import model.Course;
+import model.Instructor;
+import model.Student;
+
+/**
+ * Text encoding of the mutation log shipped from a primary to its
+ * followers. Registrations reuse the CSV line formats of the data files,
+ * so a record is "TYPE payload" where payload is one CSV line.
+ */
+public class ReplicationLog {
+
+    static final String INSTRUCTOR = "INSTRUCTOR";
+    static final String STUDENT = "STUDENT";
+    static final String COURSE = "COURSE";
+    static final String ASSIGN = "ASSIGN";
+    static final String PREREQ_ADD = "PREREQ_ADD";
+    static final String PREREQ_REMOVE = "PREREQ_REMOVE";
+    static final String ENROLL = "ENROLL";
+    static final String GRADE = "GRADE";
+    static final String NOOP = "NOOP";
+
+    private static final String DELIMITER = ",";
+
+    private final FileManager fileManager;
+
+    public ReplicationLog(FileManager fileManager) {
+        this.fileManager = fileManager;
+    }
+
+    /**
+     * Returns "TYPE payload" for the event. Events a follower has no use
+     * for become NOOP records, so the sequence it sees has no gaps.
+     */
+    public String encode(DomainEvent event) {
+        if (event instanceof StudentRegisteredEvent) {
+            RegistrySnapshot.StudentView student = ((StudentRegisteredEvent) event).getStudent();
+            return STUDENT + " " + fileManager.buildStudentCsvLine(student);
+        }
+        if (event instanceof StudentUpdatedEvent) {
+            RegistrySnapshot.StudentView student = ((StudentUpdatedEvent) event).getStudent();
+            return STUDENT + " " + fileManager.buildStudentCsvLine(student);
+        }
+        if (event instanceof CourseCreatedEvent) {
+            RegistrySnapshot.CourseView course = ((CourseCreatedEvent) event).getCourse();
+            return COURSE + " " + fileManager.buildCourseCsvLine(course);
+        }
+        if (event instanceof CourseUpdatedEvent) {
+            RegistrySnapshot.CourseView course = ((CourseUpdatedEvent) event).getCourse();
+            return COURSE + " " + fileManager.buildCourseCsvLine(course);
+        }
+        if (event instanceof InstructorRegisteredEvent) {
+            RegistrySnapshot.InstructorView instructor =
+                    ((InstructorRegisteredEvent) event).getInstructor();
+            return INSTRUCTOR + " " + fileManager.buildInstructorCsvLine(instructor);
+        }
+        if (event instanceof InstructorAssignedEvent) {
+            InstructorAssignedEvent assigned = (InstructorAssignedEvent) event;
+            String instructorId = assigned.getInstructorId();
+            return ASSIGN + " " + assigned.getCourseId()
+                    + DELIMITER + (instructorId == null ? "" : instructorId);
+        }
+        if (event instanceof PrerequisiteChangedEvent) {
+            PrerequisiteChangedEvent changed = (PrerequisiteChangedEvent) event;
+            return (changed.isAdded() ? PREREQ_ADD : PREREQ_REMOVE) + " "
+                    + changed.getCourseId() + DELIMITER + changed.getPrerequisiteId();
+        }
+        if (event instanceof EnrolledEvent) {
+            EnrolledEvent enrolled = (EnrolledEvent) event;
+            return ENROLL + " " + enrolled.getStudentId()
+                    + DELIMITER + enrolled.getCourseId();
+        }
+        if (event instanceof GradeUpdatedEvent) {
+            GradeUpdatedEvent graded = (GradeUpdatedEvent) event;
+            return GRADE + " " + graded.getStudentId()
+                    + DELIMITER + graded.getCourseId()
+                    + DELIMITER + graded.getGrade();
+        }
+        return NOOP + " -";
+    }
+
+    /**
+     * Replays one record on a follower's manager. The primary already
+     * enforced the business rules, so the *Directly loaders are used.
+     */
+    public void apply(UniversityManager manager, String type, String payload) {
+        switch (type) {
+            case INSTRUCTOR: {
+                Instructor instructor =
+                        fileManager.parseInstructorFromCsv(payload, manager.getDictionary());
+                if (instructor != null) {
+                    manager.addInstructorDirectly(instructor);
+                }
+                break;
+            }
+            case STUDENT: {
+                // New student, or an existing one's whole record.
+                Student student =
+                        fileManager.parseStudentFromCsv(payload, manager.getDictionary());
+                if (student == null) {
+                    break;
+                }
+                if (manager.isStudentIdRegistered(student.getStudentId())) {
+                    manager.updateStudentDirectly(student);
+                } else {
+                    manager.addStudentDirectly(student);
+                }
+                break;
+            }
+            case COURSE: {
+                Course parsed = fileManager.parseCourseFromCsv(payload, manager.getDictionary());
+                if (parsed != null) {
+                    Course course = manager.addCourseDirectly(parsed);
+                    String instructorId = fileManager.parseInstructorIdFromCsv(payload);
+                    if (!instructorId.isEmpty()) {
+                        manager.assignInstructorDirectly(instructorId, course);
+                    }
+                }
+                break;
+            }
+            case ASSIGN: {
+                String[] parts = payload.split(DELIMITER, -1);
+                Course course = requireCourse(manager, parts[0]);
+                if (parts[1].isEmpty()) {
+                    if (course.getInstructor() != null) {
+                        manager.unassignInstructorFromCourse(course.getCourseId());
+                    }
+                } else if (!manager.assignInstructorDirectly(parts[1], course)) {
+                    throw new IllegalArgumentException("Instructor not found with ID: " + parts[1]);
+                }
+                break;
+            }
+            case PREREQ_ADD: {
+                String[] parts = payload.split(DELIMITER);
+                manager.addPrerequisiteDirectly(parts[0], parts[1]);
+                break;
+            }
+            case PREREQ_REMOVE: {
+                String[] parts = payload.split(DELIMITER);
+                manager.removePrerequisite(parts[0], parts[1]);
+                break;
+            }
+            case ENROLL: {
+                String[] parts = payload.split(DELIMITER);
+                Student student = requireStudent(manager, parts[0]);
+                Course course = requireCourse(manager, parts[1]);
+                if (!student.isEnrolledIn(course)) {
+                    manager.addEnrollmentDirectly(student, course, 0.0);
+                }
+                break;
+            }
+            case GRADE: {
+                String[] parts = payload.split(DELIMITER);
+                Student student = requireStudent(manager, parts[0]);
+                Course course = requireCourse(manager, parts[1]);
+                manager.applyGradeBatch(student,
+                        Collections.singletonMap(course, Double.parseDouble(parts[2])));
+                break;
+            }
+            case NOOP:
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown replication record: " + type);
+        }
+    }
+
+    private static Student requireStudent(UniversityManager manager, String studentId) {
+        return manager.findStudentById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Student not found with ID: " + studentId));
+    }
+
+    private static Course requireCourse(UniversityManager manager, String courseId) {
+        return manager.findCourseById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                    "Course not found with ID: " + courseId));
+    }
+}
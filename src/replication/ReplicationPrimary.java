@@ -0,0 +1,262 @@
+package replication;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import events.DomainEvent;
+import events.EventBus;
+import events.EventSubscriber;
+import manager.FileManager;
+import manager.RegistrySnapshot;
+import service.UniversityService;
+
+/**
+ * Streams the primary's mutation log to follower processes over a
+ * loopback TCP socket.
+ *
+ * A new follower first receives a snapshot of every table. The read lock
+ * is held only to pick up the current RegistrySnapshot, the log cursor
+ * and the event-bus subscription together, so the log the follower
+ * receives afterwards starts exactly where the snapshot ends; the
+ * snapshot itself is streamed outside the lock, while events wait for it.
+ * The connection is one-way text:
+ *
+ * <pre>
+ *   SNAPSHOT cursor        followed by the FileManager snapshot stream
+ *   EVENT seq millis TYPE payload
+ *   HEARTBEAT cursor millis
+ * </pre>
+ *
+ * Each follower is an EventBus subscriber, so a follower that stops
+ * reading eventually back-pressures writers on the primary; a follower
+ * whose socket fails, or whose batch cannot be encoded, is dropped and
+ * reconnects from a snapshot rather than missing events.
+ */
+public class ReplicationPrimary {
+
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 500;
+
+    private final UniversityService service;
+    private final ServerSocket serverSocket;
+    private final FileManager fileManager;
+    private final ReplicationLog log;
+    private final List<FollowerLink> followers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService heartbeats;
+    private final AtomicInteger followerCount = new AtomicInteger();
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    public ReplicationPrimary(UniversityService service, FileManager fileManager, int port)
+            throws IOException {
+        this.service = service;
+        this.fileManager = fileManager;
+        this.log = new ReplicationLog(fileManager);
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replication-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        this.acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        this.acceptor.setDaemon(true);
+    }
+
+    public void start() {
+        acceptor.start();
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats,
+                HEARTBEAT_INTERVAL_MILLIS, HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.println("Replication primary listening on localhost:" + getPort());
+    }
+
+    public void stop() {
+        running = false;
+        heartbeats.shutdownNow();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        for (FollowerLink follower : followers) {
+            follower.close();
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    /** One line per connected follower: name and events not yet sent. */
+    public String getStatus() {
+        StringBuilder sb = new StringBuilder("role=primary\nfollowers=" + followers.size());
+        for (FollowerLink follower : followers) {
+            sb.append('\n').append(follower.name).append(" lag=")
+              .append(follower.subscription.getLag());
+        }
+        return sb.toString();
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                attach(socket);
+            } catch (IOException | UncheckedIOException e) {
+                if (running) {
+                    System.err.println("WARNING: Replica connection failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void attach(Socket socket) throws IOException {
+        String name = "replica-" + followerCount.incrementAndGet();
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(
+                socket.getOutputStream(), StandardCharsets.UTF_8));
+        FollowerLink follower = new FollowerLink(name, socket, out);
+
+        // No writer can publish while the read lock is held, so the
+        // snapshot and the subscription start at the same cursor.
+        RegistrySnapshot[] snapshot = new RegistrySnapshot[1];
+        long[] cursor = new long[1];
+        service.read(manager -> {
+            EventBus bus = manager.getEventBus();
+            snapshot[0] = manager.snapshot();
+            cursor[0] = bus.getCursor();
+            follower.subscription = bus.subscribe(name, follower);
+        });
+        try {
+            out.write("SNAPSHOT " + cursor[0]);
+            out.newLine();
+            fileManager.exportSnapshot(snapshot[0], out);
+        } catch (IOException e) {
+            follower.close();
+            throw e;
+        }
+        follower.snapshotSent.countDown();
+        followers.add(follower);
+        System.out.println("Replica " + name + " connected from "
+                + socket.getRemoteSocketAddress());
+    }
+
+    private void sendHeartbeats() {
+        long cursor = service.getManager().getEventBus().getCursor();
+        for (FollowerLink follower : followers) {
+            follower.send("HEARTBEAT " + cursor + " " + System.currentTimeMillis() + "\n");
+        }
+    }
+
+    private class FollowerLink implements EventSubscriber {
+
+        private final String name;
+        private final Socket socket;
+        private final BufferedWriter out;
+        private volatile EventBus.Subscription subscription;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        /** Events queue behind the subscription until the snapshot is out. */
+        private final CountDownLatch snapshotSent = new CountDownLatch(1);
+
+        FollowerLink(String name, Socket socket, BufferedWriter out) {
+            this.name = name;
+            this.socket = socket;
+            this.out = out;
+        }
+
+        /**
+         * A batch is sent whole or the link fails: the bus would log a
+         * subscriber exception and move on, leaving a gap in the
+         * follower's log, so an encoding failure closes the connection
+         * instead and the follower resyncs from a fresh snapshot.
+         */
+        @Override
+        public void onEvents(List<DomainEvent> batch) {
+            try {
+                snapshotSent.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return;
+            }
+            if (closed.get()) {
+                return;
+            }
+            StringBuilder lines = new StringBuilder();
+            try {
+                for (DomainEvent event : batch) {
+                    lines.append("EVENT ").append(event.getSequence())
+                         .append(' ').append(event.getTimestamp())
+                         .append(' ').append(log.encode(event)).append('\n');
+                }
+            } catch (RuntimeException e) {
+                System.err.println("WARNING: Replica " + name
+                        + " dropped; could not encode the event log: " + e);
+                close();
+                return;
+            }
+            send(lines.toString());
+        }
+
+        /**
+         * Writes whole lines; the subscriber and heartbeat threads share
+         * the stream. A failed follower is dropped outside the monitor,
+         * because closing waits for the subscriber thread.
+         */
+        void send(String lines) {
+            if (closed.get()) {
+                return;
+            }
+            IOException failure = null;
+            synchronized (this) {
+                try {
+                    out.write(lines);
+                    out.flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                drop(failure);
+            }
+        }
+
+        private void drop(IOException cause) {
+            System.err.println("WARNING: Replica " + name + " disconnected: "
+                    + cause.getMessage());
+            close();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            followers.remove(this);
+            snapshotSent.countDown();
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed
+            }
+            if (subscription != null) {
+                subscription.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package report;
+
+import java.io.IOException;
+import java.util.List;
+
+import manager.RegistrySnapshot;
+import manager.RegistrySnapshot.CourseView;
+import manager.RegistrySnapshot.StudentView;
+import model.StudentRecord;
+
+/**
+ * The registry listings as TableRenderer tables. Column widths and
+ * separators copy the printf patterns the menu used, so PLAIN output is
+ * unchanged; CSV and JSON_LINES carry the same columns as data.
+ *
+ * Every method reads immutable views, so callers render outside the
+ * registry lock and a slow console or a paused pager blocks no writer.
+ */
+public final class RegistryReports {
+
+    private static final String RULE = "─".repeat(80);
+    private static final String BOX_RULE = "  ─────────────────────────────────────────────────";
+
+    private RegistryReports() {
+    }
+
+    public static TableRenderer studentTable(Appendable out, ReportFormat format) {
+        return new TableRenderer(out, format)
+                .column("ID", 12)
+                .column("Name", 25)
+                .column("Department", 20)
+                .column("Type", 15)
+                .column("GPA", 0);
+    }
+
+    /** Header, rule and one row per student, in registration order. */
+    public static int writeStudents(TableRenderer table, RegistrySnapshot snapshot) throws IOException {
+        table.writeHeader().line(RULE);
+        for (int i = 0; i < snapshot.getStudentCount(); i++) {
+            StudentView s = snapshot.getStudent(i);
+            boolean more = table.text(s.getStudentId()).text(s.getName())
+                    .text(s.getDepartment()).text(s.getStudentType())
+                    .decimal(s.getGpa())
+                    .endRow();
+            if (!more) {
+                break;
+            }
+        }
+        table.flush();
+        return table.getRowCount();
+    }
+
+    public static TableRenderer courseTable(Appendable out, ReportFormat format) {
+        return new TableRenderer(out, format)
+                .column("ID", 10)
+                .column("Name", 30)
+                .column("Department", 20)
+                .column("Credits", 8)
+                .column("Enrollment", 0);
+    }
+
+    /** Takes any Iterable, so a paged stream is never collected first. */
+    public static int writeCourses(TableRenderer table, Iterable<CourseView> courses) throws IOException {
+        table.writeHeader().line(RULE);
+        for (CourseView c : courses) {
+            boolean more = table.text(c.getCourseId()).text(c.getCourseName())
+                    .text(c.getDepartment()).number(c.getCredits())
+                    .text(c.getCurrentEnrollment() + "/" + c.getMaxCapacity())
+                    .endRow();
+            if (!more) {
+                break;
+            }
+        }
+        table.flush();
+        return table.getRowCount();
+    }
+
+    public static TableRenderer deansListTable(Appendable out, ReportFormat format) {
+        return new TableRenderer(out, format)
+                .indent("  ")
+                .column("#", 5)
+                .column("ID", 12)
+                .column("Name", 25)
+                .column("Department", 20)
+                .column("GPA", 0);
+    }
+
+    /**
+     * Students already ranked, e.g. by RegistrySnapshot.getDeansList;
+     * snapshot views and off-heap store views alike.
+     */
+    public static int writeDeansList(TableRenderer table, List<? extends StudentRecord> ranked)
+            throws IOException {
+        table.writeHeader().line(BOX_RULE);
+        for (int i = 0; i < ranked.size(); i++) {
+            StudentRecord s = ranked.get(i);
+            boolean more = table.number(i + 1).text(s.getStudentId()).text(s.getName())
+                    .text(s.getDepartment()).decimal(s.getGpa())
+                    .endRow();
+            if (!more) {
+                break;
+            }
+        }
+        table.flush();
+        return table.getRowCount();
+    }
+
+    /** Rows read "  1. [S001] Name | Department | GPA: 3.50" in PLAIN format. */
+    public static TableRenderer rosterTable(Appendable out, ReportFormat format) {
+        return new TableRenderer(out, format)
+                .indent("  ")
+                .column("#", 0, "")
+                .column("ID", 0, ". [")
+                .column("Name", 0, "] ")
+                .column("Department", 0, " | ")
+                .column("GPA", 0, " | GPA: ");
+    }
+
+    /** The console roster has no header line; CSV still gets one. */
+    public static int writeRoster(TableRenderer table, List<StudentView> roster) throws IOException {
+        if (table.getFormat() != ReportFormat.PLAIN) {
+            table.writeHeader();
+        }
+        for (int i = 0; i < roster.size(); i++) {
+            StudentView s = roster.get(i);
+            boolean more = table.number(i + 1).text(s.getStudentId()).text(s.getName())
+                    .text(s.getDepartment()).decimal(s.getGpa())
+                    .endRow();
+            if (!more) {
+                break;
+            }
+        }
+        table.flush();
+        return table.getRowCount();
+    }
+}
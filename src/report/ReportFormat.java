@@ -0,0 +1,31 @@
+package report;
+
+import java.util.Locale;
+
+/** Output styles a TableRenderer can produce. */
+public enum ReportFormat {
+    /** Fixed-width columns, as shown in the console menu. */
+    PLAIN,
+    /** Comma-separated with a header row; fields quoted when needed. */
+    CSV,
+    /** One JSON object per row, keyed by column header. */
+    JSON_LINES;
+
+    /** Accepts "plain", "csv", "json", "jsonl" or "json-lines", in any case. */
+    public static ReportFormat parse(String text) {
+        switch (text.trim().toLowerCase(Locale.ROOT)) {
+            case "plain":
+            case "text":
+                return PLAIN;
+            case "csv":
+                return CSV;
+            case "json":
+            case "jsonl":
+            case "json-lines":
+                return JSON_LINES;
+            default:
+                throw new IllegalArgumentException("Unknown report format: " + text
+                        + " (use plain, csv or jsonl)");
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package report;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams table rows into one reusable buffer and hands it to the output
+ * in large blocks, instead of a printf (and often a flush) per row.
+ *
+ * In PLAIN format each column is written as its separator followed by
+ * the value, left-aligned and padded to the column width, so the text is
+ * the same as printf("%-12s %-25s ... %.2f%n"). Decimals use a fast
+ * two-place formatter that falls back to String.format for values where
+ * rounding would be a close call. CSV and JSON_LINES write the same
+ * cells as data, keyed by column header.
+ *
+ * A renderer is used by one thread: define columns, optionally write a
+ * header, then for each row call the cell methods in column order and
+ * finish with endRow. Call flush when done.
+ */
+public class TableRenderer {
+
+    /** Asked after every full page of PLAIN output; false stops the listing. */
+    public interface Pager {
+        boolean showNextPage(int rowsShown);
+    }
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final char DECIMAL_SEPARATOR;
+    private static final boolean ASCII_DIGITS;
+
+    static {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(
+                Locale.getDefault(Locale.Category.FORMAT));
+        DECIMAL_SEPARATOR = symbols.getDecimalSeparator();
+        ASCII_DIGITS = symbols.getZeroDigit() == '0';
+    }
+
+    private static class Column {
+        private final String header;
+        private final int width;
+        private final String separator;
+        private final String jsonKey;
+
+        Column(String header, int width, String separator) {
+            this.header = header;
+            this.width = width;
+            this.separator = separator;
+            this.jsonKey = "\"" + escapeJson(header) + "\":";
+        }
+    }
+
+    private final Appendable out;
+    private final ReportFormat format;
+    private final List<Column> columns = new ArrayList<>();
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 4096);
+    private String indent = "";
+    private int pageSize;
+    private Pager pager;
+    private int cell;
+    private int rowCount;
+
+    public TableRenderer(Appendable out, ReportFormat format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /** Text written before every PLAIN line, e.g. two spaces inside a box. */
+    public TableRenderer indent(String indent) {
+        this.indent = indent;
+        return this;
+    }
+
+    /** A column separated from the previous one by a single space. */
+    public TableRenderer column(String header, int width) {
+        return column(header, width, columns.isEmpty() ? "" : " ");
+    }
+
+    /**
+     * A column with its own PLAIN separator, such as " | ". Width 0 means
+     * no padding, as for the last column of a printf pattern.
+     */
+    public TableRenderer column(String header, int width, String separator) {
+        columns.add(new Column(header, width, separator));
+        return this;
+    }
+
+    /** Pauses every pageSize rows of PLAIN output; 0 turns paging off. */
+    public TableRenderer paging(int pageSize, Pager pager) {
+        this.pageSize = pageSize;
+        this.pager = pager;
+        return this;
+    }
+
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** PLAIN: the column headers padded like the rows. CSV: the header row. */
+    public TableRenderer writeHeader() {
+        if (format == ReportFormat.JSON_LINES) {
+            return this;
+        }
+        buffer.append(format == ReportFormat.PLAIN ? indent : "");
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if (format == ReportFormat.PLAIN) {
+                buffer.append(column.separator);
+                int start = buffer.length();
+                buffer.append(column.header);
+                pad(column.width - (buffer.length() - start));
+            } else {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                appendCsv(column.header);
+            }
+        }
+        buffer.append(NEWLINE);
+        return this;
+    }
+
+    /** A line of decoration (rules, titles); written only in PLAIN format. */
+    public TableRenderer line(String text) {
+        if (format == ReportFormat.PLAIN) {
+            buffer.append(text).append(NEWLINE);
+        }
+        return this;
+    }
+
+    public TableRenderer text(String value) {
+        Column column = startCell();
+        int start = buffer.length();
+        switch (format) {
+            case PLAIN:
+                buffer.append(value);
+                pad(column.width - (buffer.length() - start));
+                break;
+            case CSV:
+                appendCsv(value);
+                break;
+            default:
+                if (value == null) {
+                    buffer.append("null");
+                } else {
+                    buffer.append('"').append(escapeJson(value)).append('"');
+                }
+                break;
+        }
+        return this;
+    }
+
+    public TableRenderer number(long value) {
+        Column column = startCell();
+        int start = buffer.length();
+        buffer.append(value);
+        if (format == ReportFormat.PLAIN) {
+            pad(column.width - (buffer.length() - start));
+        }
+        return this;
+    }
+
+    /** Two decimal places, exactly as %.2f would print them. */
+    public TableRenderer decimal(double value) {
+        Column column = startCell();
+        int start = buffer.length();
+        appendTwoPlaces(buffer, value);
+        if (format == ReportFormat.PLAIN) {
+            pad(column.width - (buffer.length() - start));
+        }
+        return this;
+    }
+
+    /**
+     * Ends the row. Returns false once the pager has asked to stop, so
+     * the caller can leave its loop.
+     */
+    public boolean endRow() throws IOException {
+        if (cell != columns.size()) {
+            throw new IllegalStateException(
+                "Row has " + cell + " cells but the table has " + columns.size() + " columns");
+        }
+        buffer.append(format == ReportFormat.JSON_LINES ? "}" : "").append(NEWLINE);
+        cell = 0;
+        rowCount++;
+
+        if (pager != null && pageSize > 0 && format == ReportFormat.PLAIN
+                && rowCount % pageSize == 0) {
+            flush();
+            return pager.showNextPage(rowCount);
+        }
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            writeBuffer();
+        }
+        return true;
+    }
+
+    /** Writes out whatever is buffered and flushes the output. */
+    public void flush() throws IOException {
+        writeBuffer();
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (buffer.length() > 0) {
+            out.append(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    private Column startCell() {
+        if (cell >= columns.size()) {
+            throw new IllegalStateException("More cells than the " + columns.size() + " columns");
+        }
+        Column column = columns.get(cell);
+        switch (format) {
+            case PLAIN:
+                buffer.append(cell == 0 ? indent : "").append(column.separator);
+                break;
+            case CSV:
+                buffer.append(cell == 0 ? "" : ",");
+                break;
+            default:
+                buffer.append(cell == 0 ? '{' : ',').append(column.jsonKey);
+                break;
+        }
+        cell++;
+        return column;
+    }
+
+    private void pad(int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.append(' ');
+        }
+    }
+
+    private void appendCsv(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            buffer.append(c);
+            if (c == '"') {
+                buffer.append('"');
+            }
+        }
+        buffer.append('"');
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            switch (c) {
+                case '"':  sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n");  break;
+                case '\r': sb.append("\\r");  break;
+                case '\t': sb.append("\\t");  break;
+                default:   sb.append(String.format("\\u%04x", (int) c)); break;
+            }
+        }
+        return sb == null ? value : sb.toString();
+    }
+
+    /**
+     * Same text as String.format("%.2f", value). Formatter rounds the
+     * shortest decimal form half-up; rounding value * 100 agrees with it
+     * unless the third decimal sits right on a 5, so only those values
+     * (and negative, huge or non-finite ones) take the slow path.
+     */
+    static void appendTwoPlaces(StringBuilder sb, double value) {
+        if (ASCII_DIGITS && Double.doubleToRawLongBits(value) >= 0 && value < 1e9) {
+            double scaled = value * 100;
+            double fraction = scaled - Math.floor(scaled);
+            if (Math.abs(fraction - 0.5) > 1e-6) {
+                long cents = Math.round(scaled);
+                int rest = (int) (cents % 100);
+                sb.append(cents / 100).append(DECIMAL_SEPARATOR);
+                if (rest < 10) {
+                    sb.append('0');
+                }
+                sb.append(rest);
+                return;
+            }
+        }
+        sb.append(String.format("%.2f", value));
+    }
+}
@@ -0,0 +1,355 @@
+package service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import manager.EnrollmentResult;
+
+/**
+ * Admission layer in front of enrollment for registration-day bursts.
+ *
+ * Each client has a token bucket; a client over its rate is turned away
+ * at once. Admitted requests join a bounded queue for their course, and
+ * a full queue is also turned away at once, so overload costs a quick
+ * rejection instead of a slow answer for everyone. One dispatcher
+ * thread takes the course queues round-robin, so a hot course cannot
+ * starve the others, and runs everything queued for a course (up to a
+ * batch limit) under a single write-lock hold. A request still queued
+ * at its deadline is withdrawn and answered at once, even if the write
+ * lock is held up by something else.
+ *
+ * The time from arrival to answer of every admitted request goes into a
+ * histogram; getStatus reports its percentiles against the p99 target,
+ * which is the deadline.
+ */
+public class AdmissionController {
+
+    public static final double DEFAULT_RATE_PER_SECOND = 20;
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+    public static final long DEFAULT_DEADLINE_MILLIS = 250;
+
+    private static final int MAX_BATCH = 64;
+    private static final int MAX_IDLE_CLIENTS = 65_536;
+
+    /** Why a request was turned away before it reached the registry. */
+    public enum Rejection { RATE_LIMITED, QUEUE_FULL, DEADLINE_EXCEEDED }
+
+    /** Either the enrollment's result or the reason it never ran. */
+    public static final class Outcome {
+        private final EnrollmentResult result;
+        private final Rejection rejection;
+
+        private Outcome(EnrollmentResult result, Rejection rejection) {
+            this.result = result;
+            this.rejection = rejection;
+        }
+
+        public boolean isAdmitted() { return rejection == null; }
+        public EnrollmentResult getResult() { return result; }
+        public Rejection getRejection() { return rejection; }
+    }
+
+    private static final class Request {
+        final String studentId;
+        final long arrivedAt;
+        final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+
+        Request(String studentId, long arrivedAt) {
+            this.studentId = studentId;
+            this.arrivedAt = arrivedAt;
+        }
+    }
+
+    private static final class CourseQueue {
+        final String courseId;
+        final ArrayDeque<Request> pending = new ArrayDeque<>();
+        boolean scheduled;  // on the ready list or being dispatched
+
+        CourseQueue(String courseId) {
+            this.courseId = courseId;
+        }
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long refilledAt;
+
+        TokenBucket(double burst, long now) {
+            this.tokens = burst;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryTake(double perNano, double burst, long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * perNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized boolean isIdle(long now, long idleNanos) {
+            return now - refilledAt > idleNanos;
+        }
+    }
+
+    private final UniversityService service;
+    private final double ratePerSecond;
+    private final double burst;
+    private final double tokensPerNano;
+    private final int queueCapacity;
+    private final long deadlineNanos;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CourseQueue> queues = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<CourseQueue> ready = new LinkedBlockingQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder queueFull = new LongAdder();
+    private final LongAdder deadlineExceeded = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    public AdmissionController(UniversityService service) {
+        this(service, DEFAULT_RATE_PER_SECOND, DEFAULT_QUEUE_CAPACITY, DEFAULT_DEADLINE_MILLIS);
+    }
+
+    /**
+     * @param ratePerSecond sustained enrollments per client; bursts of
+     *        twice that are allowed
+     * @param queueCapacity waiting requests per course
+     * @param deadlineMillis longest wait before a request is dropped,
+     *        and the p99 latency target
+     */
+    public AdmissionController(UniversityService service, double ratePerSecond,
+                               int queueCapacity, long deadlineMillis) {
+        if (ratePerSecond <= 0 || queueCapacity < 1 || deadlineMillis < 1) {
+            throw new IllegalArgumentException("Admission limits must be positive, got: "
+                    + ratePerSecond + "/s, " + queueCapacity + " queued, " + deadlineMillis + " ms");
+        }
+        this.service = service;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, 2 * ratePerSecond);
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.queueCapacity = queueCapacity;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.dispatcher = new Thread(this::dispatch, "admission-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Enrolls unless the client is over its rate, the course queue is
+     * full or the request waits past the deadline. Blocks until one of
+     * those is known.
+     */
+    public Outcome enroll(String clientId, String studentId, String courseId)
+            throws InterruptedException {
+        long arrivedAt = System.nanoTime();
+        if (!running) {
+            return new Outcome(null, Rejection.QUEUE_FULL);
+        }
+        if (!bucketFor(clientId, arrivedAt).tryTake(tokensPerNano, burst, arrivedAt)) {
+            rateLimited.increment();
+            return new Outcome(null, Rejection.RATE_LIMITED);
+        }
+
+        CourseQueue queue = queues.computeIfAbsent(courseId, CourseQueue::new);
+        Request request = new Request(studentId, arrivedAt);
+        synchronized (queue) {
+            if (queue.pending.size() >= queueCapacity) {
+                queueFull.increment();
+                return new Outcome(null, Rejection.QUEUE_FULL);
+            }
+            queue.pending.add(request);
+            if (!queue.scheduled) {
+                queue.scheduled = true;
+                ready.add(queue);
+            }
+        }
+
+        try {
+            Outcome outcome;
+            try {
+                outcome = request.outcome.get(deadlineNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Still queued (say, behind a long write-lock hold): give up now.
+                // Already taken by the dispatcher: it is running, so wait for it.
+                synchronized (queue) {
+                    if (queue.pending.remove(request)) {
+                        deadlineExceeded.increment();
+                        return new Outcome(null, Rejection.DEADLINE_EXCEEDED);
+                    }
+                }
+                outcome = request.outcome.get();
+            }
+            if (outcome.isAdmitted()) {
+                latency.record(System.nanoTime() - arrivedAt);
+            }
+            return outcome;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private TokenBucket bucketFor(String clientId, long now) {
+        TokenBucket bucket = buckets.get(clientId);
+        if (bucket == null) {
+            if (buckets.size() >= MAX_IDLE_CLIENTS) {
+                // A bucket that has refilled completely holds no state worth keeping.
+                long idleNanos = (long) (burst / tokensPerNano);
+                buckets.values().removeIf(b -> b.isIdle(now, idleNanos));
+            }
+            bucket = buckets.computeIfAbsent(clientId, id -> new TokenBucket(burst, now));
+        }
+        return bucket;
+    }
+
+    private void dispatch() {
+        while (running) {
+            CourseQueue queue;
+            try {
+                queue = ready.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            List<Request> batch = new ArrayList<>(Math.min(MAX_BATCH, queueCapacity));
+            synchronized (queue) {
+                while (batch.size() < MAX_BATCH && !queue.pending.isEmpty()) {
+                    batch.add(queue.pending.poll());
+                }
+                if (queue.pending.isEmpty()) {
+                    queue.scheduled = false;
+                    // Idle courses keep no queue; a request holding this one still gets dispatched.
+                    queues.remove(queue.courseId, queue);
+                } else {
+                    ready.add(queue);  // back of the line, behind the other courses
+                }
+            }
+            try {
+                run(queue.courseId, batch);
+            } catch (InterruptedException e) {
+                for (Request request : batch) {
+                    request.outcome.complete(new Outcome(null, Rejection.QUEUE_FULL));
+                }
+                break;
+            }
+        }
+        // Whoever is still waiting gets an answer.
+        CourseQueue queue;
+        while ((queue = ready.poll()) != null) {
+            synchronized (queue) {
+                for (Request request : queue.pending) {
+                    request.outcome.complete(new Outcome(null, Rejection.QUEUE_FULL));
+                }
+                queue.pending.clear();
+                queue.scheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Runs a batch in arrival order. If the write lock stays busy past the
+     * oldest request's deadline, the overdue requests are answered and the
+     * rest try again.
+     */
+    private void run(String courseId, List<Request> batch) throws InterruptedException {
+        List<Request> live = batch;
+        List<EnrollmentResult> results = null;
+        while (results == null) {
+            live = withoutOverdue(live);
+            if (live.isEmpty()) {
+                return;
+            }
+            List<String> studentIds = new ArrayList<>(live.size());
+            for (Request request : live) {
+                studentIds.add(request.studentId);
+            }
+            long wait = live.get(0).arrivedAt + deadlineNanos - System.nanoTime();
+            try {
+                results = service.tryEnrollAll(courseId, studentIds,
+                        Math.max(0, wait), TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                for (Request request : live) {
+                    request.outcome.completeExceptionally(e);
+                }
+                return;
+            }
+        }
+        for (int i = 0; i < live.size(); i++) {
+            live.get(i).outcome.complete(new Outcome(results.get(i), null));
+        }
+        admitted.add(live.size());
+        batches.increment();
+        batchedRequests.add(live.size());
+    }
+
+    private List<Request> withoutOverdue(List<Request> requests) {
+        long now = System.nanoTime();
+        List<Request> live = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            if (now - request.arrivedAt > deadlineNanos) {
+                deadlineExceeded.increment();
+                request.outcome.complete(new Outcome(null, Rejection.DEADLINE_EXCEEDED));
+            } else {
+                live.add(request);
+            }
+        }
+        return live;
+    }
+
+    public long getAdmittedCount() { return admitted.sum(); }
+    public long getRateLimitedCount() { return rateLimited.sum(); }
+    public long getQueueFullCount() { return queueFull.sum(); }
+    public long getDeadlineExceededCount() { return deadlineExceeded.sum(); }
+    public LatencyHistogram getLatency() { return latency; }
+
+    public String getStatus() {
+        long batchCount = batches.sum();
+        long p99 = latency.percentileMicros(99);
+        long targetMicros = TimeUnit.NANOSECONDS.toMicros(deadlineNanos);
+        return "rate_per_client=" + ratePerSecond
+                + "\nqueue_capacity=" + queueCapacity
+                + "\nclients=" + buckets.size()
+                + "\nadmitted=" + admitted.sum()
+                + "\nrate_limited=" + rateLimited.sum()
+                + "\nqueue_full=" + queueFull.sum()
+                + "\ndeadline_exceeded=" + deadlineExceeded.sum()
+                + "\nbatches=" + batchCount
+                + "\navg_batch=" + String.format("%.2f",
+                        batchCount == 0 ? 0.0 : (double) batchedRequests.sum() / batchCount)
+                + "\np50_us=" + latency.percentileMicros(50)
+                + "\np99_us=" + p99
+                + "\np999_us=" + latency.percentileMicros(99.9)
+                + "\nmax_us=" + latency.percentileMicros(100)
+                + "\ntarget_p99_us=" + targetMicros
+                + "\nmeets_target=" + (p99 <= targetMicros);
+    }
+}
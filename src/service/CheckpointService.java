@@ -0,0 +1,146 @@
+package service;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import manager.FileManager;
+import manager.RegistrySnapshot;
+
+/**
+ * Saves the registry in the background without pausing writers.
+ *
+ * A checkpoint captures the manager's current RegistrySnapshot, which
+ * is immutable and published only after complete mutations, so taking
+ * it needs no lock and is consistent. The snapshot is then written
+ * through FileManager on the checkpoint thread while mutations carry on
+ * against newer versions.
+ *
+ * A checkpoint runs when the registry has changed and either the
+ * interval has passed since the last one or at least maxDirty
+ * mutations (snapshot versions) have piled up. Either trigger can be
+ * switched off with a value of 0, but not both.
+ */
+public class CheckpointService {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final UniversityService service;
+    private final FileManager fileManager;
+    private final long intervalMillis;
+    private final long maxDirty;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long checkpointedVersion;
+    private volatile long lastCheckpointAt;
+    private volatile long checkpointCount;
+    private volatile long failureCount;
+    private volatile long lastRows;
+    private volatile long lastDurationMillis;
+    private volatile long maxDurationMillis;
+    private volatile long totalDurationMillis;
+    private volatile long lastStallNanos;
+    private volatile long maxStallNanos;
+
+    public CheckpointService(UniversityService service, FileManager fileManager,
+                             long intervalMillis, long maxDirty) {
+        if (intervalMillis < 0 || maxDirty < 0 || (intervalMillis == 0 && maxDirty == 0)) {
+            throw new IllegalArgumentException(
+                "Checkpoint needs a positive interval or dirty limit, got: "
+                + intervalMillis + " ms, " + maxDirty + " changes");
+        }
+        this.service = service;
+        this.fileManager = fileManager;
+        this.intervalMillis = intervalMillis;
+        this.maxDirty = maxDirty;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Starts checking for work; the data already on disk counts as checkpointed. */
+    public void start() {
+        checkpointedVersion = service.snapshot().getVersion();
+        lastCheckpointAt = System.currentTimeMillis();
+        scheduler.scheduleWithFixedDelay(this::poll,
+                POLL_MILLIS, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops scheduling and waits for a running checkpoint to finish. */
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("WARNING: Checkpoint still running at shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void poll() {
+        long dirty = getDirtyCount();
+        if (dirty == 0) {
+            return;
+        }
+        boolean tooDirty = maxDirty > 0 && dirty >= maxDirty;
+        boolean due = intervalMillis > 0
+                && System.currentTimeMillis() - lastCheckpointAt >= intervalMillis;
+        if (tooDirty || due) {
+            checkpoint();
+        }
+    }
+
+    private void checkpoint() {
+        long start = System.nanoTime();
+        // The only step writers could ever wait on; a volatile read today.
+        RegistrySnapshot snapshot = service.snapshot();
+        long stall = System.nanoTime() - start;
+        try {
+            lastRows = fileManager.saveSnapshot(snapshot);
+        } catch (IOException | RuntimeException e) {
+            failureCount++;
+            System.err.println("WARNING: Checkpoint failed: " + e.getMessage());
+            return;
+        } finally {
+            lastCheckpointAt = System.currentTimeMillis();
+        }
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        checkpointedVersion = snapshot.getVersion();
+        checkpointCount++;
+        lastDurationMillis = duration;
+        maxDurationMillis = Math.max(maxDurationMillis, duration);
+        totalDurationMillis += duration;
+        lastStallNanos = stall;
+        maxStallNanos = Math.max(maxStallNanos, stall);
+    }
+
+    /** Mutations published since the last successful checkpoint. */
+    public long getDirtyCount() {
+        return service.snapshot().getVersion() - checkpointedVersion;
+    }
+
+    public long getCheckpointCount() { return checkpointCount; }
+    public long getFailureCount() { return failureCount; }
+    public long getLastDurationMillis() { return lastDurationMillis; }
+    public long getMaxDurationMillis() { return maxDurationMillis; }
+    public long getLastStallNanos() { return lastStallNanos; }
+    public long getMaxStallNanos() { return maxStallNanos; }
+
+    public String getStatus() {
+        long count = checkpointCount;
+        return "checkpoints=" + count
+                + "\nfailures=" + failureCount
+                + "\ndirty=" + getDirtyCount()
+                + "\nlast_rows=" + lastRows
+                + "\nlast_ms=" + lastDurationMillis
+                + "\nmax_ms=" + maxDurationMillis
+                + "\navg_ms=" + (count == 0 ? 0 : totalDurationMillis / count)
+                + "\nlast_stall_us=" + TimeUnit.NANOSECONDS.toMicros(lastStallNanos)
+                + "\nmax_stall_us=" + TimeUnit.NANOSECONDS.toMicros(maxStallNanos);
+    }
+}
@@ -0,0 +1,540 @@
+package service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import exceptions.CourseFullException;
+import exceptions.PrerequisiteNotMetException;
+import exceptions.ScheduleConflictException;
+import exceptions.StudentAlreadyEnrolledException;
+import manager.CoEnrollmentMatrix;
+import manager.EnrollmentResult;
+import manager.GradeHistory;
+import manager.GradeUpdateResult;
+import manager.RegistrySnapshot;
+import manager.StudentQuery;
+import model.Course;
+import model.GradeStatistics;
+import model.Student;
+import model.Term;
+import model.TimeSlot;
+
+/**
+ * Local request/response API over the JDK HttpServer. Each request is a
+ * command with form or query-string parameters and gets a plain-text
+ * reply whose first line is "OK" or "ERROR". Requests run concurrently
+ * on a worker pool; UniversityService serializes the mutations.
+ *
+ * <pre>
+ *   POST /register  type=UNDERGRAD|GRAD name email age department
+ *                   yearLevel major | researchTopic advisor thesis
+ *   POST /course    courseId name department credits capacity instructor [schedule]
+ *   POST /enroll    studentId courseId
+ *   POST /grade     studentId courseId grade
+ *   GET  /query     what=student|course|students|deans-list|departments|stats
+ *                   |replication|checkpoint|identity-index [id] [after limit]
+ *   GET  /query     what=search [department type minGpa maxGpa course
+ *                   courseDepartment thesis yearLevel limit explain]
+ *   GET  /query     what=transcript id | what=gpa-as-of id term
+ *   GET  /query     what=affinity [id] [k] | what=admission
+ * </pre>
+ *
+ * Enrollments go through an AdmissionController: each caller's address
+ * is rate limited and each course has a bounded queue, so an overloaded
+ * server answers 429 or 503 at once. The rate key is never taken from
+ * the request, so a client cannot reset its limit by renaming itself.
+ *
+ * A server in front of a read-only replica rejects the mutating commands.
+ */
+public class CommandServer {
+
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int NOT_FOUND = 404;
+    private static final int CONFLICT = 409;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final int UNAVAILABLE = 503;
+
+    /** Set from the connection on every request, overwriting any sent value. */
+    private static final String CLIENT_PARAM = "remoteAddress";
+
+    private final UniversityService service;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final boolean readOnly;
+    private volatile Supplier<String> replicationStatus = () -> "role=standalone";
+    private volatile Supplier<String> checkpointStatus = () -> "checkpoints=off";
+    private volatile Supplier<String> dataWatchStatus = () -> "data_watch=off";
+    private volatile AdmissionController admission;
+
+    public CommandServer(UniversityService service, int port) throws IOException {
+        this(service, port, false);
+    }
+
+    public CommandServer(UniversityService service, int port, boolean readOnly)
+            throws IOException {
+        // Replies are tiny; without TCP_NODELAY each one waits on the
+        // client's delayed ACK (~40ms). Must be set before the first server.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.service = service;
+        this.readOnly = readOnly;
+        this.admission = new AdmissionController(service);
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "command-worker-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(workers);
+
+        server.createContext("/register", exchange -> handle(exchange, mutation(this::register)));
+        server.createContext("/course", exchange -> handle(exchange, mutation(this::createCourse)));
+        server.createContext("/enroll", exchange -> handle(exchange, mutation(this::enroll)));
+        server.createContext("/grade", exchange -> handle(exchange, mutation(this::grade)));
+        server.createContext("/query", exchange -> handle(exchange, this::query));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Command server listening on http://localhost:" + getPort());
+    }
+
+    public void stop() {
+        server.stop(1);
+        admission.stop();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /** Source of the text returned by /query?what=replication. */
+    public void setReplicationStatus(Supplier<String> replicationStatus) {
+        this.replicationStatus = replicationStatus;
+    }
+
+    /** Replaces the default enrollment limits; stops the old controller. */
+    public void setAdmissionController(AdmissionController admission) {
+        AdmissionController old = this.admission;
+        this.admission = admission;
+        old.stop();
+    }
+
+    /** Source of the text returned by /query?what=checkpoint. */
+    public void setCheckpointStatus(Supplier<String> checkpointStatus) {
+        this.checkpointStatus = checkpointStatus;
+    }
+
+    public void setDataWatchStatus(Supplier<String> dataWatchStatus) {
+        this.dataWatchStatus = dataWatchStatus;
+    }
+
+    private interface Command {
+        Response run(Map<String, String> params) throws Exception;
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private Command mutation(Command command) {
+        if (!readOnly) {
+            return command;
+        }
+        return params -> error(CONFLICT, "Read-only replica; send changes to the primary");
+    }
+
+    private static Response ok(String body) {
+        return new Response(OK, "OK\n" + body + "\n");
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, "ERROR\n" + message + "\n");
+    }
+
+    private void handle(HttpExchange exchange, Command command) throws IOException {
+        Response response;
+        try {
+            Map<String, String> params = readParams(exchange);
+            params.put(CLIENT_PARAM, exchange.getRemoteAddress().getAddress().getHostAddress());
+            response = command.run(params);
+        } catch (CourseFullException | StudentAlreadyEnrolledException
+                 | ScheduleConflictException | PrerequisiteNotMetException e) {
+            response = error(CONFLICT, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            response = error(SERVER_ERROR, e.toString());
+        }
+
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        if (response.status == TOO_MANY_REQUESTS || response.status == UNAVAILABLE) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        try (InputStream in = exchange.getRequestBody()) {
+            parseForm(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value.trim();
+    }
+
+    private static int requiredInt(Map<String, String> params, String name) {
+        try {
+            return Integer.parseInt(required(params, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number");
+        }
+    }
+
+    private static double requiredDouble(Map<String, String> params, String name) {
+        try {
+            return Double.parseDouble(required(params, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " must be a number");
+        }
+    }
+
+    private Response register(Map<String, String> params) {
+        String type = required(params, "type").toUpperCase();
+        String name = required(params, "name");
+        String email = required(params, "email");
+        int age = requiredInt(params, "age");
+        String department = required(params, "department");
+
+        Student student;
+        if (type.equals("UNDERGRAD")) {
+            student = service.registerUndergraduateStudent(name, email, age, department,
+                    requiredInt(params, "yearLevel"), required(params, "major"));
+        } else if (type.equals("GRAD")) {
+            student = service.registerGraduateStudent(name, email, age, department,
+                    required(params, "researchTopic"), required(params, "advisor"),
+                    Boolean.parseBoolean(params.getOrDefault("thesis", "false")));
+        } else {
+            throw new IllegalArgumentException("type must be UNDERGRAD or GRAD");
+        }
+        return ok(student.getStudentId());
+    }
+
+    private Response createCourse(Map<String, String> params) {
+        String schedule = params.getOrDefault("schedule", "TBA").trim();
+        TimeSlot meetingTime = schedule.equalsIgnoreCase("TBA")
+                ? null : TimeSlot.parse(schedule);
+
+        Course course = service.createCourse(
+                required(params, "courseId").toUpperCase(),
+                required(params, "name"),
+                required(params, "department"),
+                requiredInt(params, "credits"),
+                requiredInt(params, "capacity"),
+                required(params, "instructor"),
+                meetingTime);
+        return ok(course.getCourseId());
+    }
+
+    private Response enroll(Map<String, String> params) throws InterruptedException {
+        String studentId = required(params, "studentId").toUpperCase();
+        String courseId = required(params, "courseId").toUpperCase();
+        // Rejections are routine during registration, so no exceptions here.
+        AdmissionController.Outcome outcome = admission.enroll(
+                required(params, CLIENT_PARAM), studentId, courseId);
+        if (!outcome.isAdmitted()) {
+            switch (outcome.getRejection()) {
+                case RATE_LIMITED:
+                    return error(TOO_MANY_REQUESTS, "Too many enrollment requests; retry shortly");
+                case QUEUE_FULL:
+                    return error(UNAVAILABLE, courseId + " has too many pending requests; retry shortly");
+                case DEADLINE_EXCEEDED:
+                    return error(UNAVAILABLE, "Request for " + courseId + " timed out in the queue; retry shortly");
+                default:
+                    throw new IllegalStateException("Unhandled rejection: " + outcome.getRejection());
+            }
+        }
+        EnrollmentResult result = outcome.getResult();
+        if (result.isSuccess()) {
+            return ok(studentId + " enrolled in " + courseId);
+        }
+        return error(result.isNotFound() ? BAD_REQUEST : CONFLICT,
+                     result.describe(studentId, courseId));
+    }
+
+    private Response grade(Map<String, String> params) {
+        String studentId = required(params, "studentId").toUpperCase();
+        String courseId = required(params, "courseId").toUpperCase();
+        double grade = requiredDouble(params, "grade");
+        GradeUpdateResult result = service.tryUpdateGrade(studentId, courseId, grade);
+        if (!result.isSuccess()) {
+            return error(BAD_REQUEST, result.describe(studentId, courseId));
+        }
+        return ok(studentId + " " + courseId + " " + grade);
+    }
+
+    private Response query(Map<String, String> params) {
+        String what = required(params, "what").toLowerCase();
+
+        // List reports read the lock-free snapshot; lookups use the read lock.
+        switch (what) {
+            case "students":
+                if (params.containsKey("limit")) {
+                    return ok(toLines(service.pageStudents(
+                            params.get("after"), requiredInt(params, "limit")).stream()));
+                }
+                return ok(toLines(service.snapshot().students()));
+            case "deans-list":
+                return ok(toLines(service.snapshot().getDeansList().stream()));
+            case "replication":
+                return ok(replicationStatus.get());
+            case "checkpoint":
+                return ok(checkpointStatus.get());
+            case "data-watch":
+                return ok(dataWatchStatus.get());
+            case "admission":
+                return ok(admission.getStatus());
+            case "affinity": {
+                int k = params.containsKey("k") ? requiredInt(params, "k") : 10;
+                List<CoEnrollmentMatrix.Affinity> affinities = params.containsKey("id")
+                        ? service.courseAffinities(required(params, "id"), k)
+                        : service.topCoursePairs(k);
+                StringBuilder sb = new StringBuilder();
+                for (CoEnrollmentMatrix.Affinity affinity : affinities) {
+                    sb.append(sb.length() > 0 ? "\n" : "")
+                      .append(affinity.getCourseId()).append(',')
+                      .append(affinity.getOtherCourseId()).append(',')
+                      .append(affinity.getTogether()).append(',')
+                      .append(String.format("%.3f", affinity.getJaccard()));
+                }
+                return ok(sb.toString());
+            }
+            case "grade-stats": {
+                String courseId = required(params, "id").toUpperCase();
+                Optional<GradeStatistics> stats = service.courseGradeStatistics(courseId);
+                if (stats.isEmpty()) {
+                    return error(NOT_FOUND, "Course not found");
+                }
+                StringBuilder sb = new StringBuilder(String.format(
+                        "count=%d%nmean=%.3f%nstd_dev=%.3f", stats.get().getCount(),
+                        stats.get().getMean(), stats.get().getStandardDeviation()));
+                for (int i = 0; i < GradeStatistics.BUCKETS; i++) {
+                    sb.append(String.format("%nbucket_%.1f=%d",
+                            GradeStatistics.bucketLowerBound(i), stats.get().getBucketCount(i)));
+                }
+                return ok(sb.toString());
+            }
+            case "grade-inflation": {
+                StringBuilder sb = new StringBuilder();
+                service.gradeStatisticsByDepartment().forEach((department, stats) ->
+                        sb.append(sb.length() > 0 ? "\n" : "")
+                          .append(department).append(',').append(stats.getCount())
+                          .append(String.format(",%.3f,%.3f,%.3f", stats.getMean(),
+                                  stats.getStandardDeviation(),
+                                  stats.getShareFromBucket(GradeStatistics.BUCKETS - 1))));
+                return ok(sb.toString());
+            }
+            case "open-seats": {
+                int min = params.containsKey("min") ? requiredInt(params, "min") : 1;
+                int limit = params.containsKey("limit") ? requiredInt(params, "limit") : 20;
+                StringBuilder sb = new StringBuilder();
+                for (RegistrySnapshot.CourseView course : service.findCoursesWithOpenSeats(
+                        params.get("department"), min, limit)) {
+                    sb.append(sb.length() > 0 ? "\n" : "")
+                      .append(course.getCourseId()).append(',')
+                      .append(course.getDepartment()).append(',')
+                      .append(course.getOpenSeats()).append(',')
+                      .append(course.getCurrentEnrollment()).append('/')
+                      .append(course.getMaxCapacity());
+                }
+                return ok(sb.toString());
+            }
+            default:
+                break;
+        }
+
+        return service.query(m -> {
+            switch (what) {
+                case "student": {
+                    Optional<Student> student = m.findStudentById(required(params, "id"));
+                    return student.map(s -> ok(s.toString()))
+                            .orElseGet(() -> error(NOT_FOUND, "Student not found"));
+                }
+                case "course": {
+                    Optional<Course> course = m.findCourseById(
+                            required(params, "id").toUpperCase());
+                    if (course.isEmpty()) {
+                        return error(NOT_FOUND, "Course not found");
+                    }
+                    StringBuilder sb = new StringBuilder(course.get().toString());
+                    for (Student s : course.get().getEnrolledStudents()) {
+                        sb.append('\n').append(s.getStudentId()).append(',').append(s.getName());
+                    }
+                    return ok(sb.toString());
+                }
+                case "departments": {
+                    StringBuilder sb = new StringBuilder();
+                    m.getStudentCountsByDepartment().forEach((dept, count) ->
+                            sb.append(sb.length() > 0 ? "\n" : "")
+                              .append(dept).append(',').append(count));
+                    return ok(sb.toString());
+                }
+                case "stats":
+                    return ok("students=" + m.getAllStudents().size()
+                            + "\ncourses=" + m.getAllCourses().size()
+                            + "\ninstructors=" + m.getAllInstructors().size());
+                case "identity-index":
+                    return ok(m.getIdentityIndexStats());
+                case "open-seat-index":
+                    return ok(m.getOpenSeatIndex().getStats());
+                case "transcript":
+                case "gpa-as-of": {
+                    Optional<Student> student = m.findStudentById(required(params, "id"));
+                    if (student.isEmpty()) {
+                        return error(NOT_FOUND, "Student not found");
+                    }
+                    if (what.equals("transcript")) {
+                        StringBuilder sb = new StringBuilder();
+                        for (GradeHistory.Entry entry : m.getTranscript(student.get())) {
+                            sb.append(sb.length() > 0 ? "\n" : "")
+                              .append(entry.getTerm()).append(',').append(entry.getCourseId())
+                              .append(',').append(String.format("%.2f", entry.getGrade()));
+                        }
+                        return ok(sb.toString());
+                    }
+                    Term term = Term.parse(required(params, "term"));
+                    return ok(String.format("term=%s%ntermGpa=%.2f%ncumulativeGpa=%.2f", term,
+                            m.getTermGpa(student.get(), term), m.getGpaAsOf(student.get(), term)));
+                }
+                case "search": {
+                    StudentQuery studentQuery = studentQuery(params);
+                    if (params.containsKey("explain")) {
+                        return ok(m.explainStudentQuery(studentQuery));
+                    }
+                    RegistrySnapshot view = m.snapshot();
+                    return ok(toLines(m.findStudents(studentQuery).stream()
+                            .map(s -> view.getStudent(s.getOrdinal()))));
+                }
+                default:
+                    return error(BAD_REQUEST, "Unknown query: " + what);
+            }
+        });
+    }
+
+    /** Every parameter is optional; the conditions given must all hold. */
+    private static StudentQuery studentQuery(Map<String, String> params) {
+        StudentQuery query = new StudentQuery();
+        if (params.containsKey("department")) {
+            query.department(required(params, "department"));
+        }
+        if (params.containsKey("type")) {
+            String type = required(params, "type").toUpperCase();
+            if (type.startsWith("UNDERGRAD")) {
+                query.undergraduates();
+            } else if (type.startsWith("GRAD")) {
+                query.graduates();
+            } else {
+                throw new IllegalArgumentException("type must be UNDERGRAD or GRAD");
+            }
+        }
+        if (params.containsKey("minGpa")) {
+            query.gpaAtLeast(requiredDouble(params, "minGpa"));
+        }
+        if (params.containsKey("maxGpa")) {
+            query.gpaAtMost(requiredDouble(params, "maxGpa"));
+        }
+        if (params.containsKey("course")) {
+            for (String courseId : required(params, "course").split(",")) {
+                query.enrolledIn(courseId);
+            }
+        }
+        if (params.containsKey("courseDepartment")) {
+            query.enrolledInCourseOf(required(params, "courseDepartment"));
+        }
+        if (params.containsKey("thesis")) {
+            query.thesisTrack(Boolean.parseBoolean(required(params, "thesis")));
+        }
+        if (params.containsKey("yearLevel")) {
+            query.yearLevel(requiredInt(params, "yearLevel"));
+        }
+        if (params.containsKey("limit")) {
+            query.limit(requiredInt(params, "limit"));
+        }
+        return query;
+    }
+
+    private static String toLines(Stream<RegistrySnapshot.StudentView> students) {
+        StringBuilder sb = new StringBuilder();
+        students.forEach(s -> {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(s.getStudentId()).append(',')
+              .append(s.getName()).append(',')
+              .append(s.getDepartment()).append(',')
+              .append(String.format("%.2f", s.getGpa()));
+        });
+        return sb.toString();
+    }
+}
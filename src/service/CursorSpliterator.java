@@ -0,0 +1,112 @@
+package service;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Walks a keyed, ordered source one page at a time, so a stream over the
+ * whole registry never holds more than a page or two in memory and never
+ * holds the registry lock between pages.
+ *
+ * Traversal is weakly consistent, like a ConcurrentSkipListMap iterator:
+ * each page is read atomically, and a record added behind the cursor is
+ * not revisited. trySplit hands the rest of the current page to a new
+ * array spliterator (which splits further), so parallel streams get
+ * page-sized batches while this spliterator moves on to the next page.
+ */
+public class CursorSpliterator<T> implements Spliterator<T> {
+
+    /** Up to limit items whose key sorts after afterKey (null for the first page). */
+    public interface PageSource<T> {
+        List<T> page(String afterKey, int limit);
+    }
+
+    private static final int CHARACTERISTICS = ORDERED | DISTINCT | NONNULL;
+
+    private final PageSource<T> source;
+    private final Function<? super T, String> keyOf;
+    private final int pageSize;
+    private List<T> page = List.of();
+    private int index;
+    private String lastKey;
+    private boolean exhausted;
+    private long estimate;  // items not fetched yet
+
+    /**
+     * @param estimate expected number of items, e.g. the current count;
+     *        only a hint for splitting
+     */
+    public CursorSpliterator(PageSource<T> source, Function<? super T, String> keyOf,
+                             int pageSize, long estimate) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        this.source = source;
+        this.keyOf = keyOf;
+        this.pageSize = pageSize;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (!fill()) {
+            return false;
+        }
+        action.accept(page.get(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (fill()) {
+            for (int end = page.size(); index < end; index++) {
+                action.accept(page.get(index));
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (!fill()) {
+            return null;
+        }
+        Object[] batch = page.subList(index, page.size()).toArray();
+        page = List.of();
+        index = 0;
+        return Spliterators.spliterator(batch, CHARACTERISTICS);
+    }
+
+    @Override
+    public long estimateSize() {
+        return (page.size() - index) + (exhausted ? 0 : estimate);
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /** True if an item is ready at index, fetching the next page if needed. */
+    private boolean fill() {
+        if (index < page.size()) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        page = source.page(lastKey, pageSize);
+        index = 0;
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        if (page.isEmpty()) {
+            return false;
+        }
+        lastKey = keyOf.apply(page.get(page.size() - 1));
+        estimate = Math.max(0, estimate - page.size());
+        return true;
+    }
+}
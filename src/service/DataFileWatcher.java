@@ -0,0 +1,443 @@
+package service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import events.CourseCreatedEvent;
+import events.CourseUpdatedEvent;
+import events.DomainEvent;
+import events.StudentRegisteredEvent;
+import events.StudentUpdatedEvent;
+import manager.FileManager;
+import manager.RegistrySnapshot;
+import manager.UniversityManager;
+import model.Course;
+import model.Student;
+
+/**
+ * Picks up students.csv and courses.csv rewritten by other systems while
+ * the registry runs, and applies only what changed.
+ *
+ * A WatchService reports writes to the data directory; once a file has
+ * been quiet for the settle time it is read and each row is compared, by
+ * ID, with the row last seen for that ID. The baseline starts as the
+ * live registry written out as CSV, so only new and edited rows are
+ * parsed. They are applied a batch at a time under the write lock, so
+ * readers wait for at most one batch.
+ *
+ * An edited row is merged column by column: only the columns the file
+ * changed since the baseline are taken from it, and the rest keep their
+ * live values. A file written from an older copy of the registry can
+ * therefore not undo a later change made here, such as a new instructor
+ * assignment. Files this process saved or checkpointed itself only
+ * become the new baseline and are never applied.
+ *
+ * Students and courses are never removed from a running registry (their
+ * ordinals are dense and snapshot views are never withdrawn), so rows
+ * missing from a file are reported but not applied. Every applied row
+ * is published on the EventBus as a registration or update event, so
+ * replicas follow along.
+ */
+public class DataFileWatcher {
+
+    private static final int BATCH_SIZE = 256;
+    private static final int MAX_SETTLES = 10;
+
+    /** One watched file: how to key its rows and how to apply one. */
+    private abstract class Table {
+        private final String fileName;
+        private final Path path;
+        private Map<String, String> baseline = new HashMap<>();
+
+        Table(String file) {
+            this.path = Paths.get(file);
+            this.fileName = path.getFileName().toString();
+        }
+
+        /** The row's ID column, or null if the row has none. */
+        abstract String keyOf(String line);
+
+        /** The live record as a CSV row, or null if the ID is new. */
+        abstract String liveRow(UniversityManager manager, String key);
+
+        /** Parses outside the lock; null for a row the parser rejected. */
+        abstract Object parse(UniversityManager manager, String line);
+
+        /**
+         * Inserts or updates one parsed row and returns the event that
+         * tells subscribers (e.g. replicas) about it;
+         * IllegalArgumentException rejects the row.
+         */
+        abstract DomainEvent apply(UniversityManager manager, Object parsed, String line);
+
+        void seed(RegistrySnapshot snapshot) {
+            Map<String, String> seeded = new HashMap<>();
+            for (String line : snapshotRows(snapshot)) {
+                seeded.put(keyOf(line), line.trim());
+            }
+            baseline = seeded;
+        }
+
+        abstract List<String> snapshotRows(RegistrySnapshot snapshot);
+    }
+
+    private final UniversityService service;
+    private final FileManager fileManager;
+    private final Path directory;
+    private final long settleMillis;
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private volatile long scans;
+    private volatile long inserted;
+    private volatile long updated;
+    private volatile long unchanged;
+    private volatile long ownWrites;
+    private volatile long rejected;
+    private volatile long missing;
+    private volatile long failures;
+    private volatile long lastScanMillis;
+    private volatile long maxBatchMicros;
+
+    /**
+     * @param settleMillis how long a file must go without writes before
+     *        it is read, so a half-written file is not taken as final
+     */
+    public DataFileWatcher(UniversityService service, FileManager fileManager, long settleMillis)
+            throws IOException {
+        if (settleMillis < 0) {
+            throw new IllegalArgumentException(
+                "Settle time cannot be negative, got: " + settleMillis + " ms");
+        }
+        this.service = service;
+        this.fileManager = fileManager;
+        this.directory = Paths.get(fileManager.getDataDirectory());
+        this.settleMillis = settleMillis;
+        addTable(new StudentTable(fileManager.getStudentsFile()));
+        addTable(new CourseTable(fileManager.getCoursesFile()));
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.thread = new Thread(this::watch, "data-file-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    private void addTable(Table table) {
+        tables.put(table.fileName, table);
+    }
+
+    /** Takes the live registry as the baseline and starts watching. */
+    public void start() throws IOException {
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        RegistrySnapshot snapshot = service.snapshot();
+        for (Table table : tables.values()) {
+            table.seed(snapshot);
+        }
+        thread.start();
+    }
+
+    /** Stops watching and waits for a scan in progress to finish. */
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("WARNING: Could not close the data watcher: " + e.getMessage());
+        }
+        try {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                Set<Table> pending = new LinkedHashSet<>();
+                collect(watchService.take(), pending);
+                // Wait for the writer to go quiet before reading anything, but
+                // not forever: a file rewritten nonstop is read every few settles.
+                long giveUpAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                        MAX_SETTLES * Math.max(1, settleMillis));
+                WatchKey more;
+                while (System.nanoTime() < giveUpAt
+                        && (more = watchService.poll(settleMillis, TimeUnit.MILLISECONDS)) != null) {
+                    collect(more, pending);
+                }
+                for (Table table : pending) {
+                    scan(table);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stop() closed the service
+        }
+    }
+
+    private void collect(WatchKey key, Set<Table> pending) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                pending.addAll(tables.values());
+                continue;
+            }
+            Table table = tables.get(event.context().toString());
+            if (table != null) {
+                pending.add(table);
+            }
+        }
+        key.reset();
+    }
+
+    /** Reads one file, diffs it against the baseline and applies the changes. */
+    private void scan(Table table) {
+        long start = System.nanoTime();
+        boolean ownBefore = fileManager.isOwnWrite(table.path.toString());
+        List<String> rows;
+        try {
+            rows = fileManager.readRows(table.path.toString());
+        } catch (IOException e) {
+            failures++;
+            System.err.println("WARNING: Could not read " + table.fileName + ": " + e.getMessage());
+            return;
+        }
+
+        boolean ownWrite = fileManager.isOwnWrite(table.path.toString());
+        if (ownWrite != ownBefore) {
+            // Replaced while we read it; that write has its own event.
+            return;
+        }
+
+        Map<String, String> seen = new HashMap<>(rows.size() * 4 / 3 + 1);
+        List<String> changed = new ArrayList<>();
+        for (String line : rows) {
+            String key = table.keyOf(line);
+            if (key == null) {
+                rejected++;
+                continue;
+            }
+            String row = line.trim();
+            seen.put(key, row);
+            if (!row.equals(table.baseline.get(key))) {
+                changed.add(row);
+            }
+        }
+
+        if (ownWrite) {
+            ownWrites++;
+            table.baseline = seen;
+            scans++;
+            return;
+        }
+        for (int from = 0; from < changed.size(); from += BATCH_SIZE) {
+            applyBatch(table, changed.subList(from, Math.min(changed.size(), from + BATCH_SIZE)));
+        }
+
+        int gone = 0;
+        String example = null;
+        for (String key : table.baseline.keySet()) {
+            if (!seen.containsKey(key)) {
+                gone++;
+                example = example == null ? key : example;
+            }
+        }
+        if (gone > 0) {
+            missing += gone;
+            System.err.println("WARNING: " + table.fileName + " no longer lists " + gone
+                    + " records (e.g. " + example + "); removals are not applied while running");
+        }
+
+        table.baseline = seen;
+        scans++;
+        lastScanMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void applyBatch(Table table, List<String> lines) {
+        UniversityManager manager = service.getManager();
+        List<Object> parsed = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            parsed.add(table.parse(manager, line));
+        }
+        service.execute(m -> {
+            long start = System.nanoTime();
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                String key = table.keyOf(line);
+                String live = table.liveRow(m, key);
+                String merged = merge(table.baseline.get(key), line, live);
+                if (merged.equals(live)) {
+                    unchanged++;
+                    continue;
+                }
+                Object row = merged.equals(line) ? parsed.get(i) : table.parse(m, merged);
+                if (row == null) {
+                    rejected++;
+                    continue;
+                }
+                try {
+                    m.getEventBus().publish(table.apply(m, row, merged));
+                    if (live == null) {
+                        inserted++;
+                    } else {
+                        updated++;
+                    }
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    System.err.println("WARNING: Skipping " + table.fileName + " row "
+                            + table.keyOf(line) + ": " + e.getMessage());
+                }
+            }
+            maxBatchMicros = Math.max(maxBatchMicros,
+                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * The edited row's changes on top of the live row: a column the edit
+     * left as it was in the baseline takes the live value. A new record,
+     * or a row whose column count changed (e.g. another student type),
+     * is taken as it is.
+     */
+    static String merge(String base, String edited, String live) {
+        if (base == null || live == null) {
+            return edited;
+        }
+        String[] before = base.split(",", -1);
+        String[] after = edited.split(",", -1);
+        String[] current = live.split(",", -1);
+        if (before.length != after.length || after.length != current.length) {
+            return edited;
+        }
+        for (int i = 0; i < after.length; i++) {
+            if (after[i].trim().equals(before[i].trim())) {
+                after[i] = current[i];
+            }
+        }
+        return String.join(",", after);
+    }
+
+    private static String column(String line, int index) {
+        String[] parts = line.split(",", index + 2);
+        if (parts.length <= index || parts[index].trim().isEmpty()) {
+            return null;
+        }
+        return parts[index].trim();
+    }
+
+    private final class StudentTable extends Table {
+
+        StudentTable(String file) {
+            super(file);
+        }
+
+        @Override
+        String keyOf(String line) {
+            String id = column(line, 1);
+            return id == null ? null : id.toUpperCase(Locale.ROOT);
+        }
+
+        @Override
+        String liveRow(UniversityManager manager, String key) {
+            return manager.findStudentById(key).map(fileManager::buildStudentCsvLine).orElse(null);
+        }
+
+        @Override
+        Object parse(UniversityManager manager, String line) {
+            return fileManager.parseStudentFromCsv(line, manager.getDictionary());
+        }
+
+        @Override
+        DomainEvent apply(UniversityManager manager, Object parsed, String line) {
+            Student student = (Student) parsed;
+            if (manager.isStudentIdRegistered(student.getStudentId())) {
+                Student live = manager.updateStudentDirectly(student);
+                return new StudentUpdatedEvent(manager.snapshot().getStudent(live.getOrdinal()));
+            }
+            if (!manager.addStudentDirectly(student)) {
+                throw new IllegalArgumentException("Email already registered: " + student.getEmail());
+            }
+            return new StudentRegisteredEvent(manager.snapshot().getStudent(student.getOrdinal()));
+        }
+
+        @Override
+        List<String> snapshotRows(RegistrySnapshot snapshot) {
+            List<String> lines = new ArrayList<>(snapshot.getStudentCount());
+            for (int i = 0; i < snapshot.getStudentCount(); i++) {
+                lines.add(fileManager.buildStudentCsvLine(snapshot.getStudent(i)));
+            }
+            return lines;
+        }
+    }
+
+    private final class CourseTable extends Table {
+
+        CourseTable(String file) {
+            super(file);
+        }
+
+        @Override
+        String keyOf(String line) {
+            return column(line, 0);
+        }
+
+        @Override
+        String liveRow(UniversityManager manager, String key) {
+            return manager.findCourseById(key).map(fileManager::buildCourseCsvLine).orElse(null);
+        }
+
+        @Override
+        Object parse(UniversityManager manager, String line) {
+            return fileManager.parseCourseFromCsv(line, manager.getDictionary());
+        }
+
+        @Override
+        DomainEvent apply(UniversityManager manager, Object parsed, String line) {
+            boolean known = manager.findCourseById(((Course) parsed).getCourseId()).isPresent();
+            Course course = manager.addCourseDirectly((Course) parsed);
+            String instructorId = fileManager.parseInstructorIdFromCsv(line);
+            if (!instructorId.isEmpty() && !instructorId.equalsIgnoreCase(course.getInstructorId())
+                    && !manager.assignInstructorDirectly(instructorId, course)) {
+                System.err.println("WARNING: Unknown instructor "
+                        + instructorId + " for course " + course.getCourseId());
+            }
+            RegistrySnapshot.CourseView view = manager.snapshot().getCourse(course.getOrdinal());
+            return known ? new CourseUpdatedEvent(view) : new CourseCreatedEvent(view);
+        }
+
+        @Override
+        List<String> snapshotRows(RegistrySnapshot snapshot) {
+            List<String> lines = new ArrayList<>(snapshot.getCourseCount());
+            for (int i = 0; i < snapshot.getCourseCount(); i++) {
+                lines.add(fileManager.buildCourseCsvLine(snapshot.getCourse(i)));
+            }
+            return lines;
+        }
+    }
+
+    public String getStatus() {
+        return "scans=" + scans
+                + "\ninserted=" + inserted
+                + "\nupdated=" + updated
+                + "\nunchanged=" + unchanged
+                + "\nown_writes_skipped=" + ownWrites
+                + "\nrejected=" + rejected
+                + "\nmissing_not_removed=" + missing
+                + "\nread_failures=" + failures
+                + "\nlast_scan_ms=" + lastScanMillis
+                + "\nmax_batch_us=" + maxBatchMicros;
+    }
+}
@@ -0,0 +1,275 @@
+package service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import exceptions.CourseFullException;
+import exceptions.PrerequisiteNotMetException;
+import exceptions.ScheduleConflictException;
+import exceptions.StudentAlreadyEnrolledException;
+import manager.CoEnrollmentMatrix;
+import manager.EnrollmentResult;
+import manager.GradeUpdateResult;
+import manager.RegistrySnapshot;
+import manager.UniversityManager;
+import model.Course;
+import model.GradeStatistics;
+import model.GraduateStudent;
+import model.Instructor;
+import model.Student;
+import model.TimeSlot;
+import model.UndergraduateStudent;
+
+/**
+ * Thread-safe front door to a UniversityManager. The manager itself is
+ * single-threaded, so every mutation runs under one write lock while
+ * queries share a read lock. All clients (the console menu, the
+ * CommandServer, importers) should go through this class.
+ */
+public class UniversityService {
+
+    private final UniversityManager manager;
+    private final ReadWriteLock lock;
+
+    public UniversityService(UniversityManager manager) {
+        this.manager = manager;
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    public UndergraduateStudent registerUndergraduateStudent(
+            String name, String email, int age,
+            String department, int yearLevel, String major) {
+        return update(m -> m.registerUndergraduateStudent(
+                name, email, age, department, yearLevel, major));
+    }
+
+    public GraduateStudent registerGraduateStudent(
+            String name, String email, int age,
+            String department, String researchTopic,
+            String advisor, boolean isThesisTrack) {
+        return update(m -> m.registerGraduateStudent(
+                name, email, age, department, researchTopic, advisor, isThesisTrack));
+    }
+
+    public Instructor registerInstructor(String name, String email, int age,
+                                         String department, String title) {
+        return update(m -> m.registerInstructor(name, email, age, department, title));
+    }
+
+    public Course createCourse(String courseId, String courseName,
+                               String department, int credits, int maxCapacity,
+                               String instructorName, TimeSlot meetingTime) {
+        return update(m -> m.createCourse(courseId, courseName, department,
+                credits, maxCapacity, instructorName, meetingTime));
+    }
+
+    public void enrollStudentInCourse(String studentId, String courseId)
+            throws CourseFullException, StudentAlreadyEnrolledException,
+                   ScheduleConflictException, PrerequisiteNotMetException {
+        lock.writeLock().lock();
+        try {
+            manager.enrollStudentInCourse(studentId, courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Non-throwing enrollment; rejections come back as a result code. */
+    public EnrollmentResult tryEnroll(String studentId, String courseId) {
+        return update(m -> m.tryEnroll(studentId, courseId));
+    }
+
+    /**
+     * Several enrollments in one course, in order, under one write-lock
+     * hold. Waits at most the timeout for the lock and returns null,
+     * having done nothing, if it is not free by then.
+     */
+    public List<EnrollmentResult> tryEnrollAll(String courseId, List<String> studentIds,
+                                               long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (!lock.writeLock().tryLock(timeout, unit)) {
+            return null;
+        }
+        try {
+            List<EnrollmentResult> results = new ArrayList<>(studentIds.size());
+            for (String studentId : studentIds) {
+                results.add(manager.tryEnroll(studentId, courseId));
+            }
+            return results;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateStudentGrade(String studentId, String courseId, double grade) {
+        execute(m -> m.updateStudentGrade(studentId, courseId, grade));
+    }
+
+    public GradeUpdateResult tryUpdateGrade(String studentId, String courseId, double grade) {
+        return update(m -> m.tryUpdateGrade(studentId, courseId, grade));
+    }
+
+    public void assignInstructorToCourse(String instructorId, String courseId) {
+        execute(m -> m.assignInstructorToCourse(instructorId, courseId));
+    }
+
+    public void addPrerequisite(String courseId, String prerequisiteId) {
+        execute(m -> m.addPrerequisite(courseId, prerequisiteId));
+    }
+
+    /**
+     * Latest consistent view of the registry. Needs no lock, so long
+     * reports built from it never hold up writers.
+     */
+    public RegistrySnapshot snapshot() {
+        return manager.snapshot();
+    }
+
+    /**
+     * Up to limit students after the cursor ID, in ID order, as views that
+     * are safe to use once the lock is released. Pass null to start, then
+     * the last ID returned.
+     */
+    public List<RegistrySnapshot.StudentView> pageStudents(String afterId, int limit) {
+        return query(m -> {
+            RegistrySnapshot view = m.snapshot();
+            List<RegistrySnapshot.StudentView> page = new ArrayList<>();
+            for (Student s : m.pageStudents(afterId, limit)) {
+                page.add(view.getStudent(s.getOrdinal()));
+            }
+            return page;
+        });
+    }
+
+    public List<RegistrySnapshot.CourseView> pageCourses(String afterId, int limit) {
+        return query(m -> {
+            RegistrySnapshot view = m.snapshot();
+            List<RegistrySnapshot.CourseView> page = new ArrayList<>();
+            for (Course c : m.pageCourses(afterId, limit)) {
+                page.add(view.getCourse(c.getOrdinal()));
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Courses with at least minSeats open seats, most seats first, from
+     * the open-seat index. A null department searches them all.
+     */
+    public List<RegistrySnapshot.CourseView> findCoursesWithOpenSeats(
+            String department, int minSeats, int limit) {
+        return query(m -> {
+            RegistrySnapshot view = m.snapshot();
+            List<RegistrySnapshot.CourseView> found = new ArrayList<>();
+            for (Course c : m.findCoursesWithOpenSeats(department, minSeats, limit)) {
+                found.add(view.getCourse(c.getOrdinal()));
+            }
+            return found;
+        });
+    }
+
+    /** A copy of the course's running grade statistics; empty if there is no such course. */
+    public Optional<GradeStatistics> courseGradeStatistics(String courseId) {
+        return query(m -> m.findCourseById(courseId).map(c -> c.getGradeStatistics().copy()));
+    }
+
+    /** Grade statistics per department, rolled up from the courses' running totals. */
+    public Map<String, GradeStatistics> gradeStatisticsByDepartment() {
+        return query(UniversityManager::getGradeStatisticsByDepartment);
+    }
+
+    /**
+     * Every student in ID order, fetched pageSize at a time under the
+     * read lock. Works as a parallel stream too; see CursorSpliterator.
+     */
+    public Stream<RegistrySnapshot.StudentView> streamStudents(int pageSize, boolean parallel) {
+        return StreamSupport.stream(new CursorSpliterator<>(this::pageStudents,
+                RegistrySnapshot.StudentView::getStudentId, pageSize,
+                snapshot().getStudentCount()), parallel);
+    }
+
+    public Stream<RegistrySnapshot.CourseView> streamCourses(int pageSize, boolean parallel) {
+        return StreamSupport.stream(new CursorSpliterator<>(this::pageCourses,
+                RegistrySnapshot.CourseView::getCourseId, pageSize,
+                snapshot().getCourseCount()), parallel);
+    }
+
+    /**
+     * The k courses most often taken with this one. The first call builds
+     * the co-enrollment matrix under the write lock; enrollments keep it
+     * current after that, so later calls only take the read lock.
+     */
+    public List<CoEnrollmentMatrix.Affinity> courseAffinities(String courseId, int k) {
+        ensureCoEnrollmentMatrix();
+        return query(m -> m.getCourseAffinities(courseId, k));
+    }
+
+    /** The k course pairs most often taken together; see courseAffinities. */
+    public List<CoEnrollmentMatrix.Affinity> topCoursePairs(int k) {
+        ensureCoEnrollmentMatrix();
+        return query(m -> m.getTopCoursePairs(k));
+    }
+
+    private void ensureCoEnrollmentMatrix() {
+        if (!query(UniversityManager::hasCoEnrollmentMatrix)) {
+            execute(UniversityManager::ensureCoEnrollmentMatrix);
+        }
+    }
+
+    /** Runs a read-only function under the shared lock. */
+    public <T> T query(Function<UniversityManager, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(manager);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Runs a read-only action, such as printing a report, under the shared lock. */
+    public void read(Consumer<UniversityManager> reader) {
+        lock.readLock().lock();
+        try {
+            reader.accept(manager);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Runs a mutation under the exclusive lock and returns its result. */
+    public <T> T update(Function<UniversityManager, T> writer) {
+        lock.writeLock().lock();
+        try {
+            return writer.apply(manager);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Runs a mutation with no result under the exclusive lock. */
+    public void execute(Consumer<UniversityManager> writer) {
+        lock.writeLock().lock();
+        try {
+            writer.accept(manager);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Direct access for single-threaded startup and shutdown work such as
+     * loading files before any client is served.
+     */
+    public UniversityManager getManager() {
+        return manager;
+    }
+}
@@ -0,0 +1,62 @@
+package telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * One enrollment attempt, split into ID lookup, rule checks and commit
+ * (roster, timetable and snapshot copies). Disabled unless a recording
+ * turns it on, e.g. with config/university.jfc.
+ */
+@Name("university.Enrollment")
+@Label("Enrollment")
+@Category({ "University", "Registry" })
+@Description("Enrollment attempt and where its time went")
+@Enabled(false)
+public class EnrollmentEvent extends Event {
+
+    @Label("Student ID")
+    public String studentId;
+
+    @Label("Course ID")
+    public String courseId;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Lookup Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lookupNanos;
+
+    @Label("Check Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long checkNanos;
+
+    @Label("Commit Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long commitNanos;
+
+    /** A System.nanoTime() mark, or 0 without the clock read when the event is off. */
+    public long mark() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /** Commits with the phase times taken from four marks. */
+    public void finish(String studentId, String courseId, String outcome,
+                       long start, long looked, long checked, long end) {
+        if (shouldCommit()) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.outcome = outcome;
+            this.lookupNanos = looked - start;
+            this.checkNanos = checked - looked;
+            this.commitNanos = end - checked;
+            commit();
+        }
+    }
+}
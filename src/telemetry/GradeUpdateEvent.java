@@ -0,0 +1,58 @@
+package telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** One grade change (or a bulk batch for one student), with the GPA recompute timed. */
+@Name("university.GradeUpdate")
+@Label("Grade Update")
+@Category({ "University", "Registry" })
+@Description("Grade change and the time spent recomputing the GPA")
+@Enabled(false)
+public class GradeUpdateEvent extends Event {
+
+    @Label("Student ID")
+    public String studentId;
+
+    @Label("Course ID")
+    @Description("Empty for a bulk batch")
+    public String courseId;
+
+    @Label("Grades")
+    public int gradeCount;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Recompute Time")
+    @Description("Validating the grades and recomputing the GPA")
+    @Timespan(Timespan.NANOSECONDS)
+    public long recomputeNanos;
+
+    @Label("Snapshot Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long snapshotNanos;
+
+    /** A System.nanoTime() mark, or 0 without the clock read when the event is off. */
+    public long mark() {
+        return isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    public void finish(String studentId, String courseId, int gradeCount, String outcome,
+                       long start, long recomputed, long end) {
+        if (shouldCommit()) {
+            this.studentId = studentId;
+            this.courseId = courseId;
+            this.gradeCount = gradeCount;
+            this.outcome = outcome;
+            this.recomputeNanos = recomputed - start;
+            this.snapshotNanos = end - recomputed;
+            commit();
+        }
+    }
+}
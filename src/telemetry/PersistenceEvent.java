@@ -0,0 +1,46 @@
+package telemetry;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Loading or saving one data file. */
+@Name("university.Persistence")
+@Label("Persistence")
+@Category({ "University", "Persistence" })
+@Enabled(false)
+public class PersistenceEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Table")
+    public String table;
+
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    /** Commits if a recording wants the event; only then is the file size read. */
+    public void finish(String operation, String table, String file, long rows) {
+        if (shouldCommit()) {
+            this.operation = operation;
+            this.table = table;
+            this.file = file;
+            this.rows = rows;
+            this.bytes = new File(file).length();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A report or search over the registry and the number of results it produced. */
+@Name("university.Query")
+@Label("Query")
+@Category({ "University", "Query" })
+@Enabled(false)
+public class QueryEvent extends Event {
+
+    @Label("Query")
+    public String query;
+
+    @Label("Argument")
+    public String argument;
+
+    @Label("Results")
+    public int resultCount;
+
+    public void finish(String query, String argument, int resultCount) {
+        if (shouldCommit()) {
+            this.query = query;
+            this.argument = argument;
+            this.resultCount = resultCount;
+            commit();
+        }
+    }
+}
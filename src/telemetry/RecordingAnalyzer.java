@@ -0,0 +1,162 @@
+package telemetry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes a JFR recording into one latency table per operation:
+ * count, percentiles and total time, plus where the time went (lookup,
+ * rule checks, commit, GPA recompute) and rows and bytes for file I/O.
+ *
+ * Usage: java telemetry.RecordingAnalyzer university.jfr
+ */
+public class RecordingAnalyzer {
+
+    /** Durations and side totals for one operation, e.g. "Enrollment COURSE_FULL". */
+    private static class Operation {
+        private long[] nanos = new long[64];
+        private int count;
+        private final long[] phaseNanos = new long[3];
+        private final String[] phaseNames;
+        private long rows;
+        private long bytes;
+
+        Operation(String... phaseNames) {
+            this.phaseNames = phaseNames;
+        }
+
+        void add(Duration duration) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = duration.toNanos();
+        }
+
+        long percentile(long[] sorted, double p) {
+            int index = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        String detail() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < phaseNames.length; i++) {
+                sb.append(sb.length() > 0 ? " " : "")
+                  .append(phaseNames[i]).append('=')
+                  .append(String.format("%.1f", phaseNanos[i] / 1000.0 / count));
+            }
+            if (rows > 0) {
+                sb.append(sb.length() > 0 ? " " : "").append("rows=").append(rows);
+            }
+            if (bytes > 0) {
+                sb.append(" KB=").append(bytes / 1024);
+            }
+            return sb.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Usage: java telemetry.RecordingAnalyzer <recording.jfr>");
+            return;
+        }
+        Map<String, Operation> operations = summarize(Paths.get(args[0]));
+        if (operations.isEmpty()) {
+            System.out.println("No university.* events in " + args[0]
+                    + ". Was the recording started with config/university.jfc?");
+            return;
+        }
+        print(operations);
+    }
+
+    private static Map<String, Operation> summarize(Path recording) throws IOException {
+        Map<String, Operation> operations = new TreeMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                switch (type) {
+                    case "university.Enrollment": {
+                        Operation op = operations.computeIfAbsent(
+                                "Enrollment " + event.getString("outcome"),
+                                k -> new Operation("lookup_us", "check_us", "commit_us"));
+                        op.add(event.getDuration());
+                        op.phaseNanos[0] += event.getLong("lookupNanos");
+                        op.phaseNanos[1] += event.getLong("checkNanos");
+                        op.phaseNanos[2] += event.getLong("commitNanos");
+                        break;
+                    }
+                    case "university.GradeUpdate": {
+                        Operation op = operations.computeIfAbsent(
+                                "GradeUpdate " + event.getString("outcome"),
+                                k -> new Operation("recompute_us", "snapshot_us"));
+                        op.add(event.getDuration());
+                        op.phaseNanos[0] += event.getLong("recomputeNanos");
+                        op.phaseNanos[1] += event.getLong("snapshotNanos");
+                        break;
+                    }
+                    case "university.Registration":
+                        operations.computeIfAbsent(
+                                "Registration " + event.getString("entity"),
+                                k -> new Operation()).add(event.getDuration());
+                        break;
+                    case "university.Query": {
+                        Operation op = operations.computeIfAbsent(
+                                "Query " + event.getString("query"), k -> new Operation());
+                        op.add(event.getDuration());
+                        op.rows += event.getInt("resultCount");
+                        break;
+                    }
+                    case "university.Persistence": {
+                        Operation op = operations.computeIfAbsent(
+                                "Persistence " + event.getString("operation")
+                                + " " + event.getString("table"), k -> new Operation());
+                        op.add(event.getDuration());
+                        op.rows += event.getLong("rows");
+                        op.bytes += event.getLong("bytes");
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            }
+        }
+        return operations;
+    }
+
+    private static void print(Map<String, Operation> operations) {
+        System.out.println("=================================================================="
+                + "==============================");
+        System.out.printf("%-34s %8s %9s %9s %9s %9s %9s  %s%n",
+                "Operation", "Count", "p50 us", "p95 us", "p99 us", "Max us", "Total ms", "Breakdown (avg)");
+        System.out.println("------------------------------------------------------------------"
+                + "------------------------------");
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            String name = entry.getKey();
+            Operation op = entry.getValue();
+            long[] sorted = Arrays.copyOf(op.nanos, op.count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long n : sorted) {
+                total += n;
+            }
+            System.out.printf("%-34s %8d %9.1f %9.1f %9.1f %9.1f %9.1f  %s%n",
+                    name, op.count,
+                    op.percentile(sorted, 0.50) / 1000.0,
+                    op.percentile(sorted, 0.95) / 1000.0,
+                    op.percentile(sorted, 0.99) / 1000.0,
+                    sorted[op.count - 1] / 1000.0,
+                    total / 1_000_000.0,
+                    op.detail());
+        }
+        System.out.println("=================================================================="
+                + "==============================");
+    }
+}
@@ -0,0 +1,29 @@
+package telemetry;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A new student, instructor or course, or a prerequisite link. */
+@Name("university.Registration")
+@Label("Registration")
+@Category({ "University", "Registry" })
+@Enabled(false)
+public class RegistrationEvent extends Event {
+
+    @Label("Entity")
+    public String entity;
+
+    @Label("ID")
+    public String entityId;
+
+    public void finish(String entity, String entityId) {
+        if (shouldCommit()) {
+            this.entity = entity;
+            this.entityId = entityId;
+            commit();
+        }
+    }
+}